@@ -0,0 +1,97 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * La clase `AgregadosSecciones` guarda por sección los asientos libres, los vendidos y los
+ * clientes en espera, publicados por `Estadio` cada vez que cambian, para que las consultas de
+ * disponibilidad no tomen los candados de las secciones ni recorran el inventario.
+ *
+ * Cada sección es un "seqlock": quien publica (siempre con el candado de la sección tomado, así
+ * que hay un solo escritor por sección) deja el número de versión impar mientras escribe y par
+ * al terminar. Quien lee repite la lectura si la versión era impar o cambió, de modo que siempre
+ * ve los tres valores de una misma publicación, sin candados ni esperas del lado del escritor.
+ * Publicar son cuatro escrituras con semántica release y no crea objetos.
+ *
+ * La recaudación no se guarda: todos los asientos de una sección tienen el mismo precio, así que
+ * es `vendidos * precio` y se calcula al leer.
+ */
+public class AgregadosSecciones {
+    // Valores por sección, separados por 8 longs (64 bytes) para que dos secciones no compartan línea de caché.
+    private static final int STRIDE = 8;
+    private static final int VERSION = 0;
+    private static final int FREE = 1;
+    private static final int SOLD = 2;
+    private static final int WAITING = 3;
+
+    private final AtomicLongArray values;
+    private final String[] sectionNames;
+    private final int[] prices;
+
+    /**
+     * @param sectionNames Nombres de las secciones, por identificador.
+     * @param prices Precio de un asiento de cada sección.
+     */
+    public AgregadosSecciones(String[] sectionNames, int[] prices) {
+        this.sectionNames = sectionNames.clone();
+        this.prices = prices.clone();
+        values = new AtomicLongArray(sectionNames.length * STRIDE);
+    }
+
+    /**
+     * Publica los valores actuales de una sección. Debe llamarse con el candado de la sección
+     * tomado, para que no haya dos escritores a la vez.
+     *
+     * @param section Identificador de la sección.
+     * @param freeSeats Asientos libres.
+     * @param soldSeats Asientos reservados (ni libres ni retenidos).
+     * @param waiting Clientes en la lista de espera de la sección.
+     */
+    public void publish(int section, int freeSeats, int soldSeats, int waiting) {
+        int base = section * STRIDE;
+        long version = values.get(base + VERSION);
+        // Versión impar primero; cada escritura release queda visible después de las anteriores.
+        values.setRelease(base + VERSION, version + 1);
+        values.setRelease(base + FREE, freeSeats);
+        values.setRelease(base + SOLD, soldSeats);
+        values.setRelease(base + WAITING, waiting);
+        values.setRelease(base + VERSION, version + 2);
+    }
+
+    /**
+     * @return Asientos libres publicados de una sección. Una sola lectura, sin reintentos.
+     */
+    public int freeSeats(int section) {
+        return (int) values.getAcquire(section * STRIDE + FREE);
+    }
+
+    /**
+     * @return Clientes en espera publicados de una sección.
+     */
+    public int waitlistDepth(int section) {
+        return (int) values.getAcquire(section * STRIDE + WAITING);
+    }
+
+    /**
+     * Lee los valores de una sección de una misma publicación, sin candados.
+     *
+     * @param section Identificador de la sección.
+     * @return Precio, libres, vendidos, clientes en espera y recaudación de la sección.
+     */
+    public DisponibilidadSeccion snapshot(int section) {
+        int base = section * STRIDE;
+        while (true) {
+            long version = values.getAcquire(base + VERSION);
+            long freeSeats = values.getAcquire(base + FREE);
+            long soldSeats = values.getAcquire(base + SOLD);
+            long waiting = values.getAcquire(base + WAITING);
+            if ((version & 1) == 0 && values.getAcquire(base + VERSION) == version) {
+                return new DisponibilidadSeccion(sectionNames[section], prices[section], (int) freeSeats,
+                        (int) waiting, (int) soldSeats, soldSeats * prices[section]);
+            }
+            Thread.onSpinWait(); // Una publicación está en curso; dura unas pocas instrucciones.
+        }
+    }
+
+    public int sectionCount() {
+        return sectionNames.length;
+    }
+}
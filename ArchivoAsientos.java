@@ -0,0 +1,386 @@
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * La clase `ArchivoAsientos` guarda el estado de cada asiento (libre, retenido o reservado y el
+ * identificador de su dueño) en un archivo mapeado en memoria con `FileChannel.map`.
+ *
+ * `Estadio` escribe cada cambio directamente en el mapeo, así que otro proceso del mismo equipo
+ * (por ejemplo, un reporte de solo lectura) lo mapea y lee la disponibilidad al instante: no hay
+ * nada que deserializar ni copiar al heap.
+ *
+ * El archivo no acelera el reinicio del propio estadio. Al abrir, `Estadio` recupera todo desde la
+ * instantánea y el diario, y después reescribe el archivo completo con ese estado; el archivo no se
+ * lee. El diario es la fuente de verdad: con la confirmación en grupo el archivo puede ir por
+ * delante de lo que ya está en disco, y el archivo no guarda las listas de espera, los datos de
+ * los clientes ni lo necesario para deshacer. Cargar los asientos desde el archivo y reproducir
+ * solo el final del diario requeriría guardar en el archivo hasta qué evento refleja.
+ *
+ * Formato del archivo (`asientos.dat`, little-endian):
+ * - Encabezado: `[int magia][int versión][int capacidad][int páginas][int secciones]`, y por
+ *   sección `[int primer índice][int asientos][short largo][nombre UTF-8]`.
+ * - Sumas de verificación: un `long` por página, desde el primer múltiplo de 4096 tras el encabezado.
+ * - Casillas: 8 bytes por índice global del inventario, desde el siguiente múltiplo de 4096.
+ *   El byte 0 es el estado (`EstadoAsiento.ordinal()`) y los bytes 4 a 7 el identificador del
+ *   cliente en `RegistroClientes`. Una casilla en cero es un asiento libre.
+ *
+ * Seguridad ante caídas: la suma de una página es la suma de `mix(posición, casilla)` de sus
+ * casillas. Cada escritura guarda la casilla (release, 8 bytes alineados: nunca queda a medias) y
+ * después suma a la página la diferencia, en O(1) y con una suma atómica, porque dos secciones
+ * pueden compartir página. Si el proceso cae, el kernel conserva lo que ya se escribió; si cae
+ * entre la casilla y la suma, o cae el equipo y una página quedó escrita a medias, la suma no
+ * coincide y `verify` marca la página como dañada hasta que el estadio se vuelve a abrir y
+ * reconcilia el archivo. `VerificadorCaidas` comprueba ambos casos de caída del proceso.
+ */
+public class ArchivoAsientos implements AutoCloseable {
+    /** Nombre del archivo dentro del directorio de datos. */
+    public static final String FILE_NAME = "asientos.dat";
+
+    private static final int MAGIC = 0x45534154; // "ESAT"
+    private static final int VERSION = 1;
+    private static final int SLOT_BYTES = 8;
+    private static final int PAGE_SHIFT = 9; // 512 casillas (4096 bytes) por página.
+    private static final int ALIGN = 4096;
+    private static final int HEADER_FIXED = 5 * 4;
+
+    // Acceso de 8 bytes a las casillas y sumas: atómico para direcciones alineadas del mapeo.
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private final int pageCount;
+    private final int checksumOffset;
+    private final int slotOffset;
+    private final int[] sectionStarts;
+    private final int[] sectionSizes;
+    private final String[] sectionNames;
+
+    private ArchivoAsientos(FileChannel channel, MappedByteBuffer buffer, int capacity,
+                            int[] sectionStarts, int[] sectionSizes, String[] sectionNames) {
+        this.channel = channel;
+        this.buffer = buffer;
+        this.capacity = capacity;
+        this.sectionStarts = sectionStarts;
+        this.sectionSizes = sectionSizes;
+        this.sectionNames = sectionNames;
+        pageCount = pageCount(capacity);
+        checksumOffset = align(headerSize(sectionNames));
+        slotOffset = align(checksumOffset + pageCount * 8);
+    }
+
+    /**
+     * Abre el archivo del inventario para escribir, creándolo (todos los asientos libres) si no
+     * existe o si corresponde a otra distribución de secciones.
+     *
+     * @param file Ruta del archivo.
+     * @param inventory Inventario cuyas secciones y capacidad describe el archivo.
+     * @return Archivo mapeado en modo lectura y escritura.
+     */
+    public static ArchivoAsientos open(Path file, InventarioAsientos inventory) throws IOException {
+        int sections = inventory.sectionCount();
+        int[] starts = new int[sections];
+        int[] sizes = new int[sections];
+        String[] names = new String[sections];
+        for (int section = 0; section < sections; section++) {
+            starts[section] = inventory.sectionStart(section);
+            sizes[section] = inventory.sectionCapacity(section);
+            names[section] = inventory.sectionName(section);
+        }
+        if (Files.exists(file)) {
+            ArchivoAsientos existing = map(file, false);
+            if (existing != null && existing.capacity == inventory.capacity()
+                    && Arrays.equals(existing.sectionStarts, starts) && Arrays.equals(existing.sectionSizes, sizes)
+                    && Arrays.equals(existing.sectionNames, names)) {
+                return existing;
+            }
+            if (existing != null) {
+                existing.close();
+            }
+            Files.delete(file); // Otra distribución (o un archivo ilegible): se vuelve a crear.
+        }
+
+        int capacity = inventory.capacity();
+        long size = align(align(headerSize(names)) + pageCount(capacity) * 8) + (long) capacity * SLOT_BYTES;
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Demasiados asientos para un solo archivo mapeado: " + capacity);
+        }
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        ArchivoAsientos created;
+        try {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            created = new ArchivoAsientos(channel, buffer, capacity, starts, sizes, names);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        created.writeHeader();
+        created.rebuildChecksums();
+        created.force();
+        return created;
+    }
+
+    /**
+     * Mapea un archivo existente en modo de solo lectura, para reportes desde otro proceso.
+     *
+     * @param file Ruta del archivo.
+     * @return Archivo mapeado.
+     * @throws IOException Si el archivo no existe o no tiene el formato esperado.
+     */
+    public static ArchivoAsientos openReadOnly(Path file) throws IOException {
+        ArchivoAsientos mapped = map(file, true);
+        if (mapped == null) {
+            throw new IOException("No es un archivo de asientos válido: " + file);
+        }
+        return mapped;
+    }
+
+    /**
+     * Mapea un archivo existente y lee su encabezado.
+     *
+     * @return El archivo, o null si el encabezado no es válido.
+     */
+    private static ArchivoAsientos map(Path file, boolean readOnly) throws IOException {
+        FileChannel channel = readOnly ? FileChannel.open(file, StandardOpenOption.READ)
+                : FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long size = channel.size();
+            if (size < HEADER_FIXED || size > Integer.MAX_VALUE) {
+                channel.close();
+                return null;
+            }
+            MappedByteBuffer buffer = channel.map(readOnly ? FileChannel.MapMode.READ_ONLY
+                    : FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            int capacity = buffer.getInt(8);
+            int sections = buffer.getInt(16);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || capacity < 0
+                    || buffer.getInt(12) != pageCount(capacity) || sections < 0 || sections > size / 10) {
+                channel.close();
+                return null;
+            }
+            int[] starts = new int[sections];
+            int[] sizes = new int[sections];
+            String[] names = new String[sections];
+            int position = HEADER_FIXED;
+            for (int section = 0; section < sections; section++) {
+                starts[section] = buffer.getInt(position);
+                sizes[section] = buffer.getInt(position + 4);
+                byte[] name = new byte[buffer.getShort(position + 8)];
+                buffer.get(position + 10, name);
+                names[section] = new String(name, StandardCharsets.UTF_8);
+                position += 10 + name.length;
+            }
+            ArchivoAsientos mapped = new ArchivoAsientos(channel, buffer, capacity, starts, sizes, names);
+            if (mapped.slotOffset + (long) capacity * SLOT_BYTES != size) {
+                channel.close();
+                return null;
+            }
+            return mapped;
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        } catch (RuntimeException e) {
+            channel.close();
+            return null; // Encabezado truncado o con largos inválidos.
+        }
+    }
+
+    private void writeHeader() {
+        buffer.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, capacity).putInt(12, pageCount)
+                .putInt(16, sectionNames.length);
+        int position = HEADER_FIXED;
+        for (int section = 0; section < sectionNames.length; section++) {
+            byte[] name = sectionNames[section].getBytes(StandardCharsets.UTF_8);
+            buffer.putInt(position, sectionStarts[section]).putInt(position + 4, sectionSizes[section])
+                    .putShort(position + 8, (short) name.length);
+            buffer.put(position + 10, name);
+            position += 10 + name.length;
+        }
+    }
+
+    /**
+     * Escribe el estado de un asiento. Debe llamarse con el candado de la sección del asiento
+     * tomado, para que cada casilla tenga un solo escritor.
+     *
+     * @param seat Índice global del asiento.
+     * @param state Nuevo estado.
+     * @param clientId Identificador del dueño (se ignora si el asiento queda libre).
+     */
+    public void set(int seat, EstadoAsiento state, int clientId) {
+        long slot = state == EstadoAsiento.AVAILABLE ? 0 : (long) clientId << 32 | state.ordinal();
+        int offset = slotOffset + seat * SLOT_BYTES;
+        long previous = (long) LONGS.get(buffer, offset);
+        if (previous == slot) {
+            return;
+        }
+        LONGS.setRelease(buffer, offset, slot);
+        // Después de la casilla: una caída entre ambas escrituras deja la página marcada como dañada.
+        LONGS.getAndAdd(buffer, checksumOffset + (seat >>> PAGE_SHIFT) * 8, mix(seat, slot) - mix(seat, previous));
+    }
+
+    /**
+     * @param seat Índice global del asiento.
+     * @return Estado guardado del asiento.
+     */
+    public EstadoAsiento stateOf(int seat) {
+        return EstadoAsiento.values()[(int) slot(seat) & 0xFF];
+    }
+
+    /**
+     * @param seat Índice global del asiento.
+     * @return Identificador del dueño del asiento, o -1 si está libre.
+     */
+    public int holderOf(int seat) {
+        long slot = slot(seat);
+        return slot == 0 ? -1 : (int) (slot >>> 32);
+    }
+
+    private long slot(int seat) {
+        return (long) LONGS.getAcquire(buffer, slotOffset + seat * SLOT_BYTES);
+    }
+
+    /**
+     * Cuenta los asientos de una sección en un estado recorriendo sus casillas; unos microsegundos
+     * por cada mil asientos.
+     *
+     * @param section Identificador de la sección.
+     * @param state Estado a contar.
+     * @return Cantidad de asientos de la sección en ese estado.
+     */
+    public int count(int section, EstadoAsiento state) {
+        int total = 0;
+        int end = sectionStarts[section] + sectionSizes[section];
+        for (int seat = sectionStarts[section]; seat < end; seat++) {
+            if (((int) slot(seat) & 0xFF) == state.ordinal()) {
+                total++;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Comprueba la suma de cada página. Con el archivo en uso por otro proceso, una página que
+     * cambia durante la comprobación puede aparecer dañada: vale la pena repetirla.
+     *
+     * @return Cantidad de páginas cuya suma no coincide con sus casillas.
+     */
+    public int verify() {
+        int damaged = 0;
+        for (int page = 0; page < pageCount; page++) {
+            if (pageChecksum(page) != (long) LONGS.getAcquire(buffer, checksumOffset + page * 8)) {
+                damaged++;
+            }
+        }
+        return damaged;
+    }
+
+    /**
+     * Recalcula la suma de todas las páginas. Solo se usa al crear el archivo y al reconciliarlo,
+     * antes de que otro hilo escriba.
+     */
+    public void rebuildChecksums() {
+        for (int page = 0; page < pageCount; page++) {
+            LONGS.setRelease(buffer, checksumOffset + page * 8, pageChecksum(page));
+        }
+    }
+
+    private long pageChecksum(int page) {
+        long sum = 0;
+        int end = Math.min(capacity, (page + 1) << PAGE_SHIFT);
+        for (int seat = page << PAGE_SHIFT; seat < end; seat++) {
+            sum += mix(seat, slot(seat));
+        }
+        return sum;
+    }
+
+    /**
+     * Mezcla la posición y el contenido de una casilla (finalizador de MurmurHash3), para que
+     * intercambiar o repetir casillas también cambie la suma de la página.
+     */
+    private static long mix(int seat, long slot) {
+        long h = slot ^ (seat * 0x9E3779B97F4A7C15L);
+        h = (h ^ (h >>> 33)) * 0xFF51AFD7ED558CCDL;
+        h = (h ^ (h >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return h ^ (h >>> 33);
+    }
+
+    /**
+     * Pide al sistema operativo que escriba en disco las páginas modificadas. Las escrituras ya
+     * son visibles para otros procesos sin esto; solo hace falta para sobrevivir a una caída del equipo.
+     */
+    public void force() {
+        buffer.force();
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public int sectionCount() {
+        return sectionNames.length;
+    }
+
+    public String sectionName(int section) {
+        return sectionNames[section];
+    }
+
+    public int sectionCapacity(int section) {
+        return sectionSizes[section];
+    }
+
+    /**
+     * Cierra el canal. El mapeo sigue válido hasta que el recolector de basura libere el buffer.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private static int pageCount(int capacity) {
+        return (capacity + (1 << PAGE_SHIFT) - 1) >>> PAGE_SHIFT;
+    }
+
+    private static int headerSize(String[] names) {
+        int size = HEADER_FIXED;
+        for (String name : names) {
+            size += 10 + name.getBytes(StandardCharsets.UTF_8).length;
+        }
+        return size;
+    }
+
+    private static int align(int offset) {
+        return (offset + ALIGN - 1) & -ALIGN;
+    }
+
+    /**
+     * Reporte de disponibilidad desde otro proceso, sin abrir el estadio:
+     * `java -cp out ArchivoAsientos datos/asientos.dat`.
+     */
+    public static void main(String[] args) throws IOException {
+        Path file = Paths.get(args.length > 0 ? args[0] : "datos/" + FILE_NAME);
+        try (ArchivoAsientos seats = openReadOnly(file)) {
+            for (int section = 0; section < seats.sectionCount(); section++) {
+                System.out.printf("%-24s libres=%d retenidos=%d vendidos=%d%n", seats.sectionName(section),
+                        seats.count(section, EstadoAsiento.AVAILABLE), seats.count(section, EstadoAsiento.HELD),
+                        seats.count(section, EstadoAsiento.RESERVED));
+            }
+            int damaged = seats.verify();
+            if (damaged > 0) {
+                System.out.println("Páginas con suma de verificación inválida: " + damaged);
+            }
+        }
+    }
+}
@@ -1,7 +1,7 @@
 public class Asiento {
-    private String section;
-    private int row;
-    private int seatNumber;
+    private final String section;
+    private final int row;
+    private final int seatNumber;
 
     public Asiento(String section, int row, int seatNumber) {
         this.section = section;
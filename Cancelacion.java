@@ -0,0 +1,30 @@
+/**
+ * Resultado de cancelar una reserva: el asiento liberado, el cliente que lo tenía y,
+ * si la lista de espera de la sección no estaba vacía, el cliente que recibió el asiento.
+ */
+public class Cancelacion {
+    private final Cliente client;
+    private final Asiento seat;
+    private final Cliente promotedClient;
+
+    public Cancelacion(Cliente client, Asiento seat, Cliente promotedClient) {
+        this.client = client;
+        this.seat = seat;
+        this.promotedClient = promotedClient;
+    }
+
+    public Cliente getClient() {
+        return client;
+    }
+
+    public Asiento getSeat() {
+        return seat;
+    }
+
+    /**
+     * @return Cliente promovido desde la lista de espera, o null si nadie esperaba.
+     */
+    public Cliente getPromotedClient() {
+        return promotedClient;
+    }
+}
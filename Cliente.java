@@ -1,12 +1,30 @@
+import java.util.Locale;
+
+/**
+ * Datos de contacto de un cliente.
+ *
+ * La identidad de un cliente es su email normalizado (sin espacios y en minúsculas): dos objetos
+ * `Cliente` con el mismo email son iguales aunque el nombre o el teléfono difieran. Esto permite
+ * usarlo como llave de mapas y encontrar sus reservas en O(1).
+ */
 public class Cliente {
-    private String name;
-    private String email;
-    private String phoneNumber;
+    private final String name;
+    private final String email;
+    private final String phoneNumber;
+    private final String key; // Email normalizado, usado para equals y hashCode.
 
     public Cliente(String name, String email, String phoneNumber) {
         this.name = name;
         this.email = email;
         this.phoneNumber = phoneNumber;
+        this.key = normalize(email);
+    }
+
+    /**
+     * @return El email sin espacios alrededor y en minúsculas; es la misma cadena si ya estaba normalizado.
+     */
+    public static String normalize(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
     }
 
     public String getName() {
@@ -21,6 +39,29 @@ public class Cliente {
         return phoneNumber;
     }
 
+    /**
+     * @return Email normalizado que identifica al cliente.
+     */
+    public String getKey() {
+        return key;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof Cliente)) {
+            return false;
+        }
+        return key.equals(((Cliente) other).key);
+    }
+
+    @Override
+    public int hashCode() {
+        return key.hashCode();
+    }
+
     @Override
     public String toString() {
         return name + " (" + email + ")";
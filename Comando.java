@@ -0,0 +1,72 @@
+/**
+ * Una acción que se puede deshacer o rehacer. Usa los mismos tipos de evento que `DiarioReservas`.
+ *
+ * - `RESERVE`: `value` es el asiento y `client` quien lo reservó. En la pila de rehacer,
+ *   `promotedClient` es quien recibió el asiento desde la lista de espera al deshacer la reserva.
+ * - `CANCEL`: `value` es el asiento, `client` quien canceló y `promotedClient` quien lo recibió
+ *   desde la lista de espera (-1 si nadie esperaba), con su nivel de prioridad en `promotedTier` y la
+ *   sección donde esperaba en `promotedSection` (otra, si aceptaba la del asiento como alternativa).
+ *   Deshacerla revierte también la promoción.
+ * - `WAITLIST_JOIN`: `value` es la sección y el nivel de prioridad (ver `Estadio.waitlistValue`)
+ *   y `client` quien se agregó a la lista de espera. En la pila de rehacer, `fallbacks` son las
+ *   secciones alternativas que tenía al deshacerla, para volver a anotarlas al rehacer.
+ *
+ * Los clientes se guardan como identificadores de `RegistroClientes`.
+ */
+public class Comando {
+    private static final int[] NO_FALLBACKS = new int[0];
+
+    private final byte type;
+    private final int value;
+    private final int client;
+    private final int promotedClient;
+    private final byte promotedTier;
+    private final int promotedSection;
+    private final int[] fallbacks;
+
+    public Comando(byte type, int value, int client, int promotedClient, byte promotedTier, int promotedSection) {
+        this(type, value, client, promotedClient, promotedTier, promotedSection, NO_FALLBACKS);
+    }
+
+    public Comando(byte type, int value, int client, int promotedClient, byte promotedTier, int promotedSection,
+            int[] fallbacks) {
+        this.type = type;
+        this.value = value;
+        this.client = client;
+        this.promotedClient = promotedClient;
+        this.promotedTier = promotedTier;
+        this.promotedSection = promotedSection;
+        this.fallbacks = fallbacks == null ? NO_FALLBACKS : fallbacks;
+    }
+
+    public byte getType() {
+        return type;
+    }
+
+    public int getValue() {
+        return value;
+    }
+
+    public int getClient() {
+        return client;
+    }
+
+    public int getPromotedClient() {
+        return promotedClient;
+    }
+
+    public byte getPromotedTier() {
+        return promotedTier;
+    }
+
+    public int getPromotedSection() {
+        return promotedSection;
+    }
+
+    /**
+     * @return Secciones alternativas de un `WAITLIST_JOIN` deshecho; vacío si no tenía.
+     */
+    public int[] getFallbacks() {
+        return fallbacks;
+    }
+}
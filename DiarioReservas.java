@@ -0,0 +1,610 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * La clase `DiarioReservas` guarda cada cambio de estado del estadio en un diario binario de solo
+ * escritura al final (append-only), para poder reconstruir el estado después de reiniciar.
+ *
+ * Formato de cada registro: `[int largo][int crc32][byte tipo][datos]`, donde el CRC cubre el tipo
+ * y los datos. Un registro incompleto al final del archivo (por una caída) se detecta con el largo
+ * o el CRC y se ignora al leer.
+ *
+ * El diario se divide en segmentos (`diario-000001.log`, `diario-000002.log`, ...). Al tomar una
+ * instantánea se abre un segmento nuevo; los anteriores ya no se necesitan para recuperar.
+ *
+ * Escritura en grupo (group commit): `append` solo copia el registro a un buffer en memoria. Un hilo
+ * escritor toma todo lo acumulado, lo escribe con un `FileChannel` y llama a `force` una vez por
+ * lote. Quien necesite durabilidad espera con `awaitDurable`, así muchos hilos comparten un fsync.
+ *
+ * Sin hilo escritor (`writerThread` en false), `awaitDurable` escribe y sincroniza lo acumulado en
+ * el hilo que lo llama. Es para un estadio confinado a un solo hilo (ver `GestorEventos`): ahí nadie
+ * más agrega eventos mientras se espera, así que un hilo aparte no agruparía nada.
+ */
+public class DiarioReservas implements Closeable {
+    public static final byte CLIENT = 1;        // Datos de un cliente: id, nombre, email, teléfono.
+    public static final byte RESERVE = 2;       // Asiento reservado: asiento, cliente.
+    public static final byte CANCEL = 3;        // Reserva cancelada: asiento, cliente.
+    public static final byte WAITLIST_JOIN = 4; // Cliente agregado a la lista de espera: sección y prioridad, cliente.
+    public static final byte PROMOTE = 5;       // Asiento asignado desde la lista de espera: asiento, cliente.
+    public static final byte WAITLIST_FRONT = 6; // Cliente devuelto al frente de la lista de espera: sección y prioridad, cliente.
+    public static final byte WAITLIST_LEAVE = 7; // Cliente quitado de la lista de espera: sección, cliente.
+    public static final byte RESERVE_BLOCK = 8; // Varios asientos reservados por un cliente: cliente, rangos de asientos.
+    public static final byte RELEASE_BATCH = 9; // Lote de asientos liberados y promociones: dueño, (asiento, promovido, sección de origen)...
+    public static final byte WAITLIST_FALLBACK = 10; // Sección alternativa de un cliente en espera: sección principal y alternativa, cliente.
+    public static final byte RESERVE_BATCH = 11; // Reservas en lote de una sección: cantidad, (cliente, rangos de asientos)...
+
+    private static final String PREFIX = "diario-";
+    private static final String SUFFIX = ".log";
+    private static final int HEADER = 8; // largo + crc.
+
+    private final Path directory;
+    private final RegistroClientes clients;
+    private final BitSet journaledClients = new BitSet(); // Clientes cuyo registro CLIENT ya está en el segmento.
+    private final CRC32 crc = new CRC32();
+    private final Thread writer; // null si `awaitDurable` escribe en el hilo que lo llama.
+
+    private FileChannel channel;
+    private long segment;
+    private ByteBuffer pending = ByteBuffer.allocate(64 * 1024);
+    private ByteBuffer writing = ByteBuffer.allocate(64 * 1024);
+    private long appendedSequence;  // Cantidad de registros agregados.
+    private long durableSequence;   // Cantidad de registros escritos y sincronizados con el disco.
+    private long recordsInSegment;
+    private boolean flushing;
+    private boolean closed;
+    private IOException failure;
+
+    /**
+     * Abre un segmento nuevo en el directorio e inicia el hilo escritor.
+     *
+     * @param directory Directorio de datos.
+     * @param segment Número del segmento a crear.
+     * @param clients Registro para obtener los datos de los clientes referenciados.
+     */
+    public DiarioReservas(Path directory, long segment, RegistroClientes clients) throws IOException {
+        this(directory, segment, clients, true);
+    }
+
+    /**
+     * Abre un segmento nuevo en el directorio.
+     *
+     * @param writerThread true para escribir en grupo desde un hilo propio; false para escribir en
+     *                     el hilo que llama a `awaitDurable`.
+     */
+    public DiarioReservas(Path directory, long segment, RegistroClientes clients, boolean writerThread) throws IOException {
+        this.directory = directory;
+        this.clients = clients;
+        this.segment = segment;
+        this.channel = openSegment(directory, segment);
+        if (writerThread) {
+            this.writer = new Thread(this::writeLoop, "diario-reservas");
+            this.writer.setDaemon(true);
+            this.writer.start();
+        } else {
+            this.writer = null;
+        }
+    }
+
+    /**
+     * Agrega un evento al buffer del diario. Si el cliente todavía no aparece en el segmento actual,
+     * primero agrega un registro `CLIENT` con sus datos.
+     *
+     * @param type Tipo de evento (cualquiera excepto `CLIENT`).
+     * @param value Asiento o sección, según el tipo.
+     * @param clientId Identificador del cliente en `RegistroClientes`.
+     * @return Número de secuencia del evento, para usar con `awaitDurable`.
+     */
+    public synchronized long append(byte type, int value, int clientId) {
+        checkOpen();
+        if (!journaledClients.get(clientId)) {
+            appendClient(clientId, clients.get(clientId));
+        }
+        ensureCapacity(HEADER + 9);
+        int start = pending.position();
+        pending.position(start + HEADER);
+        pending.put(type).putInt(value).putInt(clientId);
+        return finishRecord(start);
+    }
+
+    /**
+     * Agrega un evento de varios asientos en un solo registro. Los asientos se guardan como rangos
+     * contiguos `(inicio, largo)`, que es como suelen salir del inventario.
+     *
+     * @param type Tipo de evento (`RESERVE_BLOCK`).
+     * @param seats Índices de los asientos, en orden ascendente.
+     * @param clientId Identificador del cliente en `RegistroClientes`.
+     * @return Número de secuencia del evento, para usar con `awaitDurable`.
+     */
+    public synchronized long appendBlock(byte type, int[] seats, int clientId) {
+        checkOpen();
+        if (!journaledClients.get(clientId)) {
+            appendClient(clientId, clients.get(clientId));
+        }
+        int runs = countRuns(seats);
+        ensureCapacity(HEADER + 9 + runs * 8);
+        int start = pending.position();
+        pending.position(start + HEADER);
+        pending.put(type).putInt(clientId);
+        putRuns(seats, runs);
+        return finishRecord(start);
+    }
+
+    /**
+     * Agrega varias reservas de bloques, de distintos clientes, en un solo registro. Cada bloque
+     * guarda sus asientos como rangos, igual que `appendBlock`.
+     *
+     * @param type Tipo de evento (`RESERVE_BATCH`).
+     * @param clientIds Cliente de cada bloque.
+     * @param seats Asientos de cada bloque, en orden ascendente.
+     * @param count Cantidad de bloques a escribir (los primeros `count` de cada arreglo).
+     * @return Número de secuencia del evento, para usar con `awaitDurable`.
+     */
+    public synchronized long appendBatch(byte type, int[] clientIds, int[][] seats, int count) {
+        checkOpen();
+        int bytes = HEADER + 5;
+        for (int i = 0; i < count; i++) {
+            if (!journaledClients.get(clientIds[i])) {
+                appendClient(clientIds[i], clients.get(clientIds[i]));
+            }
+            bytes += 8 + countRuns(seats[i]) * 8;
+        }
+        ensureCapacity(bytes);
+        int start = pending.position();
+        pending.position(start + HEADER);
+        pending.put(type).putInt(count);
+        for (int i = 0; i < count; i++) {
+            pending.putInt(clientIds[i]);
+            putRuns(seats[i], countRuns(seats[i]));
+        }
+        return finishRecord(start);
+    }
+
+    private static int countRuns(int[] seats) {
+        int runs = 0;
+        for (int i = 0; i < seats.length; i++) {
+            if (i == 0 || seats[i] != seats[i - 1] + 1) {
+                runs++;
+            }
+        }
+        return runs;
+    }
+
+    /**
+     * Escribe `[int rangos]` y cada rango contiguo `(inicio, largo)` de los asientos.
+     */
+    private void putRuns(int[] seats, int runs) {
+        pending.putInt(runs);
+        int runStart = 0;
+        for (int i = 1; i <= seats.length; i++) {
+            if (i == seats.length || seats[i] != seats[i - 1] + 1) {
+                pending.putInt(seats[runStart]).putInt(i - runStart);
+                runStart = i;
+            }
+        }
+    }
+
+    /**
+     * Agrega un lote de asientos liberados, con la promoción aplicada a cada uno, en un solo registro.
+     * Si algún cliente todavía no aparece en el segmento actual, primero se agrega su registro `CLIENT`.
+     *
+     * @param type Tipo de evento (`RELEASE_BATCH`).
+     * @param holderId Cliente que tenía los asientos.
+     * @param seats Asientos liberados.
+     * @param promotedClients Cliente que recibió cada asiento desde una lista de espera, o -1.
+     * @param sources Sección en cuya lista de espera estaba cada cliente promovido, o -1.
+     * @return Número de secuencia del evento, para usar con `awaitDurable`.
+     */
+    public synchronized long appendRelease(byte type, int holderId, int[] seats, int[] promotedClients, int[] sources) {
+        checkOpen();
+        if (!journaledClients.get(holderId)) {
+            appendClient(holderId, clients.get(holderId));
+        }
+        for (int promoted : promotedClients) {
+            if (promoted >= 0 && !journaledClients.get(promoted)) {
+                appendClient(promoted, clients.get(promoted));
+            }
+        }
+        ensureCapacity(HEADER + 9 + seats.length * 12);
+        int start = pending.position();
+        pending.position(start + HEADER);
+        pending.put(type).putInt(holderId).putInt(seats.length);
+        for (int i = 0; i < seats.length; i++) {
+            pending.putInt(seats[i]).putInt(promotedClients[i]).putInt(sources[i]);
+        }
+        return finishRecord(start);
+    }
+
+    /**
+     * Espera a que el evento indicado (y todos los anteriores) esté sincronizado con el disco.
+     *
+     * @param sequence Número devuelto por `append`.
+     */
+    public synchronized void awaitDurable(long sequence) {
+        if (writer == null) {
+            if (durableSequence < sequence && failure == null) {
+                flushPending();
+            }
+            if (failure != null && durableSequence < sequence) {
+                throw new UncheckedIOException("No se pudo escribir el diario", failure);
+            }
+            return;
+        }
+        boolean interrupted = false;
+        while (durableSequence < sequence && failure == null) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure != null && durableSequence < sequence) {
+            throw new UncheckedIOException("No se pudo escribir el diario", failure);
+        }
+    }
+
+    /**
+     * Escribe lo pendiente, cierra el segmento actual y abre el siguiente.
+     * Quien lo llama debe impedir que se agreguen eventos mientras tanto (por ejemplo, tomando
+     * todos los candados de sección), para que la instantánea coincida con el corte del diario.
+     *
+     * @return Número del segmento nuevo.
+     */
+    public synchronized long roll() throws IOException {
+        checkOpen();
+        boolean interrupted = false;
+        while (flushing) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        pending.flip();
+        writeFully(channel, pending);
+        pending.clear();
+        channel.force(false);
+        channel.close();
+
+        segment++;
+        channel = openSegment(directory, segment);
+        journaledClients.clear();
+        recordsInSegment = 0;
+        durableSequence = appendedSequence;
+        notifyAll();
+        return segment;
+    }
+
+    /**
+     * @return Cantidad de eventos agregados al segmento actual.
+     */
+    public synchronized long recordsInSegment() {
+        return recordsInSegment;
+    }
+
+    /**
+     * Escribe lo pendiente y detiene el hilo escritor.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            notifyAll();
+            if (writer == null && failure == null && pending.position() > 0) {
+                flushPending();
+            }
+        }
+        if (writer != null) {
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (this) {
+            channel.close();
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    /**
+     * Hilo escritor: toma el buffer acumulado, lo escribe y sincroniza con el disco en un solo lote.
+     */
+    private void writeLoop() {
+        while (true) {
+            FileChannel target;
+            long batchSequence;
+            synchronized (this) {
+                while (pending.position() == 0 && !closed) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (pending.position() == 0) {
+                    return; // Cerrado y sin nada pendiente.
+                }
+                ByteBuffer batch = pending;
+                pending = writing;
+                writing = batch;
+                target = channel;
+                batchSequence = appendedSequence;
+                flushing = true;
+            }
+
+            IOException error = null;
+            try {
+                writing.flip();
+                writeFully(target, writing);
+                target.force(false);
+            } catch (IOException e) {
+                error = e;
+            } finally {
+                writing.clear();
+            }
+
+            synchronized (this) {
+                flushing = false;
+                if (error != null) {
+                    failure = error;
+                } else {
+                    durableSequence = Math.max(durableSequence, batchSequence);
+                }
+                notifyAll();
+                if (error != null) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Sin hilo escritor: escribe y sincroniza lo acumulado en el hilo actual. Un error queda en
+     * `failure`, igual que en `writeLoop`.
+     */
+    private void flushPending() {
+        try {
+            pending.flip();
+            writeFully(channel, pending);
+            channel.force(false);
+            durableSequence = appendedSequence;
+        } catch (IOException e) {
+            failure = e;
+        } finally {
+            pending.clear();
+        }
+    }
+
+    private void appendClient(int clientId, Cliente client) {
+        byte[] name = client.getName().getBytes(StandardCharsets.UTF_8);
+        byte[] email = client.getEmail().getBytes(StandardCharsets.UTF_8);
+        byte[] phone = client.getPhoneNumber().getBytes(StandardCharsets.UTF_8);
+        ensureCapacity(HEADER + 5 + 12 + name.length + email.length + phone.length);
+        int start = pending.position();
+        pending.position(start + HEADER);
+        pending.put(CLIENT).putInt(clientId);
+        pending.putInt(name.length).put(name);
+        pending.putInt(email.length).put(email);
+        pending.putInt(phone.length).put(phone);
+        finishRecord(start);
+        journaledClients.set(clientId);
+    }
+
+    /**
+     * Completa el encabezado (largo y CRC) de un registro escrito a partir de `start`.
+     */
+    private long finishRecord(int start) {
+        int end = pending.position();
+        int length = end - start - HEADER;
+        crc.reset();
+        crc.update(pending.array(), start + HEADER, length);
+        pending.putInt(start, length);
+        pending.putInt(start + 4, (int) crc.getValue());
+        recordsInSegment++;
+        appendedSequence++;
+        notifyAll();
+        return appendedSequence;
+    }
+
+    private void ensureCapacity(int bytes) {
+        if (pending.remaining() < bytes) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + bytes));
+            pending.flip();
+            larger.put(pending);
+            pending = larger;
+        }
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("El diario está cerrado.");
+        }
+        if (failure != null) {
+            throw new UncheckedIOException("No se pudo escribir el diario", failure);
+        }
+    }
+
+    private static void writeFully(FileChannel target, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            target.write(buffer);
+        }
+    }
+
+    private static FileChannel openSegment(Path directory, long segment) throws IOException {
+        return FileChannel.open(segmentPath(directory, segment),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    static Path segmentPath(Path directory, long segment) {
+        return directory.resolve(String.format("%s%06d%s", PREFIX, segment, SUFFIX));
+    }
+
+    /**
+     * Recibe los registros leídos del diario durante la recuperación.
+     */
+    public interface Lector {
+        void onClient(int clientId, Cliente client);
+
+        void onEvent(byte type, int value, int clientId);
+
+        void onBlock(byte type, int[] seats, int clientId);
+
+        void onRelease(int holderId, int[] seats, int[] promotedClients, int[] sources);
+    }
+
+    /**
+     * Lee en orden todos los segmentos a partir de `fromSegment` y entrega sus registros al lector.
+     * Cada segmento se lee con un `MappedByteBuffer`, sin copiarlo al heap. La lectura de un segmento
+     * termina en el primer registro incompleto o con CRC inválido.
+     *
+     * @param directory Directorio de datos.
+     * @param fromSegment Primer segmento a leer.
+     * @param reader Lector que aplica los registros.
+     * @return Mayor número de segmento encontrado, o `fromSegment - 1` si no había ninguno.
+     */
+    public static long replay(Path directory, long fromSegment, Lector reader) throws IOException {
+        long last = fromSegment - 1;
+        CRC32 checksum = new CRC32();
+        for (long segment : listSegments(directory)) {
+            last = Math.max(last, segment);
+            if (segment < fromSegment) {
+                continue;
+            }
+            try (FileChannel file = FileChannel.open(segmentPath(directory, segment), StandardOpenOption.READ)) {
+                MappedByteBuffer buffer = file.map(FileChannel.MapMode.READ_ONLY, 0, file.size());
+                while (buffer.remaining() >= HEADER) {
+                    int start = buffer.position();
+                    int length = buffer.getInt();
+                    int expected = buffer.getInt();
+                    if (length <= 0 || length > buffer.remaining()) {
+                        break;
+                    }
+                    ByteBuffer body = buffer.slice(start + HEADER, length);
+                    checksum.reset();
+                    checksum.update(body.duplicate());
+                    if ((int) checksum.getValue() != expected) {
+                        break;
+                    }
+                    readRecord(body, reader);
+                    buffer.position(start + HEADER + length);
+                }
+            }
+        }
+        return last;
+    }
+
+    private static void readRecord(ByteBuffer body, Lector reader) {
+        byte type = body.get();
+        if (type == CLIENT) {
+            int clientId = body.getInt();
+            String name = readString(body);
+            String email = readString(body);
+            String phone = readString(body);
+            reader.onClient(clientId, new Cliente(name, email, phone));
+        } else if (type == RESERVE_BLOCK) {
+            int clientId = body.getInt();
+            reader.onBlock(type, readRuns(body), clientId);
+        } else if (type == RESERVE_BATCH) {
+            // Cada bloque del lote se entrega como un `RESERVE_BLOCK`.
+            int count = body.getInt();
+            for (int i = 0; i < count; i++) {
+                int clientId = body.getInt();
+                reader.onBlock(RESERVE_BLOCK, readRuns(body), clientId);
+            }
+        } else if (type == RELEASE_BATCH) {
+            int holderId = body.getInt();
+            int count = body.getInt();
+            int[] seats = new int[count];
+            int[] promotedClients = new int[count];
+            int[] sources = new int[count];
+            for (int i = 0; i < count; i++) {
+                seats[i] = body.getInt();
+                promotedClients[i] = body.getInt();
+                sources[i] = body.getInt();
+            }
+            reader.onRelease(holderId, seats, promotedClients, sources);
+        } else {
+            reader.onEvent(type, body.getInt(), body.getInt());
+        }
+    }
+
+    /**
+     * Lee los rangos escritos por `putRuns` y devuelve los asientos en orden.
+     */
+    private static int[] readRuns(ByteBuffer body) {
+        int runs = body.getInt();
+        int[] starts = new int[runs];
+        int[] lengths = new int[runs];
+        int total = 0;
+        for (int i = 0; i < runs; i++) {
+            starts[i] = body.getInt();
+            lengths[i] = body.getInt();
+            total += lengths[i];
+        }
+        int[] seats = new int[total];
+        int position = 0;
+        for (int i = 0; i < runs; i++) {
+            for (int j = 0; j < lengths[i]; j++) {
+                seats[position++] = starts[i] + j;
+            }
+        }
+        return seats;
+    }
+
+    private static String readString(ByteBuffer body) {
+        byte[] bytes = new byte[body.getInt()];
+        body.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return Números de los segmentos del directorio, en orden ascendente.
+     */
+    static List<Long> listSegments(Path directory) throws IOException {
+        List<Long> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                segments.add(Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length())));
+            }
+        }
+        Collections.sort(segments);
+        return segments;
+    }
+
+    /**
+     * Borra los segmentos anteriores a `segment`, que ya están cubiertos por una instantánea.
+     */
+    static void deleteBefore(Path directory, long segment) throws IOException {
+        for (long existing : listSegments(directory)) {
+            if (existing < segment) {
+                Files.deleteIfExists(segmentPath(directory, existing));
+            }
+        }
+    }
+}
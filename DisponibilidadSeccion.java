@@ -0,0 +1,51 @@
+/**
+ * Disponibilidad de una sección en un momento dado: precio, asientos libres, clientes en espera,
+ * asientos vendidos y lo recaudado por ellos.
+ */
+public class DisponibilidadSeccion {
+    private final String section;
+    private final int price;
+    private final int availableSeats;
+    private final int waitlistSize;
+    private final int soldSeats;
+    private final long revenue;
+
+    public DisponibilidadSeccion(String section, int price, int availableSeats, int waitlistSize,
+                                 int soldSeats, long revenue) {
+        this.section = section;
+        this.price = price;
+        this.availableSeats = availableSeats;
+        this.waitlistSize = waitlistSize;
+        this.soldSeats = soldSeats;
+        this.revenue = revenue;
+    }
+
+    public String getSection() {
+        return section;
+    }
+
+    public int getPrice() {
+        return price;
+    }
+
+    public int getAvailableSeats() {
+        return availableSeats;
+    }
+
+    public int getWaitlistSize() {
+        return waitlistSize;
+    }
+
+    public int getSoldSeats() {
+        return soldSeats;
+    }
+
+    public long getRevenue() {
+        return revenue;
+    }
+
+    @Override
+    public String toString() {
+        return section + " ($" + price + ") - Available Seats: " + availableSeats;
+    }
+}
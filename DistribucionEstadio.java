@@ -0,0 +1,294 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * La clase `DistribucionEstadio` describe las secciones, filas, asientos y precios de un estadio,
+ * en lugar de tenerlos fijos en el código.
+ *
+ * La distribución se carga desde un archivo de texto y se guarda en arreglos primitivos (una
+ * posición por sección y una por fila), sin crear un objeto por asiento. Los nombres de sección
+ * se resuelven una sola vez a un identificador numérico, que es el mismo que usa `InventarioAsientos`.
+ *
+ * Formato del archivo (las líneas vacías y las que empiezan con `#` se ignoran):
+ * <pre>
+ * tier premium 300
+ * section Field Level | premium
+ * rows 1-20 seats 1-25
+ * rows 21 seats 1-30
+ * section Grandstand Level | 45
+ * rows 1-40 seats 101-150
+ * </pre>
+ * - `tier NOMBRE PRECIO`: Define un nivel de precio que pueden compartir varias secciones.
+ * - `section NOMBRE | PRECIO`: Empieza una sección; el precio es un número o el nombre de un `tier`.
+ * - `rows DESDE[-HASTA] seats PRIMERO-ÚLTIMO`: Agrega a la última sección una o más filas con los mismos asientos.
+ *
+ * Las filas de cada sección deben ir en orden ascendente, igual que en `InventarioAsientos`.
+ */
+public class DistribucionEstadio {
+    /**
+     * Máximo de secciones. Los eventos de la lista de espera guardan la sección en 16 bits
+     * (`Estadio.waitlistValue` y `Estadio.fallbackValue`) y `HistorialTransacciones` la guarda como
+     * `short`, así que los identificadores deben caber en un `short` positivo.
+     */
+    public static final int MAX_SECTIONS = Short.MAX_VALUE;
+
+    private final Map<String, Integer> sectionIds = new HashMap<>(); // Nombre exacto -> id.
+    private final Map<String, Integer> sectionKeys = new HashMap<>(); // Nombre en minúsculas -> id.
+    private String[] sectionNames = new String[4];
+    private int[] sectionPrices = new int[4];
+    private int[] sectionFirstRow = new int[4]; // Primera fila (en los arreglos de filas) de cada sección.
+    private int sectionCount;
+
+    private int[] rowNumbers = new int[16];   // Número de fila visible para el cliente.
+    private int[] rowFirstSeats = new int[16]; // Número del primer asiento de la fila.
+    private int[] rowSeatCounts = new int[16]; // Cantidad de asientos de la fila.
+    private int rowCount;
+    private long totalSeats;
+
+    private DistribucionEstadio() {
+    }
+
+    /**
+     * Distribución original del estadio: tres secciones de una fila cada una.
+     *
+     * @param fieldSeats Asientos de "Field Level" ($300).
+     * @param mainSeats Asientos de "Main Level" ($120).
+     * @param grandstandSeats Asientos de "Grandstand Level" ($45).
+     */
+    public static DistribucionEstadio standard(int fieldSeats, int mainSeats, int grandstandSeats) {
+        DistribucionEstadio layout = new DistribucionEstadio();
+        layout.addSection("Field Level", 300);
+        layout.addRows(1, 1, 1, fieldSeats);
+        layout.addSection("Main Level", 120);
+        layout.addRows(2, 2, 1, mainSeats);
+        layout.addSection("Grandstand Level", 45);
+        layout.addRows(3, 3, 1, grandstandSeats);
+        return layout;
+    }
+
+    /**
+     * Carga una distribución desde un archivo de texto (UTF-8).
+     *
+     * @param file Archivo con el formato descrito en la clase.
+     * @return La distribución.
+     * @throws IllegalArgumentException Si el archivo tiene una línea no válida.
+     */
+    public static DistribucionEstadio load(Path file) throws IOException {
+        return parse(Files.readAllLines(file, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Interpreta las líneas de una distribución.
+     *
+     * @param lines Líneas con el formato descrito en la clase.
+     * @return La distribución.
+     * @throws IllegalArgumentException Si alguna línea no es válida, con su número de línea, o si hay
+     *         más de `MAX_SECTIONS` secciones.
+     */
+    public static DistribucionEstadio parse(List<String> lines) {
+        DistribucionEstadio layout = new DistribucionEstadio();
+        Map<String, Integer> tiers = new HashMap<>();
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i).trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            try {
+                int space = line.indexOf(' ');
+                String keyword = space < 0 ? line : line.substring(0, space);
+                String rest = space < 0 ? "" : line.substring(space + 1).trim();
+                switch (keyword) {
+                    case "tier": {
+                        int separator = rest.lastIndexOf(' ');
+                        if (separator < 0) {
+                            throw new IllegalArgumentException("se esperaba 'tier NOMBRE PRECIO'");
+                        }
+                        tiers.put(rest.substring(0, separator).trim().toLowerCase(Locale.ROOT),
+                                parsePrice(rest.substring(separator + 1)));
+                        break;
+                    }
+                    case "section": {
+                        int separator = rest.lastIndexOf('|');
+                        if (separator < 0) {
+                            throw new IllegalArgumentException("se esperaba 'section NOMBRE | PRECIO'");
+                        }
+                        String price = rest.substring(separator + 1).trim();
+                        Integer tierPrice = tiers.get(price.toLowerCase(Locale.ROOT));
+                        layout.addSection(rest.substring(0, separator).trim(),
+                                tierPrice != null ? tierPrice : parsePrice(price));
+                        break;
+                    }
+                    case "rows": {
+                        String[] parts = rest.split("\\s+");
+                        if (parts.length != 3 || !parts[1].equals("seats")) {
+                            throw new IllegalArgumentException("se esperaba 'rows DESDE[-HASTA] seats PRIMERO-ÚLTIMO'");
+                        }
+                        int[] rows = parseRange(parts[0]);
+                        int[] seats = parseRange(parts[2]);
+                        layout.addRows(rows[0], rows[1], seats[0], seats[1] - seats[0] + 1);
+                        break;
+                    }
+                    default:
+                        throw new IllegalArgumentException("palabra clave desconocida '" + keyword + "'");
+                }
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Línea " + (i + 1) + ": " + e.getMessage(), e);
+            }
+        }
+        if (layout.sectionCount == 0) {
+            throw new IllegalArgumentException("La distribución no tiene secciones.");
+        }
+        if (layout.sectionFirstRow[layout.sectionCount - 1] == layout.rowCount) {
+            throw new IllegalArgumentException("La sección " + layout.sectionNames[layout.sectionCount - 1] + " no tiene filas.");
+        }
+        return layout;
+    }
+
+    private void addSection(String name, int price) {
+        if (name.isEmpty()) {
+            throw new IllegalArgumentException("la sección no tiene nombre");
+        }
+        if (sectionKeys.containsKey(name.toLowerCase(Locale.ROOT))) {
+            throw new IllegalArgumentException("sección duplicada: " + name);
+        }
+        if (sectionCount > 0 && sectionFirstRow[sectionCount - 1] == rowCount) {
+            throw new IllegalArgumentException("la sección " + sectionNames[sectionCount - 1] + " no tiene filas");
+        }
+        if (sectionCount == MAX_SECTIONS) {
+            throw new IllegalArgumentException("demasiadas secciones (máximo " + MAX_SECTIONS + ")");
+        }
+        if (sectionCount == sectionNames.length) {
+            sectionNames = Arrays.copyOf(sectionNames, sectionCount * 2);
+            sectionPrices = Arrays.copyOf(sectionPrices, sectionCount * 2);
+            sectionFirstRow = Arrays.copyOf(sectionFirstRow, sectionCount * 2);
+        }
+        int id = sectionCount++;
+        sectionIds.put(name, id);
+        sectionKeys.put(name.toLowerCase(Locale.ROOT), id);
+        sectionNames[id] = name;
+        sectionPrices[id] = price;
+        sectionFirstRow[id] = rowCount;
+    }
+
+    private void addRows(int fromRow, int toRow, int firstSeat, int seats) {
+        if (sectionCount == 0) {
+            throw new IllegalArgumentException("las filas deben ir después de una sección");
+        }
+        if (toRow < fromRow || seats <= 0) {
+            throw new IllegalArgumentException("rango de filas o asientos vacío");
+        }
+        if (rowCount > sectionFirstRow[sectionCount - 1] && rowNumbers[rowCount - 1] >= fromRow) {
+            throw new IllegalArgumentException("las filas deben ir en orden ascendente");
+        }
+        for (int row = fromRow; row <= toRow; row++) {
+            if (rowCount == rowNumbers.length) {
+                rowNumbers = Arrays.copyOf(rowNumbers, rowCount * 2);
+                rowFirstSeats = Arrays.copyOf(rowFirstSeats, rowCount * 2);
+                rowSeatCounts = Arrays.copyOf(rowSeatCounts, rowCount * 2);
+            }
+            rowNumbers[rowCount] = row;
+            rowFirstSeats[rowCount] = firstSeat;
+            rowSeatCounts[rowCount] = seats;
+            rowCount++;
+            totalSeats += seats;
+        }
+        if (totalSeats > Integer.MAX_VALUE / 2) {
+            throw new IllegalArgumentException("demasiados asientos");
+        }
+    }
+
+    private static int parsePrice(String value) {
+        int price;
+        try {
+            price = Integer.parseInt(value.trim().replace("$", ""));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("precio o tier no válido: " + value.trim());
+        }
+        if (price < 0) {
+            throw new IllegalArgumentException("precio negativo: " + value);
+        }
+        return price;
+    }
+
+    /**
+     * @return `{desde, hasta}` de un rango `A-B`, o `{A, A}` si es un solo número.
+     */
+    private static int[] parseRange(String value) {
+        int dash = value.indexOf('-');
+        if (dash < 0) {
+            int single = Integer.parseInt(value);
+            return new int[] {single, single};
+        }
+        return new int[] {Integer.parseInt(value.substring(0, dash)), Integer.parseInt(value.substring(dash + 1))};
+    }
+
+    /**
+     * Registra las secciones y filas en un inventario vacío. Los identificadores de sección del
+     * inventario coinciden con los de esta distribución.
+     *
+     * @param inventory Inventario sin secciones.
+     */
+    public void applyTo(InventarioAsientos inventory) {
+        for (int section = 0; section < sectionCount; section++) {
+            int id = inventory.addSection(sectionNames[section]);
+            int lastRow = section + 1 < sectionCount ? sectionFirstRow[section + 1] : rowCount;
+            for (int row = sectionFirstRow[section]; row < lastRow; row++) {
+                inventory.addRow(id, rowNumbers[row], rowFirstSeats[row], rowSeatCounts[row]);
+            }
+        }
+    }
+
+    /**
+     * Resuelve el nombre de una sección sin importar mayúsculas. El nombre exacto se busca primero
+     * para no crear una cadena nueva en el caso común.
+     *
+     * @param name Nombre de la sección.
+     * @return Identificador de la sección, o -1 si no existe.
+     */
+    public int sectionId(String name) {
+        Integer id = sectionIds.get(name);
+        if (id == null) {
+            id = sectionKeys.get(name.toLowerCase(Locale.ROOT));
+        }
+        return id == null ? -1 : id;
+    }
+
+    public String sectionName(int section) {
+        return sectionNames[section];
+    }
+
+    public int price(int section) {
+        return sectionPrices[section];
+    }
+
+    public int sectionCount() {
+        return sectionCount;
+    }
+
+    /**
+     * @return Cantidad de asientos de la sección (la suma de sus filas).
+     */
+    public int sectionSeats(int section) {
+        int lastRow = section + 1 < sectionCount ? sectionFirstRow[section + 1] : rowCount;
+        int seats = 0;
+        for (int row = sectionFirstRow[section]; row < lastRow; row++) {
+            seats += rowSeatCounts[row];
+        }
+        return seats;
+    }
+
+    public int rowCount() {
+        return rowCount;
+    }
+
+    public long totalSeats() {
+        return totalSeats;
+    }
+}
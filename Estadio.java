@@ -1,337 +1,1972 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
-import java.util.Queue;
-import java.util.Scanner;
-import java.util.Set;
-import java.util.Stack;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
 
 /**
  * La clase `Estadio` gestiona las operaciones relacionadas con la reservación de asientos,
  * listas de espera, cancelaciones y la funcionalidad de deshacer.
  * 
  * Estructuras de datos utilizadas:
- * 1. **Set** (`HashSet`): Para almacenar los asientos disponibles. Un `HashSet` asegura que no haya duplicados y ofrece búsquedas rápidas.
- * 2. **LinkedList**: Para registrar el historial de transacciones (reservas y cancelaciones) en orden de ocurrencia.
- * 3. **HashMap**: Para parear clientes con los asientos que han reservado, permitiendo búsquedas rápidas.
- * 4. **Stack**: Para implementar la funcionalidad de deshacer, ya que sigue una estructura LIFO (Last In, First Out).
- * 5. **Queue** (`LinkedList` como implementación): Para manejar las listas de espera, asegurando un acceso FIFO (First In, First Out).
+ * 1. **InventarioAsientos**: Mapa de bits por sección para los asientos disponibles. Buscar, contar y liberar asientos cuesta O(1) u O(palabras) en lugar de recorrer todos los asientos.
+ * 2. **HistorialTransacciones**: Buffer circular por bloques con los eventos (tipo, asiento, cliente y hora) en orden de
+ *    ocurrencia, con retención acotada. El texto se genera solo al consultar el historial.
+ * 3. **IndiceReservas**: Para parear clientes con los asientos que han reservado. Busca por email normalizado en O(1)
+ *    y permite que un cliente tenga varios asientos.
+ * 4. **HistorialDeshacer**: Pilas acotadas (LIFO) por cliente de comandos para deshacer y rehacer reservas,
+ *    cancelaciones y entradas a la lista de espera. Cada cliente deshace solo sus propias acciones.
+ * 5. **ListaEspera**: Lista de espera indexada por sección, FIFO dentro de cada nivel de prioridad (`PrioridadEspera`).
+ *    Agregar, atender y quitar cuestan O(1), la posición de un cliente O(log n), y un cliente no puede anotarse
+ *    dos veces. Deshacer una promoción devuelve al cliente al frente de su nivel. Además, cada sección tiene
+ *    una lista de clientes de otras secciones que la aceptan como alternativa (`fallbackWaitlists`).
+ * 6. **ReentrantLock[]**: Un candado por sección (lock striping). Reservas en secciones distintas no compiten entre sí.
+ * 7. **RuedaTemporizadores[]**: Por sección, vencimiento de las retenciones de asientos (estado `HELD`) mientras
+ *    el comprador paga. Armar y cancelar una retención cuesta O(1); un solo hilo avanza las ruedas.
+ * 8. **DiarioReservas** e **InstantaneaEstadio** (opcionales): Diario binario de eventos e instantáneas periódicas
+ *    para que las reservas y listas de espera sobrevivan a un reinicio. Ver `open`.
+ * 9. **AgregadosSecciones**: Libres, vendidos y clientes en espera de cada sección, publicados al soltar el
+ *    candado de la sección tras cada cambio. Las consultas de disponibilidad los leen sin candados.
+ * 10. **MetricasEstadio**: Latencias, contadores y medidas por sección (incluida la espera por los candados),
+ *    legibles por JMX o como texto. Registrar una medida no toma candados ni crea objetos. Ver `getMetrics`.
+ * 11. **ArchivoAsientos** (opcional): Estado y dueño de cada asiento en un archivo mapeado en memoria, que
+ *    otro proceso del mismo equipo puede leer sin abrir el estadio. Ver `open`.
+ *
+ * Concurrencia: el inventario de una sección y su lista de espera solo se modifican con el candado
+ * de esa sección. Liberar un asiento toma además los candados de las secciones donde esperan los
+ * clientes que aceptan la suya como alternativa (`lockForRelease`), y la liberación y la promoción
+ * ocurren bajo esos mismos candados, por lo que es atómico y dos clientes nunca pueden tener el mismo
+ * `Asiento`. Las operaciones que toman varios candados (liberaciones, listas alternativas,
+ * instantáneas) los toman en orden de índice.
+ *
+ * Un estadio confinado a un hilo (`Estadio(DistribucionEstadio, ScheduledExecutorService)`, como los
+ * eventos de `GestorEventos`) no crea hilos propios: las instantáneas y los vencimientos de
+ * retenciones se programan en ese hilo, el diario se escribe en él y los candados de sección no
+ * hacen nada, porque nadie más toca el estadio.
  */
 public class Estadio {
-    private Set<Asiento> availableSeats; // Set para almacenar los asientos disponibles.
-    private LinkedList<String> reservationHistory; // LinkedList para almacenar el historial de transacciones.
-    private HashMap<Cliente, Asiento> reservations; // HashMap para parear clientes con asientos reservados.
-    private Stack<String> undoStack; // Stack para implementar la funcionalidad de deshacer.
-    private Map<String, Queue<Cliente>> waitlistBySection; // Map para manejar listas de espera por sección.
+    private final DistribucionEstadio layout; // Secciones, filas y precios del estadio.
+    private final InventarioAsientos seatInventory; // Mapa de bits con los asientos disponibles.
+    private final HistorialTransacciones reservationHistory; // Eventos primitivos del historial de transacciones.
+    private final IndiceReservas reservations; // Índice cliente <-> asientos reservados.
+    private final HistorialDeshacer undoLog; // Pilas acotadas por cliente para deshacer y rehacer.
+    private final Map<String, ListaEspera> waitlistBySection; // Map para manejar listas de espera por sección.
+    private final ReentrantLock[] sectionLocks; // Un candado por sección del inventario.
+    // Por sección, clientes que esperan en otra sección y también aceptarían esta. Las entradas se validan
+    // al atenderlas: si el cliente ya no espera en una sección que acepte esta como alternativa, se descartan.
+    private final ListaEspera[] fallbackWaitlists;
+    // Por sección alternativa, las secciones donde pueden esperar los clientes de su lista alternativa:
+    // las primeras `fallbackPrimaryCounts[alternativa]` posiciones, sin repetir. Se agrega con el candado
+    // de ambas secciones y se vacía cuando la lista alternativa queda vacía.
+    private final int[][] fallbackPrimaries;
+    private final int[] fallbackPrimaryCounts;
+    private final int[][] singleSections; // {i} por sección: el conjunto de candados más común, sin crearlo en cada operación.
+    // Por sección (índice local del asiento), vencimientos y dueños de las retenciones; null hasta la primera.
+    private final RuedaTemporizadores[] holdTimers;
+    private final int[][] holdOwners;
+    private final RegistroClientes clients; // Identificadores numéricos de clientes para el diario y los comandos.
+    private final MetricasEstadio metrics; // Latencias y contadores de las operaciones.
+    private final AgregadosSecciones aggregates; // Disponibilidad por sección, legible sin candados.
+
+    private static final int[] NO_SECTIONS = new int[0]; // Conjunto vacío para `withSection`.
+    private static final int UNDO_DEPTH = 1 << 16; // Acciones que se recuerdan para deshacer, entre todos los clientes.
+    // Cantidad de eventos que conserva el historial; se puede cambiar con -Destadio.historial=N.
+    private static final int HISTORY_RETENTION = Integer.getInteger("estadio.historial", 1 << 20);
+    private static final long SNAPSHOT_INTERVAL_SECONDS = 60; // Frecuencia de las instantáneas periódicas.
+    private Path dataDirectory; // Directorio del diario y las instantáneas; null si el estadio es solo en memoria.
+    private DiarioReservas journal; // Diario de eventos; null si el estadio es solo en memoria.
+    private ArchivoAsientos seatFile; // Estado de los asientos mapeado en disco; null si el estadio es solo en memoria.
+    // Hilo al que está confinado el estadio, que también toma las instantáneas y vence las retenciones;
+    // null si lo usan varios hilos y esas tareas tienen hilos propios.
+    private final ScheduledExecutorService owner;
+    private ScheduledExecutorService snapshotScheduler; // Hilo propio de las instantáneas; null si está confinado.
+    private ScheduledFuture<?> snapshotTask; // Instantáneas periódicas.
+    private static final long HOLD_TICK_MILLIS = 100; // Resolución de los vencimientos de las retenciones.
+    private ScheduledExecutorService holdExpiry; // Hilo propio de los vencimientos; null si está confinado.
+    private volatile ScheduledFuture<?> holdExpiryTask; // Vencimientos periódicos; se programa con la primera retención.
+    private volatile LongSupplier holdClock; // Reloj de las retenciones fijado con `useHoldClock`; null para la hora del sistema.
+
+    /**
+     * Constructor que inicializa todas las estructuras de datos y los asientos del estadio
+     * con la capacidad estándar (500, 1000 y 2000 asientos).
+     */
+    public Estadio() {
+        this(500, 1000, 2000);
+    }
+
+    /**
+     * Constructor que permite definir la cantidad de asientos de cada sección.
+     * Útil para pruebas de rendimiento con estadios más grandes.
+     *
+     * @param fieldSeats Asientos de "Field Level".
+     * @param mainSeats Asientos de "Main Level".
+     * @param grandstandSeats Asientos de "Grandstand Level".
+     */
+    public Estadio(int fieldSeats, int mainSeats, int grandstandSeats) {
+        this(DistribucionEstadio.standard(fieldSeats, mainSeats, grandstandSeats));
+    }
+
+    /**
+     * Constructor que crea el estadio a partir de una distribución (ver `DistribucionEstadio.load`).
+     *
+     * @param layout Secciones, filas, asientos y precios del estadio.
+     * @throws IllegalArgumentException Si la distribución tiene más de `DistribucionEstadio.MAX_SECTIONS` secciones.
+     */
+    public Estadio(DistribucionEstadio layout) {
+        this(layout, null);
+    }
+
+    /**
+     * Constructor de un estadio confinado a un hilo: todas sus operaciones, y `close`, deben
+     * ejecutarse en `owner` (un ejecutor de un solo hilo). No crea hilos ni toma candados.
+     *
+     * @param layout Secciones, filas, asientos y precios del estadio.
+     * @param owner Hilo del estadio, o null para un estadio que usan varios hilos.
+     * @throws IllegalArgumentException Si la distribución tiene más de `DistribucionEstadio.MAX_SECTIONS` secciones.
+     */
+    public Estadio(DistribucionEstadio layout, ScheduledExecutorService owner) {
+        if (layout.sectionCount() > DistribucionEstadio.MAX_SECTIONS) {
+            throw new IllegalArgumentException("La distribución tiene " + layout.sectionCount()
+                    + " secciones; el máximo es " + DistribucionEstadio.MAX_SECTIONS + ".");
+        }
+        this.layout = layout;
+        this.owner = owner;
+        seatInventory = new InventarioAsientos();
+        reservationHistory = new HistorialTransacciones(HISTORY_RETENTION);
+        undoLog = new HistorialDeshacer(UNDO_DEPTH);
+        waitlistBySection = new HashMap<>();
+        clients = new RegistroClientes();
+
+        // Llenar el estadio con asientos disponibles.
+        initializeSeats(layout);
+
+        // Inicializar listas de espera para cada sección.
+        int tiers = PrioridadEspera.values().length;
+        for (int section = 0; section < layout.sectionCount(); section++) {
+            waitlistBySection.put(layout.sectionName(section), new ListaEspera(tiers));
+        }
+        reservations = new IndiceReservas(seatInventory.capacity(), clients);
+
+        String[] sectionNames = new String[seatInventory.sectionCount()];
+        int[] prices = new int[sectionNames.length];
+        for (int section = 0; section < sectionNames.length; section++) {
+            sectionNames[section] = seatInventory.sectionName(section);
+            prices[section] = layout.price(section);
+        }
+        aggregates = new AgregadosSecciones(sectionNames, prices);
+        metrics = new MetricasEstadio(sectionNames, aggregates::freeSeats, aggregates::waitlistDepth);
+
+        // Crear un candado por sección una vez que el inventario está completo; cada uno mide su contención.
+        sectionLocks = new ReentrantLock[seatInventory.sectionCount()];
+        fallbackWaitlists = new ListaEspera[sectionLocks.length];
+        fallbackPrimaries = new int[sectionLocks.length][];
+        fallbackPrimaryCounts = new int[sectionLocks.length];
+        singleSections = new int[sectionLocks.length][];
+        holdTimers = new RuedaTemporizadores[sectionLocks.length];
+        holdOwners = new int[sectionLocks.length][];
+        for (int i = 0; i < sectionLocks.length; i++) {
+            sectionLocks[i] = owner == null ? metrics.newSectionLock(i) : new SinCandado();
+            fallbackWaitlists[i] = new ListaEspera(tiers);
+            fallbackPrimaries[i] = new int[2];
+            singleSections[i] = new int[] {i};
+            publish(i);
+        }
+    }
+
+    /**
+     * Crea un estadio persistente. Carga la instantánea más reciente del directorio, reproduce solo
+     * los segmentos del diario posteriores a ella y abre un segmento nuevo para los próximos eventos.
+     * Cada `SNAPSHOT_INTERVAL_SECONDS` se toma una instantánea si hubo eventos nuevos.
+     *
+     * El estado de los asientos también queda en `ArchivoAsientos.FILE_NAME`, mapeado en memoria,
+     * para que otros procesos lo lean. Al abrir no se lee: se reescribe completo con lo recuperado
+     * del diario (que es la fuente de verdad) y después recibe cada cambio.
+     *
+     * @param fieldSeats Asientos de "Field Level".
+     * @param mainSeats Asientos de "Main Level".
+     * @param grandstandSeats Asientos de "Grandstand Level".
+     * @param dataDirectory Directorio donde se guardan el diario y las instantáneas.
+     * @return Estadio con el estado recuperado.
+     */
+    public static Estadio open(int fieldSeats, int mainSeats, int grandstandSeats, Path dataDirectory) throws IOException {
+        return open(DistribucionEstadio.standard(fieldSeats, mainSeats, grandstandSeats), dataDirectory);
+    }
+
+    /**
+     * Crea un estadio persistente con una distribución dada. Ver `open(int, int, int, Path)`.
+     *
+     * @param layout Secciones, filas, asientos y precios del estadio.
+     * @param dataDirectory Directorio donde se guardan el diario y las instantáneas.
+     * @return Estadio con el estado recuperado.
+     */
+    public static Estadio open(DistribucionEstadio layout, Path dataDirectory) throws IOException {
+        return open(layout, dataDirectory, null);
+    }
+
+    /**
+     * Crea un estadio persistente confinado a un hilo. Ver `Estadio(DistribucionEstadio, ScheduledExecutorService)`.
+     *
+     * @param owner Hilo del estadio, o null para un estadio que usan varios hilos.
+     */
+    public static Estadio open(DistribucionEstadio layout, Path dataDirectory, ScheduledExecutorService owner) throws IOException {
+        Estadio estadio = new Estadio(layout, owner);
+        estadio.recover(dataDirectory);
+        return estadio;
+    }
+
+    /**
+     * Reconstruye el estado desde el directorio de datos y empieza a escribir el diario.
+     */
+    private void recover(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        long fromSegment = 1;
+        InstantaneaEstadio snapshot = InstantaneaEstadio.readLatest(directory);
+        if (snapshot != null) {
+            applySnapshot(snapshot);
+            fromSegment = snapshot.getSegment();
+        }
+
+        long lastSegment = DiarioReservas.replay(directory, fromSegment, new DiarioReservas.Lector() {
+            @Override
+            public void onClient(int clientId, Cliente client) {
+                clients.restore(clientId, client);
+            }
+
+            @Override
+            public void onEvent(byte type, int value, int clientId) {
+                applyEvent(type, value, clients.get(clientId));
+            }
+
+            @Override
+            public void onBlock(byte type, int[] seats, int clientId) {
+                for (int seat : seats) {
+                    seatInventory.claim(seat);
+                }
+                reservations.addAll(clients.get(clientId), seats);
+            }
+
+            @Override
+            public void onRelease(int holderId, int[] seats, int[] promotedClients, int[] sources) {
+                Cliente holder = clients.get(holderId);
+                for (int i = 0; i < seats.length; i++) {
+                    applyEvent(DiarioReservas.CANCEL, seats[i], holder);
+                    if (promotedClients[i] >= 0) {
+                        Cliente promoted = clients.get(promotedClients[i]);
+                        waitlistOf(sources[i]).remove(promoted);
+                        fallbackWaitlists[seatInventory.sectionOf(seats[i])].remove(promoted);
+                        seatInventory.claim(seats[i]);
+                        reservations.add(promoted, seats[i]);
+                    }
+                }
+            }
+        });
+
+        for (int section = 0; section < sectionLocks.length; section++) {
+            publish(section); // Nadie más ve el estadio todavía: no hace falta el candado.
+        }
+        // Las retenciones no sobreviven al reinicio: el archivo queda solo con los asientos reservados.
+        seatFile = ArchivoAsientos.open(directory.resolve(ArchivoAsientos.FILE_NAME), seatInventory);
+        reservations.mirrorTo(seatFile);
+
+        dataDirectory = directory;
+        journal = new DiarioReservas(directory, Math.max(lastSegment + 1, fromSegment), clients, owner == null);
+        ScheduledExecutorService scheduler = owner;
+        if (scheduler == null) {
+            scheduler = snapshotScheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread thread = new Thread(task, "instantaneas-estadio");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        snapshotTask = scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                if (journal.recordsInSegment() > 0) {
+                    snapshot();
+                }
+            } catch (IOException | RuntimeException e) {
+                System.err.println("No se pudo tomar la instantánea: " + e.getMessage());
+            }
+        }, SNAPSHOT_INTERVAL_SECONDS, SNAPSHOT_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Carga en memoria el contenido de una instantánea.
+     */
+    private void applySnapshot(InstantaneaEstadio snapshot) {
+        if (snapshot.getCapacity() != seatInventory.capacity()) {
+            throw new IllegalStateException("La instantánea corresponde a un estadio con otra distribución de asientos.");
+        }
+        Cliente[] table = snapshot.getClients();
+        for (int id = 0; id < table.length; id++) {
+            if (table[id] != null) {
+                clients.restore(id, table[id]);
+            }
+        }
+        int[] seats = snapshot.getReservedSeats();
+        int[] owners = snapshot.getReservedClients();
+        for (int i = 0; i < seats.length; i++) {
+            applyEvent(DiarioReservas.RESERVE, seats[i], clients.get(owners[i]));
+        }
+        int[][] waitlists = snapshot.getWaitlists();
+        byte[][] tiers = snapshot.getWaitlistTiers();
+        for (int section = 0; section < waitlists.length; section++) {
+            for (int i = 0; i < waitlists[section].length; i++) {
+                applyEvent(DiarioReservas.WAITLIST_JOIN, waitlistValue(section, tiers[section][i]),
+                        clients.get(waitlists[section][i]));
+            }
+        }
+        int[][] fallbackClients = snapshot.getFallbackClients();
+        int[][] fallbackSources = snapshot.getFallbackSources();
+        for (int section = 0; section < fallbackClients.length; section++) {
+            for (int i = 0; i < fallbackClients[section].length; i++) {
+                addFallback(clients.get(fallbackClients[section][i]), fallbackSources[section][i], section);
+            }
+        }
+    }
+
+    /**
+     * Aplica un evento del diario sin volver a registrarlo. Solo se usa durante la recuperación,
+     * antes de que el estadio sea visible para otros hilos.
+     */
+    private void applyEvent(byte type, int value, Cliente client) {
+        switch (type) {
+            case DiarioReservas.RESERVE:
+                seatInventory.claim(value);
+                reservations.add(client, value);
+                break;
+            case DiarioReservas.CANCEL:
+                reservations.remove(client, value);
+                seatInventory.release(value);
+                break;
+            case DiarioReservas.WAITLIST_JOIN:
+                waitlistOf(waitlistSection(value)).add(client, waitlistTier(value));
+                break;
+            case DiarioReservas.WAITLIST_FRONT:
+                waitlistOf(waitlistSection(value)).addFirst(client, waitlistTier(value));
+                break;
+            case DiarioReservas.WAITLIST_LEAVE:
+                waitlistOf(waitlistSection(value)).remove(client);
+                break;
+            case DiarioReservas.WAITLIST_FALLBACK:
+                addFallback(client, fallbackPrimary(value), waitlistSection(value));
+                break;
+            case DiarioReservas.PROMOTE:
+                waitlistBySection.get(seatInventory.sectionName(seatInventory.sectionOf(value))).remove(client);
+                seatInventory.claim(value);
+                reservations.add(client, value);
+                break;
+            default:
+                throw new IllegalStateException("Tipo de evento desconocido en el diario: " + type);
+        }
+    }
+
+    /**
+     * Toma una instantánea del estado actual y borra los segmentos del diario que ya cubre.
+     * Bloquea todas las secciones solo mientras copia el estado en memoria; la escritura a disco
+     * ocurre después de liberarlas.
+     */
+    public synchronized void snapshot() throws IOException {
+        if (journal == null) {
+            throw new IllegalStateException("El estadio no tiene directorio de datos.");
+        }
+        InstantaneaEstadio snapshot;
+        lockAllSections();
+        try {
+            snapshot = captureSnapshot(journal.roll());
+        } finally {
+            unlockAllSections();
+        }
+        snapshot.write(dataDirectory);
+        seatFile.force();
+        DiarioReservas.deleteBefore(dataDirectory, snapshot.getSegment());
+        InstantaneaEstadio.deleteBefore(dataDirectory, snapshot.getSegment());
+    }
+
+    /**
+     * Copia el estado actual. Debe llamarse con todos los candados de sección tomados.
+     */
+    private InstantaneaEstadio captureSnapshot(long segment) {
+        int[] seats = new int[reservations.size()];
+        int[] owners = new int[seats.length];
+        int count = 0;
+        for (int seat = 0; seat < seatInventory.capacity(); seat++) {
+            Cliente holder = reservations.holderOf(seat);
+            if (holder != null) {
+                seats[count] = seat;
+                owners[count] = clients.register(holder);
+                count++;
+            }
+        }
+
+        int[][] waitlists = new int[seatInventory.sectionCount()][];
+        byte[][] tiers = new byte[waitlists.length][];
+        for (int section = 0; section < waitlists.length; section++) {
+            ListaEspera waitlist = waitlistOf(section);
+            waitlists[section] = new int[waitlist.size()];
+            tiers[section] = new byte[waitlist.size()];
+            int position = 0;
+            for (Cliente client : waitlist) {
+                waitlists[section][position] = clients.register(client);
+                tiers[section][position++] = (byte) waitlist.tierOf(client);
+            }
+        }
+
+        // Solo las entradas alternativas que siguen siendo válidas, con la sección donde espera el cliente.
+        int[][] fallbackClients = new int[waitlists.length][];
+        int[][] fallbackSources = new int[waitlists.length][];
+        for (int section = 0; section < waitlists.length; section++) {
+            fallbackClients[section] = new int[fallbackWaitlists[section].size()];
+            fallbackSources[section] = new int[fallbackClients[section].length];
+            int position = 0;
+            for (Cliente client : fallbackWaitlists[section]) {
+                int primary = fallbackSourceOf(client, section);
+                if (primary >= 0) {
+                    fallbackClients[section][position] = clients.register(client);
+                    fallbackSources[section][position++] = primary;
+                }
+            }
+            fallbackClients[section] = Arrays.copyOf(fallbackClients[section], position);
+            fallbackSources[section] = Arrays.copyOf(fallbackSources[section], position);
+        }
+
+        Cliente[] table = new Cliente[clients.size()];
+        for (int id = 0; id < table.length; id++) {
+            table[id] = clients.get(id);
+        }
+        return new InstantaneaEstadio(segment, seatInventory.capacity(), table,
+                Arrays.copyOf(seats, count), Arrays.copyOf(owners, count), waitlists, tiers,
+                fallbackClients, fallbackSources);
+    }
+
+    /**
+     * Métricas en vivo del estadio: latencias de `reserveSeat`, `cancelReservation`, `manageWaitlist`
+     * y las consultas de disponibilidad, y medidas por sección. Para leerlas por JMX, registrarlas
+     * con `MetricasEstadio.register`.
+     */
+    public MetricasEstadio getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Detiene el vencimiento automático de retenciones, toma una instantánea final y cierra el diario.
+     * Si el estadio es solo en memoria, solo detiene las retenciones. Un estadio confinado se cierra
+     * en su hilo (o después de detenerlo), así que sus tareas periódicas no están corriendo.
+     */
+    public void close() throws IOException {
+        ScheduledFuture<?> expiryTask = holdExpiryTask;
+        if (expiryTask != null) {
+            expiryTask.cancel(false);
+        }
+        if (holdExpiry != null) {
+            holdExpiry.shutdown();
+        }
+        if (journal == null) {
+            return;
+        }
+        snapshotTask.cancel(false);
+        if (snapshotScheduler != null) {
+            // shutdown (no shutdownNow): interrumpir una escritura cerraría el FileChannel a la mitad.
+            snapshotScheduler.shutdown();
+            try {
+                snapshotScheduler.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        snapshot();
+        journal.close();
+        seatFile.close();
+    }
+
+    private void lockAllSections() {
+        for (ReentrantLock lock : sectionLocks) {
+            lock.lock();
+        }
+    }
+
+    private void unlockAllSections() {
+        for (int i = sectionLocks.length - 1; i >= 0; i--) {
+            publish(i);
+            sectionLocks[i].unlock();
+        }
+    }
+
+    /**
+     * Publica en `aggregates` los libres, vendidos y clientes en espera actuales de una sección.
+     * Se llama con el candado de la sección tomado, justo antes de soltarlo, en cada operación
+     * que la modifica. Los asientos retenidos no cuentan como libres ni como vendidos.
+     */
+    private void publish(int section) {
+        int freeSeats = seatInventory.freeSeats(section);
+        int held = holdTimers[section] == null ? 0 : holdTimers[section].size();
+        aggregates.publish(section, freeSeats, seatInventory.sectionCapacity(section) - freeSeats - held,
+                waitlistOf(section).size());
+    }
+
+    /**
+     * Toma los candados de las secciones indicadas, en orden de índice como `lockAllSections`.
+     *
+     * @param sections Secciones ordenadas de menor a mayor y sin repetir (ver `withSection`).
+     */
+    private void lockSections(int[] sections) {
+        for (int section : sections) {
+            sectionLocks[section].lock();
+        }
+    }
+
+    private void unlockSections(int[] sections) {
+        for (int i = sections.length - 1; i >= 0; i--) {
+            publish(sections[i]);
+            sectionLocks[sections[i]].unlock();
+        }
+    }
+
+    /**
+     * Agrega una sección a un conjunto de secciones ordenado y sin repetir. Las operaciones tocan
+     * pocas secciones, así que un arreglo ordenado cuesta menos que marcar todas las del estadio.
+     *
+     * @return El mismo arreglo si ya tenía la sección (nunca se modifica), o uno nuevo con ella.
+     */
+    static int[] withSection(int[] sections, int section) {
+        int position = Arrays.binarySearch(sections, section);
+        if (position >= 0) {
+            return sections;
+        }
+        position = -position - 1;
+        int[] wider = new int[sections.length + 1];
+        System.arraycopy(sections, 0, wider, 0, position);
+        wider[position] = section;
+        System.arraycopy(sections, position, wider, position + 1, sections.length - position);
+        return wider;
+    }
+
+    /**
+     * Toma los candados necesarios para liberar asientos de las secciones marcadas y ofrecerlos con
+     * `nextWaiting`: los de esas secciones y, si tienen clientes en su lista alternativa, los de las
+     * secciones donde esos clientes esperan (`fallbackPrimaries`), todos en orden de índice. Las
+     * secciones de origen solo se pueden leer con el candado de la sección tomado; si falta alguna,
+     * se sueltan todos y se vuelve a intentar con el conjunto ampliado.
+     *
+     * @param sections Secciones de los asientos que se van a liberar, ordenadas y sin repetir.
+     * @return Secciones bloqueadas, para soltarlas con `unlockSections`.
+     */
+    private int[] lockForRelease(int[] sections) {
+        int[] locked = sections;
+        while (true) {
+            lockSections(locked);
+            int[] wider = locked;
+            for (int section : sections) {
+                if (fallbackWaitlists[section].isEmpty()) {
+                    continue;
+                }
+                for (int i = 0; i < fallbackPrimaryCounts[section]; i++) {
+                    wider = withSection(wider, fallbackPrimaries[section][i]);
+                }
+            }
+            if (wider == locked) {
+                return locked;
+            }
+            unlockSections(locked);
+            locked = wider;
+        }
+    }
+
+    /**
+     * `lockForRelease` para una sección y, si no es -1, otra más. Sin listas alternativas
+     * pendientes no crea ningún arreglo.
+     */
+    private int[] lockForRelease(int section, int other) {
+        return lockForRelease(other < 0 ? singleSections[section] : withSection(singleSections[section], other));
+    }
+
+    /**
+     * Registra un evento en el historial de transacciones y en el diario. Debe llamarse con el
+     * candado de la sección tomado, para que el orden del diario coincida con el orden en que se
+     * aplicaron los cambios.
+     *
+     * @param type Tipo de evento de `DiarioReservas`.
+     * @param value Asiento, o sección y prioridad (`waitlistValue`) para los eventos de la lista de espera.
+     * @param clientId Identificador del cliente en `RegistroClientes`.
+     * @return Número de secuencia del evento en el diario, o 0 si el estadio es solo en memoria.
+     */
+    private long recordEvent(byte type, int value, int clientId) {
+        if (isWaitlistEvent(type)) {
+            reservationHistory.record(type, waitlistSection(value), -1, clientId);
+        } else {
+            reservationHistory.record(type, seatInventory.sectionOf(value), value, clientId);
+        }
+        return journal == null ? 0 : journal.append(type, value, clientId);
+    }
+
+    /**
+     * Registra una reserva de varios asientos como un solo evento en el historial y en el diario.
+     * Debe llamarse con el candado de la sección tomado.
+     *
+     * @return Número de secuencia del evento en el diario, o 0 si el estadio es solo en memoria.
+     */
+    private long recordBlock(int section, int[] seats, int clientId) {
+        reservationHistory.record(DiarioReservas.RESERVE_BLOCK, section, seats[0], clientId, seats.length);
+        return journal == null ? 0 : journal.appendBlock(DiarioReservas.RESERVE_BLOCK, seats, clientId);
+    }
+
+    /**
+     * Los eventos de la lista de espera guardan la sección en los 16 bits bajos y el nivel de
+     * prioridad en los altos. Los eventos anteriores a los niveles se leen como `GENERAL`. La
+     * sección cabe porque `DistribucionEstadio.MAX_SECTIONS` limita los identificadores.
+     */
+    static int waitlistValue(int section, int tier) {
+        return (tier << 16) | section;
+    }
+
+    static int waitlistSection(int value) {
+        return value & 0xFFFF;
+    }
+
+    static int waitlistTier(int value) {
+        return value >>> 16;
+    }
+
+    /**
+     * Los eventos `WAITLIST_FALLBACK` guardan la sección alternativa en los 16 bits bajos (como
+     * `waitlistSection`) y la sección donde espera el cliente en los altos.
+     */
+    static int fallbackValue(int primary, int fallback) {
+        return (primary << 16) | fallback;
+    }
+
+    static int fallbackPrimary(int value) {
+        return value >>> 16;
+    }
+
+    private ListaEspera waitlistOf(int section) {
+        return waitlistBySection.get(seatInventory.sectionName(section));
+    }
+
+    private static boolean isWaitlistEvent(byte type) {
+        return type == DiarioReservas.WAITLIST_JOIN || type == DiarioReservas.WAITLIST_FRONT
+                || type == DiarioReservas.WAITLIST_LEAVE || type == DiarioReservas.WAITLIST_FALLBACK;
+    }
+
+    /**
+     * Consulta el historial de transacciones en un rango de tiempo, con filtros opcionales.
+     * El texto de cada evento se genera solo para la página devuelta.
+     *
+     * @param fromMillis Inicio del rango (inclusive), en milisegundos desde la época Unix.
+     * @param toMillis Fin del rango (exclusivo).
+     * @param client Cliente a filtrar, o null para todos.
+     * @param section Sección a filtrar (sin importar mayúsculas), o null para todas.
+     * @param offset Cantidad de eventos que se saltan (para paginar).
+     * @param limit Cantidad máxima de eventos a devolver.
+     * @return Descripción de cada evento, del más antiguo al más reciente.
+     */
+    public List<String> getHistory(long fromMillis, long toMillis, Cliente client, String section, int offset, int limit) {
+        int clientId = -1;
+        if (client != null) {
+            clientId = clients.idOf(client);
+            if (clientId < 0) {
+                return new ArrayList<>(); // El cliente nunca hizo una operación.
+            }
+        }
+        int sectionId = -1;
+        if (section != null) {
+            String normalizedSection = getNormalizedSection(section);
+            if (normalizedSection == null) {
+                return new ArrayList<>();
+            }
+            sectionId = seatInventory.sectionId(normalizedSection);
+        }
+        return describe(reservationHistory.query(fromMillis, toMillis, clientId, sectionId, offset, limit));
+    }
+
+    /**
+     * @param limit Cantidad máxima de eventos.
+     * @return Descripción de los últimos eventos, del más antiguo al más reciente.
+     */
+    public List<String> getRecentHistory(int limit) {
+        return describe(reservationHistory.recent(limit));
+    }
+
+    private List<String> describe(List<Transaccion> transactions) {
+        List<String> lines = new ArrayList<>(transactions.size());
+        for (Transaccion transaction : transactions) {
+            Cliente client = clients.get(transaction.getClient());
+            String section = seatInventory.sectionName(transaction.getSection());
+            String seat = transaction.getSeat() < 0 ? null : seatInventory.seatAt(transaction.getSeat()).toString();
+            String action;
+            switch (transaction.getType()) {
+                case DiarioReservas.RESERVE:
+                    action = "reserved " + seat;
+                    break;
+                case DiarioReservas.CANCEL:
+                    action = "canceled reservation for " + seat;
+                    break;
+                case DiarioReservas.PROMOTE:
+                    action = "reserved from waitlist for " + seat;
+                    break;
+                case DiarioReservas.RESERVE_BLOCK:
+                    action = "reserved " + transaction.getQuantity() + " seats in " + section + " starting at " + seat;
+                    break;
+                case DiarioReservas.RESERVE_BATCH:
+                    action = "reserved a batch of " + transaction.getQuantity() + " seats in " + section
+                            + " starting at " + seat + " (first request of the batch)";
+                    break;
+                case DiarioReservas.WAITLIST_JOIN:
+                    action = "joined the waitlist for " + section;
+                    break;
+                case DiarioReservas.WAITLIST_FRONT:
+                    action = "returned to the front of the waitlist for " + section;
+                    break;
+                case DiarioReservas.WAITLIST_LEAVE:
+                    action = "left the waitlist for " + section;
+                    break;
+                case DiarioReservas.WAITLIST_FALLBACK:
+                    action = "would also accept a seat in " + section;
+                    break;
+                case DiarioReservas.RELEASE_BATCH:
+                    action = "released " + transaction.getQuantity() + " seats in one batch, starting at " + seat;
+                    break;
+                default:
+                    action = "event " + transaction.getType();
+            }
+            lines.add(Instant.ofEpochMilli(transaction.getTimestamp()) + " " + client + " " + action);
+        }
+        return lines;
+    }
+
+    /**
+     * Espera a que un evento del diario llegue al disco. Se llama después de liberar el candado,
+     * para que varios hilos compartan la misma sincronización (group commit).
+     */
+    private void awaitDurable(long sequence) {
+        if (journal != null && sequence > 0) {
+            journal.awaitDurable(sequence);
+        }
+    }
+
+    /**
+     * Inicializa los asientos disponibles en cada sección del estadio.
+     * Se utiliza un `InventarioAsientos` porque:
+     * - Guarda un bit por asiento en lugar de un objeto `Asiento`.
+     * - Mantiene un contador de asientos libres por sección.
+     * - Encontrar y liberar un asiento no requiere recorrer todo el estadio.
+     *
+     * @param layout Distribución con las secciones y filas a registrar.
+     */
+    private void initializeSeats(DistribucionEstadio layout) {
+        layout.applyTo(seatInventory);
+    }
+
+    /**
+     * Obtiene el precio, los asientos libres y vendidos, el tamaño de la lista de espera y lo
+     * recaudado de cada sección. Los valores salen de `AgregadosSecciones`, sin tomar candados,
+     * así que consultar la disponibilidad no frena las reservas. Cada sección es consistente en
+     * sí misma; secciones distintas pueden corresponder a momentos ligeramente distintos.
+     *
+     * @return Disponibilidad de cada sección, en el orden del estadio.
+     */
+    public List<DisponibilidadSeccion> getAvailability() {
+        long start = MetricasEstadio.now();
+        List<DisponibilidadSeccion> availability = new ArrayList<>(aggregates.sectionCount());
+        for (int sectionId = 0; sectionId < aggregates.sectionCount(); sectionId++) {
+            availability.add(aggregates.snapshot(sectionId));
+        }
+        metrics.recordSince(MetricasEstadio.AVAILABILITY, start);
+        return availability;
+    }
+
+    /**
+     * Obtiene la cantidad de asientos disponibles en una sección específica, sin tomar candados.
+     *
+     * @param section Nombre de la sección.
+     * @return Número de asientos disponibles en la sección.
+     */
+    public int getAvailableSeatsInSection(String section) {
+        long start = MetricasEstadio.now();
+        int sectionId = seatInventory.sectionId(section);
+        int freeSeats = sectionId < 0 ? 0 : aggregates.freeSeats(sectionId);
+        metrics.recordSince(MetricasEstadio.AVAILABILITY, start);
+        return freeSeats;
+    }
+
+    /**
+     * Reserva el primer asiento libre de una sección sin interactuar con el usuario.
+     * Es seguro llamarlo desde varios hilos: solo toma el candado de la sección pedida.
+     *
+     * @param client Cliente que realiza la reserva.
+     * @param section Nombre de la sección deseada (sin importar mayúsculas).
+     * @return Asiento reservado, o null si la sección no es válida o está llena.
+     */
+    public Asiento reserveSeat(Cliente client, String section) {
+        long start = MetricasEstadio.now();
+        Asiento seat = claimSeat(client, section);
+        metrics.recordSince(MetricasEstadio.RESERVE, start);
+        return seat;
+    }
+
+    /**
+     * Cuerpo de `reserveSeat`, sin la medición de latencia.
+     */
+    private Asiento claimSeat(Cliente client, String section) {
+        String normalizedSection = getNormalizedSection(section);
+        if (normalizedSection == null) {
+            return null;
+        }
+
+        int sectionId = seatInventory.sectionId(normalizedSection);
+        Asiento reservedSeat;
+        long sequence;
+        ReentrantLock lock = sectionLocks[sectionId];
+        lock.lock();
+        try {
+            int seatIndex = seatInventory.claimFirstFree(sectionId); // Actualiza el inventario.
+            if (seatIndex < 0) {
+                metrics.countRejected();
+                return null;
+            }
+            reservedSeat = seatInventory.seatAt(seatIndex);
+            reservations.add(client, seatIndex); // Añade al índice de reservas.
+            int clientId = clients.register(client);
+            undoLog.record(DiarioReservas.RESERVE, seatIndex, clientId, -1, (byte) 0, -1); // Guarda la acción para deshacer.
+            sequence = recordEvent(DiarioReservas.RESERVE, seatIndex, clientId); // Registro en el historial y el diario.
+            metrics.countReservations(sectionId, 1);
+        } finally {
+            publish(sectionId);
+            lock.unlock();
+        }
+        awaitDurable(sequence);
+        return reservedSeat;
+    }
+
+    /**
+     * Reserva asientos para varias solicitudes (cliente, sección, cantidad) en una sola operación,
+     * pensado para cargas corporativas y de abonos de temporada.
+     *
+     * - Cada solicitud es todo o nada: si su sección no tiene suficientes asientos libres, no se
+     *   reserva ninguno y las demás solicitudes continúan.
+     * - Las solicitudes se agrupan por sección y el candado de cada sección se toma una sola vez.
+     * - Cada solicitud cumplida se reserva en una pasada sobre el mapa de bits. Las solicitudes
+     *   cumplidas de cada sección se registran como un solo evento en el historial (a nombre del
+     *   primer cliente del grupo) y un solo registro `RESERVE_BATCH` en el diario; al final se
+     *   espera un único fsync.
+     * - Las reservas en lote no se agregan a la pila de deshacer.
+     *
+     * @param requests Solicitudes a procesar.
+     * @return Resultado de cada solicitud, en el mismo orden.
+     */
+    public List<ReservaLote> reserveBatch(List<SolicitudReserva> requests) {
+        ReservaLote[] results = new ReservaLote[requests.size()];
+
+        // Agrupar las solicitudes por sección manteniendo su orden dentro de cada sección.
+        List<List<Integer>> bySection = new ArrayList<>();
+        for (int i = 0; i < seatInventory.sectionCount(); i++) {
+            bySection.add(new ArrayList<>());
+        }
+        for (int i = 0; i < requests.size(); i++) {
+            String normalizedSection = getNormalizedSection(requests.get(i).getSection());
+            if (normalizedSection == null) {
+                results[i] = new ReservaLote(requests.get(i), new int[0], seatInventory);
+            } else {
+                bySection.get(seatInventory.sectionId(normalizedSection)).add(i);
+            }
+        }
+
+        long sequence = 0;
+        for (int section = 0; section < bySection.size(); section++) {
+            List<Integer> group = bySection.get(section);
+            if (group.isEmpty()) {
+                continue;
+            }
+            int[] clientIds = new int[group.size()];
+            int[][] blocks = new int[group.size()][];
+            int fulfilled = 0;
+            int reserved = 0;
+            ReentrantLock lock = sectionLocks[section];
+            lock.lock();
+            try {
+                for (int index : group) {
+                    SolicitudReserva request = requests.get(index);
+                    int[] seats = new int[Math.max(0, request.getCount())];
+                    if (seats.length == 0 || !seatInventory.claimFree(section, seats.length, seats)) {
+                        results[index] = new ReservaLote(request, new int[0], seatInventory);
+                        continue;
+                    }
+                    reservations.addAll(request.getClient(), seats);
+                    clientIds[fulfilled] = clients.register(request.getClient());
+                    blocks[fulfilled++] = seats;
+                    reserved += seats.length;
+                    results[index] = new ReservaLote(request, seats, seatInventory);
+                }
+                if (fulfilled > 0) {
+                    reservationHistory.record(DiarioReservas.RESERVE_BATCH, section, blocks[0][0], clientIds[0], reserved);
+                    if (journal != null) {
+                        sequence = journal.appendBatch(DiarioReservas.RESERVE_BATCH, clientIds, blocks, fulfilled);
+                    }
+                    metrics.countReservations(section, reserved);
+                }
+            } finally {
+                publish(section);
+                lock.unlock();
+            }
+        }
+        awaitDurable(sequence);
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Reserva `count` asientos juntos en una misma fila de una sección, para familias y grupos.
+     * El tramo se encuentra en tiempo logarítmico con el índice de tramos libres del inventario.
+     * Igual que las reservas en lote, se registra como un solo evento y no se agrega a la pila
+     * de deshacer.
+     *
+     * @param client Cliente que realiza la reserva.
+     * @param section Nombre de la sección deseada (sin importar mayúsculas).
+     * @param count Cantidad de asientos contiguos.
+     * @param policy Política para elegir la fila (más cercana al frente o mejor ajuste).
+     * @return Asientos reservados en orden, o una lista vacía si ninguna fila tiene espacio.
+     */
+    public List<Asiento> reserveAdjacentSeats(Cliente client, String section, int count, PoliticaAsientos policy) {
+        String normalizedSection = getNormalizedSection(section);
+        if (normalizedSection == null || count <= 0) {
+            return new ArrayList<>();
+        }
+
+        int sectionId = seatInventory.sectionId(normalizedSection);
+        int[] seats = new int[count];
+        long sequence;
+        ReentrantLock lock = sectionLocks[sectionId];
+        lock.lock();
+        try {
+            if (!seatInventory.claimContiguous(sectionId, count, policy, seats)) {
+                return new ArrayList<>();
+            }
+            reservations.addAll(client, seats);
+            sequence = recordBlock(sectionId, seats, clients.register(client));
+            metrics.countReservations(sectionId, count);
+        } finally {
+            publish(sectionId);
+            lock.unlock();
+        }
+        awaitDurable(sequence);
+
+        List<Asiento> reservedSeats = new ArrayList<>(count);
+        for (int seat : seats) {
+            reservedSeats.add(seatInventory.seatAt(seat));
+        }
+        return reservedSeats;
+    }
+
+    /**
+     * Agrega un cliente a la lista de espera de una sección.
+     *
+     * @param client Cliente que desea esperar un asiento.
+     * @param section Nombre de la sección (sin importar mayúsculas).
+     * @return true si el cliente fue agregado, false si la sección no es válida o el cliente ya estaba esperando.
+     */
+    public boolean joinWaitlist(Cliente client, String section) {
+        return joinWaitlist(client, section, PrioridadEspera.GENERAL);
+    }
 
     /**
-     * Constructor que inicializa todas las estructuras de datos y los asientos del estadio.
+     * Agrega un cliente a la lista de espera de una sección con un nivel de prioridad.
+     * Los abonados de temporada se atienden antes que el público general; dentro de cada nivel, FIFO.
+     *
+     * @param client Cliente que desea esperar un asiento.
+     * @param section Nombre de la sección (sin importar mayúsculas).
+     * @param priority Nivel de prioridad del cliente.
+     * @return true si el cliente fue agregado, false si la sección no es válida o el cliente ya estaba esperando.
      */
-    public Estadio() {
-        availableSeats = new HashSet<>();
-        reservationHistory = new LinkedList<>();
-        reservations = new HashMap<>();
-        undoStack = new Stack<>();
-        waitlistBySection = new HashMap<>();
-
-        // Inicializar listas de espera para cada sección.
-        waitlistBySection.put("Field Level", new LinkedList<>());
-        waitlistBySection.put("Main Level", new LinkedList<>());
-        waitlistBySection.put("Grandstand Level", new LinkedList<>());
+    public boolean joinWaitlist(Cliente client, String section, PrioridadEspera priority) {
+        return joinWaitlist(client, section, priority, new ArrayList<>());
+    }
 
-        // Llenar el estadio con asientos disponibles.
-        initializeSeats();
+    /**
+     * Agrega un cliente a la lista de espera de una sección, indicando otras secciones que también
+     * aceptaría. Cuando se libera un asiento en una de esas secciones y su propia lista de espera
+     * está vacía, el cliente puede recibirlo (ver `releaseSeats`).
+     *
+     * @param client Cliente que desea esperar un asiento.
+     * @param section Nombre de la sección preferida (sin importar mayúsculas).
+     * @param priority Nivel de prioridad del cliente.
+     * @param fallbackSections Secciones alternativas aceptadas, en cualquier orden.
+     * @return true si el cliente fue agregado, false si alguna sección no es válida o el cliente ya estaba esperando.
+     */
+    public boolean joinWaitlist(Cliente client, String section, PrioridadEspera priority, List<String> fallbackSections) {
+        return joinWaitlistWithPosition(client, section, priority, fallbackSections) > 0;
     }
 
     /**
-     * Inicializa los asientos disponibles en cada sección del estadio.
-     * Se utiliza un `HashSet` porque:
-     * - Permite almacenar asientos únicos sin duplicados.
-     * - Las operaciones de búsqueda y eliminación son rápidas (O(1)).
+     * Igual que `joinWaitlist`, pero devuelve la posición del cliente leída bajo el mismo candado,
+     * así una cancelación que lo promueva justo después no cambia la respuesta.
+     *
+     * @param client Cliente que desea esperar un asiento.
+     * @param section Nombre de la sección preferida (sin importar mayúsculas).
+     * @param priority Nivel de prioridad del cliente.
+     * @param fallbackSections Secciones alternativas aceptadas, en cualquier orden.
+     * @return Posición (desde 1) en la que quedó el cliente; si ya estaba esperando, su posición
+     *         actual con signo negativo; 0 si alguna sección no es válida.
      */
-    private void initializeSeats() {
-        for (int i = 1; i <= 500; i++) {
-            availableSeats.add(new Asiento("Field Level", 1, i));
+    public int joinWaitlistWithPosition(Cliente client, String section, PrioridadEspera priority,
+                                        List<String> fallbackSections) {
+        String normalizedSection = getNormalizedSection(section);
+        if (normalizedSection == null) {
+            return 0;
+        }
+        int sectionId = seatInventory.sectionId(normalizedSection);
+        int[] fallbacks = NO_SECTIONS;
+        for (String fallback : fallbackSections) {
+            String normalizedFallback = getNormalizedSection(fallback);
+            if (normalizedFallback == null) {
+                return 0;
+            }
+            int fallbackId = seatInventory.sectionId(normalizedFallback);
+            if (fallbackId != sectionId) {
+                fallbacks = withSection(fallbacks, fallbackId);
+            }
         }
-        for (int i = 1; i <= 1000; i++) {
-            availableSeats.add(new Asiento("Main Level", 2, i));
+        int[] locked = withSection(fallbacks, sectionId);
+
+        int value = waitlistValue(sectionId, priority.ordinal());
+        long sequence;
+        int position;
+        lockSections(locked);
+        try {
+            // Añade al final del nivel; no hace nada si el cliente ya estaba en la lista.
+            if (!waitlistOf(sectionId).add(client, priority.ordinal())) {
+                return -waitlistOf(sectionId).positionOf(client);
+            }
+            int clientId = clients.register(client);
+            undoLog.record(DiarioReservas.WAITLIST_JOIN, value, clientId, -1, (byte) 0, -1);
+            sequence = recordEvent(DiarioReservas.WAITLIST_JOIN, value, clientId);
+            for (int fallback : fallbacks) {
+                addFallback(client, sectionId, fallback);
+                sequence = recordEvent(DiarioReservas.WAITLIST_FALLBACK, fallbackValue(sectionId, fallback), clientId);
+            }
+            position = waitlistOf(sectionId).positionOf(client);
+        } finally {
+            unlockSections(locked);
         }
-        for (int i = 1; i <= 2000; i++) {
-            availableSeats.add(new Asiento("Grandstand Level", 3, i));
+        awaitDurable(sequence);
+        return position;
+    }
+
+    /**
+     * Anota que un cliente que espera en `primary` también aceptaría `fallback`. Una entrada
+     * anterior del mismo cliente en la lista alternativa se reemplaza. Debe llamarse con los
+     * candados de ambas secciones tomados.
+     */
+    private void addFallback(Cliente client, int primary, int fallback) {
+        ListaEspera waitlist = waitlistOf(primary);
+        if (waitlist.addFallback(client, fallback)) {
+            fallbackWaitlists[fallback].remove(client);
+            fallbackWaitlists[fallback].add(client, waitlist.tierOf(client));
+            int count = fallbackPrimaryCounts[fallback];
+            int[] primaries = fallbackPrimaries[fallback];
+            for (int i = 0; i < count; i++) {
+                if (primaries[i] == primary) {
+                    return;
+                }
+            }
+            if (count == primaries.length) {
+                primaries = fallbackPrimaries[fallback] = Arrays.copyOf(primaries, count * 2);
+            }
+            primaries[count] = primary;
+            fallbackPrimaryCounts[fallback] = count + 1;
         }
     }
 
     /**
-     * Muestra las secciones disponibles y la cantidad de asientos libres en cada una.
-     * Utiliza un `Stream` para contar los asientos disponibles por sección.
+     * Solo mira las secciones anotadas en `fallbackPrimaries`, cuyos candados toma `lockForRelease`.
+     *
+     * @return Sección donde espera un cliente que acepta `section` como alternativa, o -1 si su
+     *         entrada en la lista alternativa ya no es válida.
      */
-    public void showAvailableSections() {
-        System.out.println("Field Level ($300) - Available Seats: " + getAvailableSeatsInSection("Field Level"));
-        System.out.println("Main Level ($120) - Available Seats: " + getAvailableSeatsInSection("Main Level"));
-        System.out.println("Grandstand Level ($45) - Available Seats: " + getAvailableSeatsInSection("Grandstand Level"));
+    private int fallbackSourceOf(Cliente client, int section) {
+        for (int i = 0; i < fallbackPrimaryCounts[section]; i++) {
+            int primary = fallbackPrimaries[section][i];
+            if (waitlistOf(primary).accepts(client, section)) {
+                return primary;
+            }
+        }
+        return -1;
     }
 
     /**
-     * Obtiene la cantidad de asientos disponibles en una sección específica.
+     * Quita a un cliente de la lista de espera de una sección, sin importar su posición.
      *
-     * @param section Nombre de la sección.
-     * @return Número de asientos disponibles en la sección.
+     * @param client Cliente que deja de esperar.
+     * @param section Nombre de la sección (sin importar mayúsculas).
+     * @return true si el cliente estaba en la lista.
      */
-    private int getAvailableSeatsInSection(String section) {
-        return (int) availableSeats.stream().filter(seat -> seat.getSection().equals(section)).count();
+    public boolean leaveWaitlist(Cliente client, String section) {
+        String normalizedSection = getNormalizedSection(section);
+        if (normalizedSection == null) {
+            return false;
+        }
+
+        int sectionId = seatInventory.sectionId(normalizedSection);
+        long sequence;
+        ReentrantLock lock = sectionLocks[sectionId];
+        lock.lock();
+        try {
+            if (!waitlistBySection.get(normalizedSection).remove(client)) {
+                return false;
+            }
+            sequence = recordEvent(DiarioReservas.WAITLIST_LEAVE, waitlistValue(sectionId, 0), clients.register(client));
+        } finally {
+            publish(sectionId);
+            lock.unlock();
+        }
+        awaitDurable(sequence);
+        return true;
     }
 
     /**
      * Realiza la reservación de un asiento para un cliente en una sección específica.
-     * Si no hay asientos disponibles, ofrece opciones para unirse a la lista de espera
-     * o cambiar de sección.
+     * Si no hay asientos disponibles, el resultado trae las otras secciones con asientos libres
+     * y la opción de unirse a la lista de espera, en lugar de preguntarle al usuario.
      *
      * @param client Cliente que realiza la reserva.
-     * @param section Nombre de la sección deseada.
-     * @param scanner Scanner para leer la entrada del usuario.
+     * @param section Nombre de la sección deseada (sin importar mayúsculas).
+     * @return Resultado de la reserva.
      */
-    public void reserveSeat(Cliente client, String section, Scanner scanner) {
+    public ResultadoReserva reserve(Cliente client, String section) {
         String normalizedSection = getNormalizedSection(section);
-
         if (normalizedSection == null) {
-            System.out.println("Sección no válida. Intente nuevamente.");
-            return;
+            return new ResultadoReserva(ResultadoReserva.Estado.INVALID_SECTION, client, section, null, 0,
+                    new ArrayList<>(), false);
         }
 
-        Optional<Asiento> seat = availableSeats.stream().filter(s -> s.getSection().equals(normalizedSection)).findFirst();
-        if (seat.isPresent()) {
-            Asiento reservedSeat = seat.get();
-            availableSeats.remove(reservedSeat); // Actualiza el Set de asientos disponibles.
-            reservations.put(client, reservedSeat); // Añade al HashMap de reservas.
-            reservationHistory.add(client + " reserved " + reservedSeat); // Registro en LinkedList.
-            undoStack.push("reserve:" + client); // Guarda la acción en el Stack.
-            System.out.println("Reservation successful for " + client + ". Total cost: $" + getSectionCost(normalizedSection));
-        } else {
-            System.out.println("Section full. What would you like to do?");
-            System.out.println("1. Choose another section");
-            System.out.println("2. Join the waitlist for this section");
-
-            int option = -1;
-            while (true) {
-                try {
-                    System.out.print("Ingrese su opción: ");
-                    option = Integer.parseInt(scanner.nextLine());
-                    if (option == 1 || option == 2) {
-                        break;
-                    } else {
-                        System.out.println("Por favor, seleccione 1 o 2.");
-                    }
-                } catch (NumberFormatException e) {
-                    System.out.println("Entrada inválida. Por favor, ingrese 1 o 2.");
-                }
+        Asiento reservedSeat = reserveSeat(client, normalizedSection);
+        if (reservedSeat != null) {
+            return new ResultadoReserva(ResultadoReserva.Estado.RESERVED, client, normalizedSection, reservedSeat,
+                    getSectionPrice(normalizedSection), new ArrayList<>(), false);
+        }
+
+        // Sugerir las otras secciones que todavía tienen asientos disponibles.
+        List<String> alternatives = new ArrayList<>();
+        for (int sectionId = 0; sectionId < seatInventory.sectionCount(); sectionId++) {
+            String other = seatInventory.sectionName(sectionId);
+            if (!other.equals(normalizedSection) && getAvailableSeatsInSection(other) > 0) {
+                alternatives.add(other);
+            }
+        }
+        return new ResultadoReserva(ResultadoReserva.Estado.SECTION_FULL, client, normalizedSection, null, 0,
+                alternatives, true);
+    }
+
+    /**
+     * Obtiene el costo de un asiento según la sección seleccionada.
+     * 
+     * Este método devuelve el precio en dólares que la distribución del estadio asigna a la sección.
+     *
+     * @param section Nombre de la sección seleccionada (sin importar mayúsculas).
+     * @return Costo del asiento en la sección. Si la sección no es válida, devuelve 0.
+     */
+    public int getSectionPrice(String section) {
+        int sectionId = layout.sectionId(section);
+        return sectionId < 0 ? 0 : layout.price(sectionId);
+    }
+
+
+    /**
+     * Retiene el primer asiento libre de una sección mientras el comprador paga. El asiento sale
+     * del inventario pero todavía no es una reserva: se confirma con `confirmHold` o vuelve al
+     * inventario (y a la lista de espera) con `releaseHold` o al vencer `ttlMillis`.
+     *
+     * Las retenciones no se escriben en el diario: tras un reinicio los asientos retenidos vuelven
+     * a estar libres. Confirmar una retención registra una reserva normal.
+     *
+     * @param client Cliente que retiene el asiento.
+     * @param section Nombre de la sección deseada (sin importar mayúsculas).
+     * @param ttlMillis Duración de la retención, en milisegundos.
+     * @return Asiento retenido, o null si la sección no es válida o está llena.
+     */
+    public Asiento holdSeat(Cliente client, String section, long ttlMillis) {
+        String normalizedSection = getNormalizedSection(section);
+        if (normalizedSection == null || ttlMillis <= 0) {
+            return null;
+        }
+        startHoldExpiry();
+
+        int sectionId = seatInventory.sectionId(normalizedSection);
+        ReentrantLock lock = sectionLocks[sectionId];
+        lock.lock();
+        try {
+            int seatIndex = seatInventory.claimFirstFree(sectionId);
+            if (seatIndex < 0) {
+                return null;
+            }
+            int local = seatIndex - seatInventory.sectionStart(sectionId);
+            holdTimersOf(sectionId).arm(local, holdNow() + ttlMillis);
+            holdOwners[sectionId][local] = clients.register(client);
+            if (seatFile != null) {
+                seatFile.set(seatIndex, EstadoAsiento.HELD, holdOwners[sectionId][local]);
             }
+            return seatInventory.seatAt(seatIndex);
+        } finally {
+            publish(sectionId);
+            lock.unlock();
+        }
+    }
 
-            if (option == 1) {
-                suggestAlternativeSections(client, scanner);
-            } else if (option == 2) {
-                waitlistBySection.get(normalizedSection).add(client); // Añade a la Queue de la sección.
-                System.out.println(client + " ha sido agregado a la lista de espera de la sección.");
+    /**
+     * Convierte una retención vigente en una reserva del mismo cliente.
+     *
+     * @param client Cliente que retiene el asiento.
+     * @param seat Asiento retenido.
+     * @return true si se reservó; false si el asiento no está retenido por el cliente (por ejemplo, si venció).
+     */
+    public boolean confirmHold(Cliente client, Asiento seat) {
+        int seatIndex = seatInventory.indexOf(seat);
+        if (seatIndex < 0) {
+            return false;
+        }
+        int sectionId = seatInventory.sectionOf(seatIndex);
+        long sequence;
+        ReentrantLock lock = sectionLocks[sectionId];
+        lock.lock();
+        try {
+            if (!removeHold(client, seatIndex)) {
+                return false;
             }
+            reservations.add(client, seatIndex);
+            int clientId = clients.register(client);
+            undoLog.record(DiarioReservas.RESERVE, seatIndex, clientId, -1, (byte) 0, -1);
+            sequence = recordEvent(DiarioReservas.RESERVE, seatIndex, clientId);
+            metrics.countReservations(sectionId, 1);
+        } finally {
+            publish(sectionId);
+            lock.unlock();
         }
+        awaitDurable(sequence);
+        return true;
     }
-    
 
     /**
-     * Sugiere al cliente secciones alternativas con asientos disponibles para reservar.
-     * Si hay asientos disponibles en otras secciones, se le pide al cliente que elija una sección
-     * diferente para realizar la reserva. Si no hay opciones disponibles, informa al cliente.
+     * Libera una retención antes de que venza (el comprador abandonó la compra). El asiento vuelve
+     * al inventario y se ofrece a la lista de espera de su sección, como una cancelación.
      *
-     * @param client Cliente que solicita la reserva de un asiento.
-     * @param scanner Objeto Scanner para leer la entrada del usuario.
+     * @param client Cliente que retiene el asiento.
+     * @param seat Asiento retenido.
+     * @return true si el asiento estaba retenido por el cliente.
      */
-    private void suggestAlternativeSections(Cliente client, Scanner scanner) {
-        System.out.println("Available sections:");
-        boolean hasOptions = false; // Variable para verificar si existen opciones disponibles.
+    public boolean releaseHold(Cliente client, Asiento seat) {
+        int seatIndex = seatInventory.indexOf(seat);
+        if (seatIndex < 0) {
+            return false;
+        }
+        long sequence;
+        int[] locked = lockForRelease(seatInventory.sectionOf(seatIndex), -1);
+        try {
+            if (!removeHold(client, seatIndex)) {
+                return false;
+            }
+            sequence = returnHeldSeat(seatIndex);
+        } finally {
+            unlockSections(locked);
+        }
+        awaitDurable(sequence);
+        return true;
+    }
 
-        // Recorre todas las secciones y verifica si tienen asientos disponibles.
-        for (String section : waitlistBySection.keySet()) {
-            // El método getAvailableSeatsInSection verifica cuántos asientos hay disponibles.
-            if (getAvailableSeatsInSection(section) > 0) {
-                hasOptions = true; // Si encuentra al menos una sección con asientos, activa la bandera.
-                System.out.println("- " + section); // Muestra la sección disponible.
+    /**
+     * Devuelve al inventario los asientos cuyas retenciones vencieron hasta `nowMillis` y los
+     * ofrece a las listas de espera. El hilo de vencimientos lo llama cada `HOLD_TICK_MILLIS`;
+     * también se puede llamar directamente (por ejemplo, con un reloj simulado).
+     *
+     * @param nowMillis Hora actual, en milisegundos.
+     * @return Cantidad de retenciones vencidas.
+     */
+    public int expireHolds(long nowMillis) {
+        int expiredCount = 0;
+        long sequence = 0;
+        for (int sectionId = 0; sectionId < holdTimers.length; sectionId++) {
+            if (holdTimers[sectionId] == null) {
+                continue; // Sección sin retenciones; se vuelve a mirar con el candado si aparece una.
+            }
+            int[] locked = lockForRelease(sectionId, -1);
+            try {
+                int start = seatInventory.sectionStart(sectionId);
+                for (int local : holdTimers[sectionId].advance(nowMillis)) {
+                    holdOwners[sectionId][local] = -1;
+                    sequence = Math.max(sequence, returnHeldSeat(start + local));
+                    expiredCount++;
+                }
+            } finally {
+                unlockSections(locked);
             }
         }
+        awaitDurable(sequence);
+        return expiredCount;
+    }
 
-        // Si existen secciones con asientos disponibles.
-        if (hasOptions) {
-            System.out.print("Enter the section name to reserve: ");
-            String newSection = scanner.nextLine(); // Lee el nombre de la nueva sección que el cliente desea.
-            reserveSeat(client, newSection, scanner); // Llama al método reserveSeat para intentar reservar en la nueva sección.
-        } else {
-            // Si no hay secciones disponibles, informa al cliente.
-            System.out.println("No alternative sections are available.");
+    /**
+     * Obtiene el estado actual de un asiento.
+     *
+     * @param seat Asiento a consultar.
+     * @return Estado del asiento, o null si no pertenece al estadio.
+     */
+    public EstadoAsiento getSeatState(Asiento seat) {
+        int seatIndex = seatInventory.indexOf(seat);
+        if (seatIndex < 0) {
+            return null;
+        }
+        int sectionId = seatInventory.sectionOf(seatIndex);
+        ReentrantLock lock = sectionLocks[sectionId];
+        lock.lock();
+        try {
+            if (seatInventory.isFree(seatIndex)) {
+                return EstadoAsiento.AVAILABLE;
+            }
+            RuedaTemporizadores timers = holdTimers[sectionId];
+            return timers != null && timers.isArmed(seatIndex - seatInventory.sectionStart(sectionId))
+                    ? EstadoAsiento.HELD : EstadoAsiento.RESERVED;
+        } finally {
+            lock.unlock();
         }
     }
 
+    /**
+     * Quita la retención de un asiento si pertenece al cliente. Debe llamarse con el candado de la sección tomado.
+     *
+     * @return true si el asiento estaba retenido por el cliente; el asiento sigue fuera del inventario.
+     */
+    private boolean removeHold(Cliente client, int seatIndex) {
+        int sectionId = seatInventory.sectionOf(seatIndex);
+        RuedaTemporizadores timers = holdTimers[sectionId];
+        int local = seatIndex - seatInventory.sectionStart(sectionId);
+        int clientId = clients.idOf(client);
+        if (timers == null || clientId < 0 || holdOwners[sectionId][local] != clientId || !timers.cancel(local)) {
+            return false;
+        }
+        holdOwners[sectionId][local] = -1;
+        return true;
+    }
 
     /**
-     * Obtiene el costo de un asiento según la sección seleccionada.
-     * 
-     * Este método devuelve un valor en dólares que corresponde al precio de un asiento
-     * en una de las tres secciones disponibles del estadio.
+     * Devuelve un asiento retenido al inventario y lo ofrece con `manageWaitlist`. Debe llamarse
+     * con los candados de `lockForRelease` tomados.
      *
-     * @param section Nombre de la sección seleccionada.
-     * @return Costo del asiento en la sección. Si la sección no es válida, devuelve 0.
+     * @return Secuencia de la promoción en el diario, o 0 si nadie estaba esperando.
      */
-    private int getSectionCost(String section) {
-        switch (section) {
-            case "Field Level":
-                return 300; // Costo de los asientos en "Field Level".
-            case "Main Level":
-                return 120; // Costo de los asientos en "Main Level".
-            case "Grandstand Level":
-                return 45;  // Costo de los asientos en "Grandstand Level".
-            default:
-                return 0;   // Devuelve 0 si la sección no es válida.
+    private long returnHeldSeat(int seatIndex) {
+        seatInventory.release(seatIndex);
+        if (seatFile != null) {
+            seatFile.set(seatIndex, EstadoAsiento.AVAILABLE, -1);
         }
+        int[] source = new int[2];
+        Cliente promotedClient = manageWaitlist(seatIndex, source);
+        return promotedClient == null ? 0 : recordPromotion(seatIndex, clients.register(promotedClient), source[0]);
     }
 
+    /**
+     * Rueda de retenciones de una sección, creada con la primera retención. Debe llamarse con el candado de la sección tomado.
+     */
+    private RuedaTemporizadores holdTimersOf(int sectionId) {
+        if (holdTimers[sectionId] == null) {
+            int seats = seatInventory.sectionCapacity(sectionId);
+            holdOwners[sectionId] = new int[seats];
+            Arrays.fill(holdOwners[sectionId], -1);
+            holdTimers[sectionId] = new RuedaTemporizadores(seats, HOLD_TICK_MILLIS, holdNow());
+        }
+        return holdTimers[sectionId];
+    }
 
-        /**
-     * Muestra la lista de espera para una sección seleccionada por el usuario.
-     * 
-     * Este método permite al usuario seleccionar una de las secciones disponibles y,
-     * a continuación, visualiza la lista de clientes en espera para esa sección.
+    /**
+     * Usa otro reloj para las retenciones en lugar de la hora del sistema, por ejemplo la hora
+     * virtual de una simulación. Con un reloj propio no se programa el vencimiento automático:
+     * quien lo fija vence las retenciones llamando a `expireHolds` con la hora de ese reloj, así el
+     * resultado no depende de cuándo corre un hilo. Debe llamarse antes de la primera retención.
      *
-     * @param scanner Objeto Scanner para leer la entrada del usuario.
+     * @param clock Hora actual en milisegundos, que nunca retrocede.
+     * @throws IllegalStateException Si ya hubo retenciones con la hora del sistema.
      */
-    public void showWaitlist(Scanner scanner) {
-        // Crear una lista de las secciones disponibles a partir de las claves del mapa de listas de espera.
-        List<String> sections = new ArrayList<>(waitlistBySection.keySet());
-        int choice = -1; // Variable para almacenar la elección del usuario.
+    public void useHoldClock(LongSupplier clock) {
+        synchronized (holdTimers) {
+            if (holdExpiryTask != null) {
+                throw new IllegalStateException("El reloj de las retenciones se fija antes de la primera retención.");
+            }
+            holdClock = clock;
+        }
+    }
 
-        // Bucle para manejar errores de entrada.
-        while (true) {
-            try {
-                // Mostrar las secciones disponibles y pedir al usuario que elija una.
-                System.out.println("Seleccione la sección para ver la lista de espera:");
-                for (int i = 0; i < sections.size(); i++) {
-                    System.out.println((i + 1) + ". " + sections.get(i));
+    private long holdNow() {
+        LongSupplier clock = holdClock;
+        return clock == null ? System.currentTimeMillis() : clock.getAsLong();
+    }
+
+    /**
+     * Programa el vencimiento periódico de las retenciones, si todavía no está programado: en el
+     * hilo del estadio si está confinado, o en un hilo propio.
+     */
+    private void startHoldExpiry() {
+        if (holdExpiryTask != null || holdClock != null) {
+            return;
+        }
+        synchronized (holdTimers) {
+            if (holdExpiryTask == null) {
+                ScheduledExecutorService scheduler = owner;
+                if (scheduler == null) {
+                    scheduler = holdExpiry = Executors.newSingleThreadScheduledExecutor(task -> {
+                        Thread thread = new Thread(task, "retenciones-estadio");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                }
+                holdExpiryTask = scheduler.scheduleAtFixedRate(() -> {
+                    try {
+                        expireHolds(System.currentTimeMillis());
+                    } catch (RuntimeException e) {
+                        System.err.println("No se pudieron vencer las retenciones: " + e.getMessage());
+                    }
+                }, HOLD_TICK_MILLIS, HOLD_TICK_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * Obtiene una copia de la lista de espera de una sección, tomada bajo su candado.
+     *
+     * @param section Nombre de la sección (sin importar mayúsculas).
+     * @return Clientes en espera en el orden en que se atenderán; vacío si la sección no es válida.
+     */
+    public List<Cliente> getWaitlist(String section) {
+        String normalizedSection = getNormalizedSection(section);
+        if (normalizedSection == null) {
+            return new ArrayList<>();
+        }
+        ReentrantLock lock = sectionLocks[seatInventory.sectionId(normalizedSection)];
+        lock.lock();
+        try {
+            List<Cliente> waitlist = new ArrayList<>(waitlistBySection.get(normalizedSection).size());
+            for (Cliente client : waitlistBySection.get(normalizedSection)) {
+                waitlist.add(client);
+            }
+            return waitlist;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Obtiene la posición de un cliente en la lista de espera de una sección en O(log n),
+     * contando a los clientes de mayor prioridad que están delante.
+     *
+     * @param client Cliente a buscar (se compara por email normalizado).
+     * @param section Nombre de la sección (sin importar mayúsculas).
+     * @return Posición empezando en 1, o -1 si el cliente no está esperando o la sección no es válida.
+     */
+    public int getWaitlistPosition(Cliente client, String section) {
+        String normalizedSection = getNormalizedSection(section);
+        if (normalizedSection == null) {
+            return -1;
+        }
+        ReentrantLock lock = sectionLocks[seatInventory.sectionId(normalizedSection)];
+        lock.lock();
+        try {
+            return waitlistBySection.get(normalizedSection).positionOf(client);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Cancela todas las reservas de un cliente y actualiza los asientos disponibles y las listas de espera.
+     * 
+     * Este método busca las reservas del cliente en el índice de reservas (por email normalizado,
+     * en O(1)). Una sola reserva se cancela como `cancelReservation(Cliente, Asiento)`; varias (por
+     * ejemplo, un bloque corporativo) se liberan juntas con `releaseSeats`. En ambos casos cada
+     * asiento liberado se puede deshacer.
+     *
+     * @param client Cliente que solicita la cancelación de sus reservas.
+     * @return Resultado de cada cancelación; vacío si el cliente no tenía reservas.
+     */
+    public List<Cancelacion> cancelReservation(Cliente client) {
+        long start = MetricasEstadio.now();
+        int[] seats = reservations.seatsOf(client);
+        List<Cancelacion> results;
+        if (seats.length > 1) {
+            results = releaseBatch(client, seats);
+        } else {
+            results = new ArrayList<>();
+            for (int seatIndex : seats) {
+                Cancelacion result = cancelSeat(client, seatIndex);
+                if (result != null) {
+                    results.add(result);
                 }
-                System.out.print("Ingrese el número de la sección: ");
+            }
+        }
+        metrics.recordSince(MetricasEstadio.CANCEL, start);
+        return results;
+    }
 
-                // Leer la entrada del usuario como String y convertirla a un número entero.
-                choice = Integer.parseInt(scanner.nextLine());
+    /**
+     * Libera un lote de asientos de un cliente y reparte los asientos liberados entre las listas
+     * de espera en una sola pasada.
+     *
+     * - Cada asiento se ofrece con `manageWaitlist`, como una cancelación: primero a la lista de
+     *   espera de su sección y, si está vacía, a los clientes de otras secciones que aceptan esa
+     *   sección como alternativa (en orden de prioridad y llegada). Un cliente promovido sale de
+     *   todas las listas.
+     * - Todo el lote se aplica bajo los candados de `lockForRelease` (las secciones de los asientos
+     *   y las secciones donde esperan sus clientes alternativos), así que ningún otro hilo ve un
+     *   estado intermedio.
+     * - Se escribe un solo evento en el historial y un solo registro en el diario por lote, y se
+     *   espera un único fsync. Cada asiento liberado entra en la pila de deshacer del cliente como
+     *   una cancelación, así que deshacer devuelve un asiento por vez, con su promoción revertida.
+     *
+     * @param holder Cliente que tiene los asientos.
+     * @param seats Asientos a liberar; los que no pertenecen al cliente se ignoran.
+     * @return Resultado de cada asiento liberado, con el cliente promovido si lo hubo.
+     */
+    public List<Cancelacion> releaseSeats(Cliente holder, List<Asiento> seats) {
+        int[] seatIndexes = new int[seats.size()];
+        int count = 0;
+        for (Asiento seat : seats) {
+            int seatIndex = seatInventory.indexOf(seat);
+            if (seatIndex >= 0) {
+                seatIndexes[count++] = seatIndex;
+            }
+        }
+        return releaseBatch(holder, Arrays.copyOf(seatIndexes, count));
+    }
 
-                // Validar que el número ingresado esté dentro del rango de secciones disponibles.
-                if (choice >= 1 && choice <= sections.size()) {
-                    break; // Salir del bucle si la entrada es válida.
-                } else {
-                    System.out.println("Por favor, seleccione un número dentro del rango disponible.");
+    private List<Cancelacion> releaseBatch(Cliente holder, int[] seatIndexes) {
+        List<Cancelacion> results = new ArrayList<>();
+        int[] sections = NO_SECTIONS;
+        for (int seatIndex : seatIndexes) {
+            sections = withSection(sections, seatInventory.sectionOf(seatIndex));
+        }
+        long sequence;
+        int[] locked = lockForRelease(sections);
+        try {
+            int[] released = new int[seatIndexes.length];
+            Cliente owner = null;
+            int count = 0;
+            for (int seatIndex : seatIndexes) {
+                Cliente current = reservations.holderOf(seatIndex);
+                if (reservations.remove(holder, seatIndex)) {
+                    seatInventory.release(seatIndex);
+                    released[count++] = seatIndex;
+                    owner = current;
                 }
-            } catch (NumberFormatException e) {
-                // Manejar el caso en que el usuario ingrese algo que no sea un número.
-                System.out.println("Entrada inválida. Por favor, ingrese un número.");
+            }
+            if (count == 0) {
+                return results;
+            }
+            released = Arrays.copyOf(released, count);
+
+            int holderId = clients.register(owner);
+            int[] promotedClients = new int[count];
+            int[] sources = new int[count];
+            int[] source = new int[2];
+            for (int i = 0; i < count; i++) {
+                Cliente promoted = manageWaitlist(released[i], source);
+                promotedClients[i] = promoted == null ? -1 : clients.register(promoted);
+                sources[i] = source[0];
+                undoLog.record(DiarioReservas.CANCEL, released[i], holderId, promotedClients[i], (byte) source[1],
+                        source[0]);
+                results.add(new Cancelacion(owner, seatInventory.seatAt(released[i]), promoted));
+            }
+
+            reservationHistory.record(DiarioReservas.RELEASE_BATCH, seatInventory.sectionOf(released[0]), released[0],
+                    holderId, count);
+            sequence = journal == null ? 0
+                    : journal.appendRelease(DiarioReservas.RELEASE_BATCH, holderId, released, promotedClients, sources);
+        } finally {
+            unlockSections(locked);
+        }
+        awaitDurable(sequence);
+        return results;
+    }
+
+    /**
+     * Quita y devuelve el próximo cliente que debe recibir un asiento de `section`: primero su
+     * propia lista de espera y después la lista alternativa, descartando las entradas que ya no
+     * son válidas. Debe llamarse con los candados de `lockForRelease` tomados.
+     *
+     * @param source Recibe en la posición 0 la sección donde esperaba el cliente (-1 si nadie
+     *               esperaba) y en la 1 su nivel de prioridad en esa lista.
+     * @return El cliente, quitado de la lista donde esperaba, o null si nadie espera un asiento de la sección.
+     */
+    private Cliente nextWaiting(int section, int[] source) {
+        ListaEspera waitlist = waitlistOf(section);
+        if (!waitlist.isEmpty()) {
+            source[0] = section;
+            source[1] = waitlist.tierOf(waitlist.peek());
+            return waitlist.poll();
+        }
+        Cliente candidate;
+        while ((candidate = fallbackWaitlists[section].poll()) != null) {
+            int primary = fallbackSourceOf(candidate, section);
+            if (primary >= 0) {
+                source[0] = primary;
+                source[1] = waitlistOf(primary).tierOf(candidate);
+                waitlistOf(primary).remove(candidate);
+                return candidate;
             }
         }
+        fallbackPrimaryCounts[section] = 0; // La lista alternativa quedó vacía.
+        source[0] = -1;
+        source[1] = 0;
+        return null;
+    }
+
+    /**
+     * Cancela la reserva de un asiento específico de un cliente, sin interactuar con el usuario.
+     *
+     * @param client Cliente que tiene la reserva.
+     * @param seat Asiento a liberar.
+     * @return Resultado de la cancelación, o null si el asiento no pertenece al cliente.
+     */
+    public Cancelacion cancelReservation(Cliente client, Asiento seat) {
+        long start = MetricasEstadio.now();
+        int seatIndex = seatInventory.indexOf(seat);
+        Cancelacion result = seatIndex < 0 ? null : cancelSeat(client, seatIndex);
+        metrics.recordSince(MetricasEstadio.CANCEL, start);
+        return result;
+    }
+
+    /**
+     * @return La instancia registrada del cliente con ese email, registrándolo si es nuevo.
+     * @throws IllegalArgumentException Si el email ya está registrado con otro nombre o teléfono.
+     */
+    public Cliente internClient(String name, String email, String phoneNumber) {
+        return clients.intern(name, email, phoneNumber);
+    }
 
-        // Recuperar el nombre de la sección seleccionada usando la lista.
-        String selectedSection = sections.get(choice - 1);
+    /**
+     * @return El cliente registrado con ese email, o null si no está registrado; no registra nada.
+     */
+    public Cliente findClient(String email) {
+        return clients.find(email);
+    }
 
-        // Obtener la lista de espera de la sección seleccionada.
-        Queue<Cliente> waitlist = waitlistBySection.get(selectedSection);
+    /**
+     * Obtiene los asientos reservados por un cliente.
+     *
+     * @param client Cliente a consultar (se compara por email normalizado).
+     * @return Asientos del cliente; vacío si no tiene reservas.
+     */
+    public List<Asiento> getReservedSeats(Cliente client) {
+        List<Asiento> seats = new ArrayList<>();
+        for (int seatIndex : reservations.seatsOf(client)) {
+            seats.add(seatInventory.seatAt(seatIndex));
+        }
+        return seats;
+    }
 
-        // Mostrar la lista de espera o informar si está vacía.
-        if (waitlist.isEmpty()) {
-            System.out.println("La lista de espera para " + selectedSection + " está vacía.");
-        } else {
-            System.out.println("Lista de espera para " + selectedSection + ":");
-            for (Cliente client : waitlist) {
-                System.out.println("- " + client);
+    /**
+     * Libera un asiento y lo ofrece con `manageWaitlist` al próximo cliente de la lista de espera de
+     * su sección o, si está vacía, de quienes la aceptan como alternativa. La liberación y la
+     * promoción ocurren bajo los candados de `lockForRelease`, de forma atómica.
+     *
+     * @param client Cliente que debe tener el asiento.
+     * @param seatIndex Índice del asiento en el inventario.
+     * @return Resultado de la cancelación, o null si el asiento no pertenece al cliente.
+     */
+    private Cancelacion cancelSeat(Cliente client, int seatIndex) {
+        Cancelacion result;
+        long sequence;
+        int[] locked = lockForRelease(seatInventory.sectionOf(seatIndex), -1);
+        try {
+            // Otro hilo pudo cancelar el mismo asiento mientras se buscaban las reservas.
+            Cliente holder = reservations.holderOf(seatIndex);
+            int[] promotion = new int[3];
+            sequence = releaseSeat(client, seatIndex, promotion);
+            if (sequence < 0) {
+                return null;
+            }
+            // Un solo comando para cancelación y promoción: deshacerlo revierte ambas.
+            undoLog.record(DiarioReservas.CANCEL, seatIndex, clients.register(holder), promotion[0],
+                    (byte) promotion[1], promotion[2]);
+            result = new Cancelacion(holder, seatInventory.seatAt(seatIndex), clients.get(promotion[0]));
+        } finally {
+            unlockSections(locked);
+        }
+        awaitDurable(sequence);
+        return result;
+    }
+
+    /**
+     * Deshace la última acción de un cliente (reserva, cancelación o entrada a la lista de espera),
+     * aunque otros clientes hayan actuado después. Deshacer una reserva libera el asiento y lo
+     * ofrece a la lista de espera, como una cancelación. Si una cancelación había promovido a un
+     * cliente de una lista de espera, ese cliente pierde el asiento y vuelve al frente de la lista
+     * donde esperaba.
+     *
+     * La acción solo se deshace si el estado sigue siendo el que dejó; si otra operación ya cambió
+     * ese asiento, la acción se descarta y se devuelve `CONFLICT`.
+     *
+     * @param client Cliente cuya acción se deshace.
+     * @return Resultado de deshacer.
+     */
+    public ResultadoDeshacer undo(Cliente client) {
+        int clientId = clients.idOf(client);
+        Comando command = clientId < 0 ? null : undoLog.popUndo(clientId);
+        if (command == null) {
+            return ResultadoDeshacer.NOTHING;
+        }
+        int[] promotion = {-1, 0, -1};
+        long sequence;
+        int[] locked = lockForRelease(sectionOf(command), command.getPromotedSection());
+        try {
+            // Las alternativas se pierden al salir de la lista; se guardan para volver a anotarlas al rehacer.
+            int[] fallbacks = command.getType() == DiarioReservas.WAITLIST_JOIN
+                    ? waitlistOf(sectionOf(command)).fallbacksOf(clients.get(command.getClient())) : NO_SECTIONS;
+            sequence = revert(command, promotion);
+            if (sequence < 0) {
+                return ResultadoDeshacer.CONFLICT;
+            }
+            undoLog.pushRedo(new Comando(command.getType(), command.getValue(), command.getClient(), promotion[0],
+                    (byte) promotion[1], promotion[2], fallbacks));
+        } finally {
+            unlockSections(locked);
+        }
+        awaitDurable(sequence);
+        return ResultadoDeshacer.DONE;
+    }
+
+    /**
+     * Vuelve a aplicar la última acción deshecha de un cliente. Una entrada a la lista de espera
+     * vuelve al final de su nivel con las secciones alternativas que tenía al deshacerla.
+     *
+     * @param client Cliente cuya acción se rehace.
+     * @return Resultado de rehacer; `CONFLICT` si el estado ya no permite rehacerla.
+     */
+    public ResultadoDeshacer redo(Cliente client) {
+        int clientId = clients.idOf(client);
+        Comando command = clientId < 0 ? null : undoLog.popRedo(clientId);
+        if (command == null) {
+            return ResultadoDeshacer.NOTHING;
+        }
+        int[] promotion = {-1, 0, -1};
+        long sequence;
+        int[] sections = command.getPromotedSection() < 0 ? singleSections[sectionOf(command)]
+                : withSection(singleSections[sectionOf(command)], command.getPromotedSection());
+        for (int fallback : command.getFallbacks()) {
+            sections = withSection(sections, fallback);
+        }
+        int[] locked = lockForRelease(sections);
+        try {
+            sequence = reapply(command, promotion);
+            if (sequence < 0) {
+                return ResultadoDeshacer.CONFLICT;
             }
+            undoLog.pushUndo(new Comando(command.getType(), command.getValue(), command.getClient(), promotion[0],
+                    (byte) promotion[1], promotion[2]));
+        } finally {
+            unlockSections(locked);
         }
+        awaitDurable(sequence);
+        return ResultadoDeshacer.DONE;
     }
 
-    
+    private int sectionOf(Comando command) {
+        return command.getType() == DiarioReservas.WAITLIST_JOIN
+                ? waitlistSection(command.getValue()) : seatInventory.sectionOf(command.getValue());
+    }
 
     /**
-     * Cancela una reserva existente y actualiza los asientos disponibles y las listas de espera.
-     * 
-     * Este método busca una reserva existente para un cliente específico. Si se encuentra,
-     * elimina la reserva, libera el asiento, lo agrega a los disponibles y, si hay clientes
-     * en la lista de espera, asigna el asiento al próximo cliente en la cola.
-     *
-     * @param client Cliente que solicita la cancelación de su reserva.
-     */
-    public void cancelReservation(Cliente client) {
-        // Buscar al cliente en el conjunto de claves del mapa de reservas.
-        Cliente foundClient = reservations.keySet().stream()
-                .filter(c -> c.getName().equals(client.getName()) && c.getEmail().equals(client.getEmail()))
-                .findFirst()
-                .orElse(null); // Si no se encuentra el cliente, devuelve null.
-
-        if (foundClient != null) {
-            // Si se encuentra el cliente, recuperar y eliminar su asiento reservado.
-            Asiento seat = reservations.remove(foundClient); // Elimina la entrada del mapa de reservas.
-            availableSeats.add(seat); // Agregar el asiento de nuevo al conjunto de disponibles.
-            reservationHistory.add(foundClient + " canceled reservation for " + seat); // Registrar la cancelación.
-
-            // Informar que la cancelación fue exitosa.
-            System.out.println("Reservation canceled for " + foundClient + ".");
-
-            // Ofrecer el asiento liberado al próximo cliente en la lista de espera.
-            manageWaitlist(seat);
-        } else {
-            // Informar que no se encontró una reserva para el cliente.
-            System.out.println("No reservation found for " + client + ".");
+     * Aplica el inverso de un comando. Debe llamarse con los candados de `lockForRelease` tomados.
+     *
+     * @param promotion Recibe la promoción que provocó deshacer una reserva (ver `releaseSeat`).
+     * @return Secuencia del último evento escrito en el diario, o -1 si el estado ya no permite deshacerlo.
+     */
+    private long revert(Comando command, int[] promotion) {
+        switch (command.getType()) {
+            case DiarioReservas.RESERVE:
+                return releaseSeat(clients.get(command.getClient()), command.getValue(), promotion);
+            case DiarioReservas.CANCEL:
+                return restoreSeat(command);
+            case DiarioReservas.WAITLIST_JOIN: {
+                if (!waitlistOf(waitlistSection(command.getValue())).remove(clients.get(command.getClient()))) {
+                    return -1;
+                }
+                return recordEvent(DiarioReservas.WAITLIST_LEAVE, command.getValue(), command.getClient());
+            }
+            default:
+                return -1;
         }
     }
 
+    /**
+     * Vuelve a aplicar un comando deshecho. Debe llamarse con los candados de `lockForRelease` tomados.
+     *
+     * @param promotion Recibe la promoción que provocó rehacer una cancelación (ver `releaseSeat`).
+     * @return Secuencia del último evento escrito en el diario, o -1 si el estado ya no permite rehacerlo.
+     */
+    private long reapply(Comando command, int[] promotion) {
+        switch (command.getType()) {
+            case DiarioReservas.RESERVE:
+                return restoreSeat(command);
+            case DiarioReservas.CANCEL:
+                return releaseSeat(clients.get(command.getClient()), command.getValue(), promotion);
+            case DiarioReservas.WAITLIST_JOIN: {
+                int section = waitlistSection(command.getValue());
+                Cliente client = clients.get(command.getClient());
+                if (!waitlistOf(section).add(client, waitlistTier(command.getValue()))) {
+                    return -1;
+                }
+                long sequence = recordEvent(DiarioReservas.WAITLIST_JOIN, command.getValue(), command.getClient());
+                for (int fallback : command.getFallbacks()) {
+                    addFallback(client, section, fallback);
+                    sequence = recordEvent(DiarioReservas.WAITLIST_FALLBACK, fallbackValue(section, fallback),
+                            command.getClient());
+                }
+                return sequence;
+            }
+            default:
+                return -1;
+        }
+    }
 
     /**
-     * Gestiona la lista de espera para una sección específica cuando un asiento queda disponible.
-     * 
-     * Si hay clientes en la lista de espera para la sección del asiento liberado, este método
-     * asigna el asiento al primer cliente en la cola (orden FIFO) y actualiza las estructuras
-     * de datos correspondientes.
+     * Quita un asiento a su dueño, lo devuelve al inventario y lo ofrece con `manageWaitlist`,
+     * registrando la cancelación y la promoción. Es el camino común de cancelar, deshacer una reserva
+     * y rehacer una cancelación. Debe llamarse con los candados de `lockForRelease` tomados.
      *
-     * @param seat Asiento que ha quedado disponible tras una cancelación.
+     * @param client Cliente que debe tener el asiento.
+     * @param promotion Recibe en la posición 0 el identificador del cliente promovido (-1 si nadie
+     *                  esperaba), en la 1 su nivel de prioridad y en la 2 la sección donde esperaba.
+     * @return Secuencia del último evento escrito en el diario, o -1 si el asiento no pertenece al cliente.
      */
-    private void manageWaitlist(Asiento seat) {
-        // Obtener el nombre de la sección del asiento liberado.
-        String section = seat.getSection();
+    private long releaseSeat(Cliente client, int seatIndex, int[] promotion) {
+        Cliente holder = reservations.holderOf(seatIndex);
+        if (!reservations.remove(client, seatIndex)) {
+            return -1;
+        }
+        seatInventory.release(seatIndex); // Devolver el asiento al inventario.
+        long sequence = recordEvent(DiarioReservas.CANCEL, seatIndex, clients.register(holder));
 
-        // Recuperar la lista de espera asociada a la sección.
-        Queue<Cliente> waitlistForSection = waitlistBySection.get(section);
+        // Ofrecer el asiento liberado al próximo cliente que lo espera.
+        int[] source = new int[2];
+        Cliente promotedClient = manageWaitlist(seatIndex, source);
+        promotion[0] = -1;
+        promotion[1] = source[1];
+        promotion[2] = source[0];
+        if (promotedClient != null) {
+            promotion[0] = clients.register(promotedClient);
+            sequence = recordPromotion(seatIndex, promotion[0], source[0]);
+        }
+        return sequence;
+    }
 
-        // Si la lista de espera no está vacía, asignar el asiento al próximo cliente en la cola.
-        if (!waitlistForSection.isEmpty()) {
-            Cliente nextClient = waitlistForSection.poll(); // Quitar al cliente del frente de la cola (FIFO).
-            reservations.put(nextClient, seat); // Asignar el asiento al cliente en el mapa de reservas.
-            availableSeats.remove(seat); // Remover el asiento del conjunto de disponibles.
-            reservationHistory.add(nextClient + " reserved from waitlist for " + seat); // Registrar la acción.
+    /**
+     * Inverso de `releaseSeat`: devuelve el asiento del comando a `getClient()`. Si lo había recibido
+     * `getPromotedClient()` desde una lista de espera, se lo quita y lo devuelve al frente de su nivel
+     * en `getPromotedSection()`; si esa no es la sección del asiento, vuelve a aceptarla como
+     * alternativa (al final de la lista alternativa; las demás alternativas que tenía no se
+     * recuperan). Debe llamarse con los candados de `lockForRelease` tomados.
+     *
+     * @return Secuencia del último evento escrito en el diario, o -1 si el asiento ya cambió de estado.
+     */
+    private long restoreSeat(Comando command) {
+        int seatIndex = command.getValue();
+        long sequence = 0;
+        if (command.getPromotedClient() >= 0) {
+            // Quitar el asiento al cliente promovido y devolverlo al frente de la lista donde esperaba.
+            Cliente promoted = clients.get(command.getPromotedClient());
+            if (!reservations.remove(promoted, seatIndex)) {
+                return -1;
+            }
+            seatInventory.release(seatIndex);
+            int section = seatInventory.sectionOf(seatIndex);
+            int source = command.getPromotedSection();
+            waitlistOf(source).addFirst(promoted, command.getPromotedTier());
+            recordEvent(DiarioReservas.CANCEL, seatIndex, command.getPromotedClient());
+            sequence = recordEvent(DiarioReservas.WAITLIST_FRONT, waitlistValue(source, command.getPromotedTier()),
+                    command.getPromotedClient());
+            if (source != section) {
+                addFallback(promoted, source, section);
+                sequence = recordEvent(DiarioReservas.WAITLIST_FALLBACK, fallbackValue(source, section),
+                        command.getPromotedClient());
+            }
+        }
+        if (!seatInventory.claim(seatIndex)) {
+            return -1;
+        }
+        reservations.add(clients.get(command.getClient()), seatIndex);
+        long reserved = recordEvent(DiarioReservas.RESERVE, seatIndex, command.getClient());
+        return Math.max(sequence, reserved);
+    }
 
-            // Informar que la reserva desde la lista de espera fue exitosa.
-            System.out.println("Waitlist reservation successful for " + nextClient + " in " + section + ".");
+    /**
+     * Gestiona la lista de espera para una sección específica cuando un asiento queda disponible.
+     * 
+     * Asigna el asiento al cliente que devuelve `nextWaiting`: el primero de la lista de espera de la
+     * sección (FIFO dentro de cada nivel) o, si está vacía, el primero de quienes la aceptan como
+     * alternativa. Toda liberación (cancelar, liberar un lote, deshacer, vencer una retención) pasa
+     * por aquí. Debe llamarse con los candados de `lockForRelease` tomados.
+     *
+     * @param seatIndex Índice del asiento, ya devuelto al inventario.
+     * @param source Recibe la sección y el nivel donde esperaba el cliente (ver `nextWaiting`).
+     * @return Cliente que recibió el asiento, o null si nadie lo esperaba.
+     */
+    private Cliente manageWaitlist(int seatIndex, int[] source) {
+        long start = MetricasEstadio.now();
+        Cliente nextClient = nextWaiting(seatInventory.sectionOf(seatIndex), source);
+        if (nextClient != null) {
+            reservations.add(nextClient, seatIndex); // Asignar el asiento al cliente en el índice de reservas.
+            seatInventory.claim(seatIndex); // Marcar el asiento como ocupado en el inventario.
+            metrics.countPromotion();
         }
+        metrics.recordSince(MetricasEstadio.WAITLIST, start);
+        return nextClient;
     }
 
+    /**
+     * Registra la promoción hecha por `manageWaitlist`. Si el cliente esperaba en otra sección,
+     * antes registra que salió de esa lista, porque `PROMOTE` solo lo quita de la lista de la
+     * sección del asiento al recuperar el diario.
+     *
+     * @return Secuencia del último evento escrito en el diario.
+     */
+    private long recordPromotion(int seatIndex, int promotedId, int sourceSection) {
+        if (sourceSection != seatInventory.sectionOf(seatIndex)) {
+            recordEvent(DiarioReservas.WAITLIST_LEAVE, waitlistValue(sourceSection, 0), promotedId);
+        }
+        return recordEvent(DiarioReservas.PROMOTE, seatIndex, promotedId);
+    }
 
     /**
      * Normaliza el nombre de una sección ingresada por el usuario para que sea insensible
      * a mayúsculas y minúsculas.
      * 
      * Este método garantiza que las entradas del usuario se correspondan con los nombres
-     * estándar de las secciones, incluso si se ingresan con un formato diferente.
+     * de las secciones de la distribución, incluso si se ingresan con un formato diferente.
      *
      * @param section Nombre de la sección ingresado por el usuario.
      * @return Nombre normalizado de la sección, o null si la entrada no es válida.
      */
     private String getNormalizedSection(String section) {
-        // Compara el nombre ingresado con los nombres estándar de las secciones, ignorando mayúsculas y minúsculas.
-        if (section.equalsIgnoreCase("Field Level")) return "Field Level"; // Sección "Field Level".
-        if (section.equalsIgnoreCase("Main Level")) return "Main Level";   // Sección "Main Level".
-        if (section.equalsIgnoreCase("Grandstand Level")) return "Grandstand Level"; // Sección "Grandstand Level".
-        return null; // Devuelve null si la entrada no coincide con ninguna sección válida.
+        int sectionId = layout.sectionId(section);
+        return sectionId < 0 ? null : layout.sectionName(sectionId);
     }
 
+    /**
+     * Candado de sección de un estadio confinado a un hilo: no hace nada. El código que toma los
+     * candados queda igual para los dos modos, y la JIT elimina las llamadas vacías.
+     */
+    private static final class SinCandado extends ReentrantLock {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public void lock() {
+        }
+
+        @Override
+        public void unlock() {
+        }
+    }
 }
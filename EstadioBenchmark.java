@@ -0,0 +1,433 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Pruebas de rendimiento para las rutas críticas de `Estadio`: reservar, cancelar, consultar
+ * disponibilidad, promover clientes desde la lista de espera, consultar posiciones en ella,
+ * repartir muchos eventos entre hilos con `GestorEventos` y arrancar un estadio grande desde su distribución.
+ *
+ * Cada escenario prepara un estadio nuevo, ejecuta rondas de calentamiento y luego rondas medidas
+ * con 1 o más hilos. Se reporta el rendimiento (operaciones por segundo) y el tiempo promedio
+ * por operación de la mejor ronda y el promedio de las rondas.
+ *
+ * Uso:
+ * <pre>
+ * javac -encoding UTF-8 -d out *.java
+ * java -cp out EstadioBenchmark --seats=100000 --reservations=10000,100000,1000000 --threads=1,4
+ * </pre>
+ * Con Gradle: `gradle benchmark -Pargs="--seats=100000 --threads=1,4"`.
+ *
+ * Opciones (todas opcionales):
+ * - `--seats=N`: Asientos por sección para los escenarios de reserva y disponibilidad (por defecto 100000).
+ * - `--reservations=A,B,...`: Reservas existentes para el escenario de cancelación (por defecto 10000,100000,1000000).
+ * - `--waitlist=N`: Clientes en lista de espera para el escenario de promoción (por defecto 100000).
+ * - `--threads=A,B,...`: Cantidad de hilos a probar (por defecto 1 y la cantidad de procesadores).
+ * - `--warmup=N` y `--rounds=N`: Rondas de calentamiento y medidas (por defecto 3 y 5).
+ */
+public class EstadioBenchmark {
+    private static final String[] SECTIONS = {"Field Level", "Main Level", "Grandstand Level"};
+
+    private final int seats;
+    private final int[] reservationCounts;
+    private final int waitlistSize;
+    private final int[] threadCounts;
+    private final int warmupRounds;
+    private final int measuredRounds;
+
+    public EstadioBenchmark(int seats, int[] reservationCounts, int waitlistSize, int[] threadCounts,
+                            int warmupRounds, int measuredRounds) {
+        this.seats = seats;
+        this.reservationCounts = reservationCounts;
+        this.waitlistSize = waitlistSize;
+        this.threadCounts = threadCounts;
+        this.warmupRounds = warmupRounds;
+        this.measuredRounds = measuredRounds;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (!arg.startsWith("--") || equals < 0) {
+                System.out.println("Opción no válida: " + arg);
+                return;
+            }
+            options.put(arg.substring(2, equals), arg.substring(equals + 1));
+        }
+
+        int processors = Runtime.getRuntime().availableProcessors();
+        EstadioBenchmark benchmark = new EstadioBenchmark(
+                Integer.parseInt(options.getOrDefault("seats", "100000")),
+                parseList(options.getOrDefault("reservations", "10000,100000,1000000")),
+                Integer.parseInt(options.getOrDefault("waitlist", "100000")),
+                parseList(options.getOrDefault("threads", processors > 1 ? "1," + processors : "1")),
+                Integer.parseInt(options.getOrDefault("warmup", "3")),
+                Integer.parseInt(options.getOrDefault("rounds", "5")));
+        benchmark.runAll();
+    }
+
+    /**
+     * Ejecuta todos los escenarios con cada cantidad de hilos configurada.
+     */
+    public void runAll() throws Exception {
+        System.out.printf("%-40s %8s %14s %12s %14s%n", "Escenario", "Hilos", "Mejor ops/s", "Mejor ns/op", "Promedio ops/s");
+        for (int threads : threadCounts) {
+            run("reserveSeat (estadio vacío)", threads, this::reserveEmpty);
+            run("reserveSeat (estadio casi lleno)", threads, this::reserveNearFull);
+            run("reserveBatch (100 por bloque)", threads, this::reserveBatch);
+            for (int count : reservationCounts) {
+                run("cancelReservation (" + count + " reservas)", threads, (t, r) -> cancelWithExisting(t, r, count));
+            }
+            run("getAvailableSeatsInSection", threads, this::availability);
+            run("manageWaitlist (promoción)", threads, this::waitlistPromotion);
+            run("getWaitlistPosition (" + waitlistSize + " en espera)", threads, this::waitlistPosition);
+            run("holdSeat + releaseHold", threads, this::holdAndRelease);
+            run("GestorEventos (4 eventos por hilo)", threads, this::multiEvent);
+            run("new Estadio (400 secciones, 100k asientos)", threads, this::venueStartup);
+        }
+    }
+
+    /**
+     * Un escenario prepara un estadio nuevo y devuelve la ronda de operaciones a medir.
+     */
+    private interface Scenario {
+        Round prepare(int threads, int round);
+    }
+
+    /**
+     * Una ronda preparada: `work` se ejecuta una vez por hilo con el número de hilo, y `cleanup`
+     * una vez al final, fuera de la medición.
+     */
+    private static final class Round {
+        private final long operations;
+        private final Worker work;
+        private final Runnable cleanup;
+
+        Round(long operations, Worker work) {
+            this(operations, work, () -> { });
+        }
+
+        Round(long operations, Worker work, Runnable cleanup) {
+            this.operations = operations;
+            this.work = work;
+            this.cleanup = cleanup;
+        }
+    }
+
+    private interface Worker {
+        void run(int thread);
+    }
+
+    private void run(String name, int threads, Scenario scenario) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int i = 0; i < warmupRounds; i++) {
+                execute(executor, threads, scenario.prepare(threads, i));
+            }
+            double best = 0;
+            double total = 0;
+            for (int i = 0; i < measuredRounds; i++) {
+                double opsPerSecond = execute(executor, threads, scenario.prepare(threads, warmupRounds + i));
+                best = Math.max(best, opsPerSecond);
+                total += opsPerSecond;
+            }
+            System.out.printf("%-40s %8d %,14.0f %,12.1f %,14.0f%n",
+                    name, threads, best, 1e9 / best, total / measuredRounds);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Ejecuta una ronda en todos los hilos a la vez y devuelve las operaciones por segundo.
+     */
+    private double execute(ExecutorService executor, int threads, Round round) throws Exception {
+        CountDownLatch ready = new CountDownLatch(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                ready.countDown();
+                start.await();
+                round.work.run(thread);
+                return null;
+            }));
+        }
+        ready.await();
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsed = System.nanoTime() - begin;
+        round.cleanup.run();
+        return round.operations * 1e9 / elapsed;
+    }
+
+    /**
+     * Reserva todos los asientos de un estadio vacío. Los hilos se reparten entre las secciones.
+     */
+    private Round reserveEmpty(int threads, int round) {
+        Estadio estadio = new Estadio(seats, seats, seats);
+        Cliente[] clients = clients(round, seats);
+        int perThread = seats / threads;
+        return new Round((long) perThread * threads, thread -> {
+            String section = SECTIONS[thread % SECTIONS.length];
+            int offset = thread * perThread;
+            for (int i = 0; i < perThread; i++) {
+                estadio.reserveSeat(clients[offset + i], section);
+            }
+        });
+    }
+
+    /**
+     * Reserva todos los asientos de un estadio vacío en bloques de 100 con `reserveBatch`.
+     * Las operaciones se cuentan por asiento para comparar con `reserveEmpty`.
+     */
+    private Round reserveBatch(int threads, int round) {
+        Estadio estadio = new Estadio(seats, seats, seats);
+        Cliente[] clients = clients(round, seats / 100);
+        int perThread = clients.length / threads;
+        return new Round((long) perThread * threads * 100, thread -> {
+            String section = SECTIONS[thread % SECTIONS.length];
+            List<SolicitudReserva> requests = new ArrayList<>(perThread);
+            for (int i = 0; i < perThread; i++) {
+                requests.add(new SolicitudReserva(clients[thread * perThread + i], section, 100));
+            }
+            estadio.reserveBatch(requests);
+        });
+    }
+
+    /**
+     * Con cada sección llena salvo sus últimos asientos, reserva y cancela repetidamente.
+     * Mide el costo de encontrar un asiento libre cuando casi todo está ocupado.
+     */
+    private Round reserveNearFull(int threads, int round) {
+        Estadio estadio = new Estadio(seats, seats, seats);
+        Cliente filler = new Cliente("Relleno", "relleno@bench", "0");
+        int free = Math.max(threads, seats / 1000);
+        for (String section : SECTIONS) {
+            for (int i = 0; i < seats - free; i++) {
+                estadio.reserveSeat(filler, section);
+            }
+        }
+        Cliente[] clients = clients(round, threads);
+        int operations = Math.max(1000, seats / 10);
+        return new Round((long) operations * threads, thread -> {
+            String section = SECTIONS[thread % SECTIONS.length];
+            Cliente client = clients[thread];
+            for (int i = 0; i < operations; i++) {
+                Asiento seat = estadio.reserveSeat(client, section);
+                if (seat != null) {
+                    estadio.cancelReservation(client, seat);
+                }
+            }
+        });
+    }
+
+    /**
+     * Con `existing` reservas en el estadio, cancela un subconjunto de ellas.
+     */
+    private Round cancelWithExisting(int threads, int round, int existing) {
+        int perSection = (existing + SECTIONS.length - 1) / SECTIONS.length;
+        Estadio estadio = new Estadio(perSection, perSection, perSection);
+        Cliente[] clients = clients(round, existing);
+        Asiento[] seatsHeld = new Asiento[existing];
+        for (int i = 0; i < existing; i++) {
+            seatsHeld[i] = estadio.reserveSeat(clients[i], SECTIONS[i % SECTIONS.length]);
+        }
+        int perThread = Math.min(existing, 100000) / threads;
+        int stride = existing / (perThread * threads);
+        return new Round((long) perThread * threads, thread -> {
+            for (int i = 0; i < perThread; i++) {
+                int index = (thread * perThread + i) * stride;
+                estadio.cancelReservation(clients[index], seatsHeld[index]);
+            }
+        });
+    }
+
+    /**
+     * Consulta la disponibilidad de las secciones mientras el estadio está a medio llenar.
+     */
+    private Round availability(int threads, int round) {
+        Estadio estadio = new Estadio(seats, seats, seats);
+        Cliente filler = new Cliente("Relleno", "relleno@bench", "0");
+        for (String section : SECTIONS) {
+            for (int i = 0; i < seats / 2; i++) {
+                estadio.reserveSeat(filler, section);
+            }
+        }
+        int operations = 1_000_000;
+        return new Round((long) operations * threads, thread -> {
+            long sink = 0;
+            for (int i = 0; i < operations; i++) {
+                sink += estadio.getAvailableSeatsInSection(SECTIONS[i % SECTIONS.length]);
+            }
+            if (sink < 0) {
+                System.out.println(sink); // Evita que el JIT elimine el ciclo.
+            }
+        });
+    }
+
+    /**
+     * Con una sección llena y `waitlistSize` clientes en espera, cada cancelación libera un asiento
+     * que `manageWaitlist` asigna al siguiente cliente de la cola.
+     */
+    private Round waitlistPromotion(int threads, int round) {
+        int sectionSeats = Math.max(waitlistSize, threads);
+        Estadio estadio = new Estadio(sectionSeats, 1, 1);
+        Cliente[] holders = clients(round, sectionSeats);
+        Asiento[] seatsHeld = new Asiento[sectionSeats];
+        for (int i = 0; i < sectionSeats; i++) {
+            seatsHeld[i] = estadio.reserveSeat(holders[i], "Field Level");
+        }
+        for (Cliente waiting : clients(round + 1_000_000, waitlistSize)) {
+            estadio.joinWaitlist(waiting, "Field Level");
+        }
+        int perThread = Math.min(waitlistSize, sectionSeats) / threads;
+        return new Round((long) perThread * threads, thread -> {
+            for (int i = 0; i < perThread; i++) {
+                int index = thread * perThread + i;
+                estadio.cancelReservation(holders[index], seatsHeld[index]);
+            }
+        });
+    }
+
+    /**
+     * Con `waitlistSize` clientes en la lista de espera de una sección llena (un tercio de ellos
+     * abonados), consulta posiciones mientras algunos clientes dejan la fila.
+     */
+    private Round waitlistPosition(int threads, int round) {
+        Estadio estadio = new Estadio(1, 1, 1);
+        estadio.reserveSeat(new Cliente("Relleno", "relleno@bench", "0"), "Field Level");
+        Cliente[] waiting = clients(round, waitlistSize);
+        for (int i = 0; i < waiting.length; i++) {
+            estadio.joinWaitlist(waiting[i], "Field Level",
+                    i % 3 == 0 ? PrioridadEspera.SEASON_TICKET : PrioridadEspera.GENERAL);
+        }
+        int operations = Math.max(1000, waitlistSize / 10);
+        return new Round((long) operations * threads, thread -> {
+            long sink = 0;
+            for (int i = 0; i < operations; i++) {
+                int index = (int) ((i * 7919L + thread * 104729L) % waiting.length);
+                if (i % 10 == 0) {
+                    estadio.leaveWaitlist(waiting[index], "Field Level");
+                } else {
+                    sink += estadio.getWaitlistPosition(waiting[index], "Field Level");
+                }
+            }
+            if (sink == Long.MIN_VALUE) {
+                System.out.println(sink); // Evita que el JIT elimine el ciclo.
+            }
+        });
+    }
+
+    /**
+     * Retiene todos los asientos de un estadio vacío y luego libera cada retención. Cada retención
+     * arma un temporizador en la rueda de su sección y cada liberación lo cancela.
+     */
+    private Round holdAndRelease(int threads, int round) {
+        Estadio estadio = new Estadio(seats, seats, seats);
+        Cliente[] clients = clients(round, seats);
+        int perThread = seats / threads;
+        return new Round(2L * perThread * threads, thread -> {
+            String section = SECTIONS[thread % SECTIONS.length];
+            int offset = thread * perThread;
+            Asiento[] held = new Asiento[perThread];
+            for (int i = 0; i < perThread; i++) {
+                held[i] = estadio.holdSeat(clients[offset + i], section, 600_000);
+            }
+            for (int i = 0; i < perThread; i++) {
+                estadio.releaseHold(clients[offset + i], held[i]);
+            }
+        });
+    }
+
+    /**
+     * Reserva todos los asientos de `4 × hilos` eventos alojados en un `GestorEventos` con un hilo
+     * de trabajo por hilo de prueba. Cada hilo de prueba envía las reservas de los eventos de un
+     * hilo de trabajo y espera la última de cada evento; como cada evento tiene un solo escritor,
+     * el rendimiento debería crecer con los hilos.
+     */
+    private Round multiEvent(int threads, int round) {
+        GestorEventos manager = new GestorEventos(threads);
+        int eventSeats = Math.max(1, seats / 10);
+        List<String> eventIds = new ArrayList<>();
+        for (int event = 0; event < threads * 4; event++) {
+            String id = "evento-" + event;
+            manager.createEvent(id, DistribucionEstadio.standard(eventSeats, eventSeats, eventSeats));
+            eventIds.add(id);
+        }
+        Cliente[] clients = clients(round, eventSeats);
+        return new Round((long) eventIds.size() * SECTIONS.length * eventSeats, thread -> {
+            List<CompletableFuture<Asiento>> last = new ArrayList<>();
+            for (String id : eventIds) {
+                if (manager.workerOf(id) != thread) {
+                    continue;
+                }
+                CompletableFuture<Asiento> seat = null;
+                for (String section : SECTIONS) {
+                    for (Cliente client : clients) {
+                        seat = manager.submit(id, estadio -> estadio.reserveSeat(client, section));
+                    }
+                }
+                last.add(seat);
+            }
+            for (CompletableFuture<Asiento> seat : last) {
+                seat.join(); // Cada hilo de trabajo atiende sus eventos en orden: la última reserva termina al final.
+            }
+        }, () -> {
+            try {
+                manager.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Interpreta una distribución de 400 secciones de 10 filas de 25 asientos (100.000 asientos)
+     * y crea el estadio. Cada hilo arma su propio estadio; ns/op es el tiempo de arranque.
+     */
+    private Round venueStartup(int threads, int round) {
+        List<String> lines = new ArrayList<>();
+        lines.add("tier lower 150");
+        lines.add("tier upper 60");
+        for (int section = 0; section < 400; section++) {
+            lines.add("section Section " + (100 + section) + " | " + (section < 200 ? "lower" : "upper"));
+            lines.add("rows 1-10 seats 1-25");
+        }
+        return new Round(threads, thread -> {
+            Estadio estadio = new Estadio(DistribucionEstadio.parse(lines));
+            if (estadio.getAvailableSeatsInSection("Section 499") != 250) {
+                throw new IllegalStateException("Distribución incompleta.");
+            }
+        });
+    }
+
+    /**
+     * Crea clientes con emails distintos por ronda para que el índice de reservas no los combine.
+     */
+    private static Cliente[] clients(int round, int count) {
+        Cliente[] clients = new Cliente[count];
+        for (int i = 0; i < count; i++) {
+            clients[i] = new Cliente("Cliente " + i, "r" + round + "c" + i + "@bench", "000");
+        }
+        return clients;
+    }
+
+    private static int[] parseList(String value) {
+        return Arrays.stream(value.split(",")).map(String::trim).mapToInt(Integer::parseInt).toArray();
+    }
+}
@@ -0,0 +1,20 @@
+/**
+ * Estados de un asiento del estadio.
+ */
+public enum EstadoAsiento {
+    /**
+     * Libre en el inventario.
+     */
+    AVAILABLE,
+
+    /**
+     * Retenido por un comprador mientras paga; vuelve al inventario si la retención vence
+     * (ver `Estadio.holdSeat`).
+     */
+    HELD,
+
+    /**
+     * Reservado por un cliente.
+     */
+    RESERVED
+}
@@ -0,0 +1,192 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Generador de carga local para `ServidorReservas`. Simula la apertura de ventas: cada comprador
+ * concurrente repite en ciclo cerrado (espera la respuesta antes de la siguiente solicitud) una
+ * mezcla de reservas, consultas de disponibilidad, entradas a la lista de espera y cancelaciones.
+ *
+ * Por cada cantidad de compradores reporta solicitudes por segundo y la latencia p50, p99, p999 y
+ * máxima, para estimar cuántos compradores concurrentes aguanta un nodo.
+ *
+ * Uso:
+ * <pre>
+ * java -cp out GeneradorCarga --buyers=16,64,256 --requests=200000
+ * java -cp out GeneradorCarga --url=http://localhost:8080 --buyers=64
+ * </pre>
+ *
+ * Opciones (todas opcionales):
+ * - `--url=U`: Servidor a probar. Sin esta opción se levanta un servidor local en memoria por cada ronda.
+ * - `--buyers=A,B,...`: Compradores concurrentes a probar (por defecto 16,64,256).
+ * - `--requests=N`: Solicitudes medidas por ronda (por defecto 100000).
+ * - `--warmup=N`: Solicitudes de calentamiento por ronda (por defecto 20000).
+ * - `--seats=N`: Asientos por sección del servidor local (por defecto 20000).
+ * - `--seed=N`: Semilla de la mezcla de solicitudes (por defecto 42).
+ */
+public class GeneradorCarga {
+    private static final String[] SECTIONS = {"Field Level", "Main Level", "Grandstand Level"};
+
+    private final String url;
+    private final int[] buyerCounts;
+    private final int requests;
+    private final int warmup;
+    private final int seats;
+    private final long seed;
+    private final HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    public GeneradorCarga(String url, int[] buyerCounts, int requests, int warmup, int seats, long seed) {
+        this.url = url;
+        this.buyerCounts = buyerCounts;
+        this.requests = requests;
+        this.warmup = warmup;
+        this.seats = seats;
+        this.seed = seed;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (!arg.startsWith("--") || equals < 0) {
+                System.out.println("Opción no válida: " + arg);
+                return;
+            }
+            options.put(arg.substring(2, equals), arg.substring(equals + 1));
+        }
+
+        GeneradorCarga generator = new GeneradorCarga(
+                options.get("url"),
+                Arrays.stream(options.getOrDefault("buyers", "16,64,256").split(",")).map(String::trim)
+                        .mapToInt(Integer::parseInt).toArray(),
+                Integer.parseInt(options.getOrDefault("requests", "100000")),
+                Integer.parseInt(options.getOrDefault("warmup", "20000")),
+                Integer.parseInt(options.getOrDefault("seats", "20000")),
+                Long.parseLong(options.getOrDefault("seed", "42")));
+        generator.runAll();
+    }
+
+    /**
+     * Ejecuta una ronda por cada cantidad de compradores configurada.
+     */
+    public void runAll() throws Exception {
+        System.out.printf("%10s %12s %10s %10s %10s %10s %8s %8s %8s%n",
+                "Compradores", "Solic/s", "p50 ms", "p99 ms", "p999 ms", "máx ms", "2xx", "409", "otros");
+        for (int buyers : buyerCounts) {
+            if (url != null) {
+                run(url, buyers);
+                continue;
+            }
+            // Un estadio nuevo por ronda, para que todas empiecen con la sección vacía.
+            Estadio estadio = new Estadio(seats, seats, seats);
+            ServidorReservas server = new ServidorReservas(new ServicioEstadio(estadio, Runnable::run), 0);
+            server.start();
+            try {
+                run("http://localhost:" + server.getPort(), buyers);
+            } finally {
+                server.stop();
+            }
+        }
+    }
+
+    private void run(String baseUrl, int buyers) throws Exception {
+        execute(baseUrl, buyers, warmup, null, new AtomicLongArray(3));
+
+        long[] latencies = new long[requests];
+        AtomicLongArray statuses = new AtomicLongArray(3); // 2xx, 409 y otros.
+        long begin = System.nanoTime();
+        execute(baseUrl, buyers, requests, latencies, statuses);
+        long elapsed = System.nanoTime() - begin;
+
+        Arrays.sort(latencies);
+        System.out.printf("%10d %,12.0f %10.2f %10.2f %10.2f %10.2f %8d %8d %8d%n",
+                buyers, requests * 1e9 / elapsed,
+                percentile(latencies, 0.50), percentile(latencies, 0.99), percentile(latencies, 0.999),
+                latencies[latencies.length - 1] / 1e6,
+                statuses.get(0), statuses.get(1), statuses.get(2));
+    }
+
+    /**
+     * Lanza `buyers` hilos que se reparten `total` solicitudes. Cada hilo escribe sus latencias en
+     * su propio tramo de `latencies` (si no es null), sin sincronización.
+     */
+    private void execute(String baseUrl, int buyers, int total, long[] latencies, AtomicLongArray statuses)
+            throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(buyers);
+        for (int b = 0; b < buyers; b++) {
+            int buyer = b;
+            int from = (int) ((long) total * b / buyers);
+            int to = (int) ((long) total * (b + 1) / buyers);
+            Thread thread = new Thread(() -> {
+                Random random = new Random(seed * 31 + buyer);
+                try {
+                    start.await();
+                    for (int i = from; i < to; i++) {
+                        HttpRequest request = nextRequest(baseUrl, random, buyer, i);
+                        long sent = System.nanoTime();
+                        int status = http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                        long latency = System.nanoTime() - sent;
+                        if (latencies != null) {
+                            latencies[i] = latency;
+                        }
+                        statuses.incrementAndGet(status / 100 == 2 ? 0 : status == 409 ? 1 : 2);
+                    }
+                } catch (Exception e) {
+                    System.out.println("Error del comprador " + buyer + ": " + e);
+                } finally {
+                    done.countDown();
+                }
+            }, "comprador-" + buyer);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        start.countDown();
+        done.await();
+    }
+
+    /**
+     * Mezcla de apertura de ventas: 70% reservas, 15% disponibilidad, 10% lista de espera y 5% cancelaciones.
+     */
+    private HttpRequest nextRequest(String baseUrl, Random random, int buyer, int index) {
+        String section = SECTIONS[random.nextInt(SECTIONS.length)];
+        String email = "b" + buyer + "n" + random.nextInt(1000) + "@carga";
+        int kind = random.nextInt(100);
+        if (kind < 70) {
+            return post(baseUrl + "/reservas", client(email, section));
+        } else if (kind < 85) {
+            return HttpRequest.newBuilder(URI.create(baseUrl + "/disponibilidad")).GET().build();
+        } else if (kind < 95) {
+            return post(baseUrl + "/espera", client(email, section));
+        } else {
+            return HttpRequest.newBuilder(URI.create(baseUrl + "/reservas?email=" + email)).DELETE().build();
+        }
+    }
+
+    private static String client(String email, String section) {
+        return "{\"name\":\"Comprador\",\"email\":" + ServidorReservas.quote(email)
+                + ",\"phone\":\"000\",\"section\":" + ServidorReservas.quote(section) + "}";
+    }
+
+    private static HttpRequest post(String url, String json) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    /**
+     * @return Latencia en milisegundos del percentil pedido de un arreglo ordenado de nanosegundos.
+     */
+    private static double percentile(long[] sorted, double fraction) {
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(fraction * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+}
@@ -0,0 +1,257 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * La clase `GestorEventos` aloja muchos eventos (partidos) independientes, cada uno con su propio
+ * `Estadio`, y reparte su trabajo entre un grupo fijo de hilos.
+ *
+ * - Cada evento queda asignado a un solo hilo al crearse (el que tiene menos eventos), y todas
+ *   sus operaciones se ejecutan en ese hilo, en orden. Así cada `Estadio` tiene un solo hilo de
+ *   solicitudes, y eventos asignados a hilos distintos avanzan en paralelo sin compartir estructuras.
+ * - El `Estadio` de cada evento está confinado a su hilo: las instantáneas y los vencimientos de
+ *   retenciones se programan en el mismo hilo, el diario se escribe ahí y los candados de sección
+ *   no se toman. Con miles de eventos no hay miles de hilos.
+ * - `event` devuelve el `ServicioReservas` de un evento, que ya ejecuta en el hilo del evento.
+ * - Las consultas de un cliente sobre todos los eventos (`ticketsOf`) se envían a cada evento
+ *   y los resultados se combinan cuando todos responden.
+ *
+ * Un evento persistente espera su fsync en su hilo, así que los eventos que comparten hilo
+ * también comparten esa espera, y también la de las instantáneas de los demás.
+ */
+public class GestorEventos {
+    private final ScheduledExecutorService[] workers;
+    private final int[] eventsPerWorker; // Eventos asignados a cada hilo; protegido por `this`.
+    private final Map<String, Evento> events = new ConcurrentHashMap<>();
+
+    /**
+     * @param workerCount Cantidad de hilos; normalmente la cantidad de procesadores.
+     */
+    public GestorEventos(int workerCount) {
+        workers = new ScheduledExecutorService[workerCount];
+        eventsPerWorker = new int[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            String name = "eventos-" + i;
+            workers[i] = Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread thread = new Thread(task, name);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Crea un evento en memoria.
+     *
+     * @param eventId Identificador del evento (por ejemplo, la fecha y el rival).
+     * @param layout Distribución del estadio para el evento.
+     * @return Servicio del evento.
+     * @throws IllegalArgumentException Si ya existe un evento con ese identificador.
+     */
+    public synchronized ServicioReservas createEvent(String eventId, DistribucionEstadio layout) {
+        checkNew(eventId);
+        int worker = leastLoadedWorker();
+        return register(eventId, new Estadio(layout, workers[worker]), worker);
+    }
+
+    /**
+     * Crea o recupera un evento persistente, con su diario e instantáneas en `dataDirectory/eventId`.
+     * Se sincroniza para que dos llamadas con el mismo evento no abran el mismo diario.
+     *
+     * @throws IllegalArgumentException Si ya existe un evento con ese identificador.
+     */
+    public synchronized ServicioReservas openEvent(String eventId, DistribucionEstadio layout, Path dataDirectory) throws IOException {
+        checkNew(eventId);
+        int worker = leastLoadedWorker();
+        return register(eventId, Estadio.open(layout, dataDirectory.resolve(eventId), workers[worker]), worker);
+    }
+
+    private void checkNew(String eventId) {
+        if (events.containsKey(eventId)) {
+            throw new IllegalArgumentException("El evento ya existe: " + eventId);
+        }
+    }
+
+    /**
+     * @return El hilo con menos eventos. Debe llamarse sincronizado.
+     */
+    private int leastLoadedWorker() {
+        int worker = 0;
+        for (int i = 1; i < workers.length; i++) {
+            if (eventsPerWorker[i] < eventsPerWorker[worker]) {
+                worker = i;
+            }
+        }
+        return worker;
+    }
+
+    /**
+     * Publica un evento ya creado para su hilo. Debe llamarse sincronizado, después de `checkNew`.
+     */
+    private ServicioReservas register(String eventId, Estadio estadio, int worker) {
+        eventsPerWorker[worker]++;
+        Evento event = new Evento(estadio, worker, new ServicioEstadio(estadio, workers[worker]));
+        events.put(eventId, event);
+        return event.service;
+    }
+
+    /**
+     * @return Servicio del evento, o null si no existe.
+     */
+    public ServicioReservas event(String eventId) {
+        Evento event = events.get(eventId);
+        return event == null ? null : event.service;
+    }
+
+    /**
+     * Ejecuta una operación sobre el `Estadio` de un evento en el hilo del evento, para lo que
+     * `ServicioReservas` no cubre (por ejemplo, reservas en lote o asientos juntos).
+     *
+     * @return Resultado de la operación; falla con `IllegalArgumentException` si el evento no existe.
+     */
+    public <T> CompletableFuture<T> submit(String eventId, Function<Estadio, T> operation) {
+        Evento event = events.get(eventId);
+        if (event == null) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Evento desconocido: " + eventId));
+        }
+        return CompletableFuture.supplyAsync(() -> operation.apply(event.estadio), workers[event.worker]);
+    }
+
+    /**
+     * @return Identificadores de los eventos, en orden alfabético.
+     */
+    public List<String> eventIds() {
+        List<String> ids = new ArrayList<>(events.keySet());
+        ids.sort(null);
+        return ids;
+    }
+
+    /**
+     * @return Hilo asignado al evento, o -1 si no existe.
+     */
+    public int workerOf(String eventId) {
+        Evento event = events.get(eventId);
+        return event == null ? -1 : event.worker;
+    }
+
+    /**
+     * Asientos de un cliente en todos los eventos. Cada evento responde en su propio hilo y los
+     * resultados se combinan cuando todos terminan.
+     *
+     * @param client Cliente a consultar (se compara por email normalizado).
+     * @return Asientos del cliente por evento, en orden de evento; solo los eventos donde tiene asientos.
+     */
+    public CompletableFuture<Map<String, List<Asiento>>> ticketsOf(Cliente client) {
+        return fanOut(service -> service.reservedSeats(client));
+    }
+
+    /**
+     * @return Disponibilidad de cada evento, en orden de evento.
+     */
+    public CompletableFuture<Map<String, List<DisponibilidadSeccion>>> availability() {
+        return fanOut(ServicioReservas::availability);
+    }
+
+    /**
+     * Envía una consulta a todos los eventos y junta las respuestas que no están vacías.
+     */
+    private <T> CompletableFuture<Map<String, List<T>>> fanOut(
+            Function<ServicioReservas, CompletableFuture<List<T>>> query) {
+        List<String> ids = new ArrayList<>();
+        List<CompletableFuture<List<T>>> futures = new ArrayList<>();
+        for (Map.Entry<String, Evento> entry : events.entrySet()) {
+            ids.add(entry.getKey());
+            futures.add(query.apply(entry.getValue().service));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).thenApply(ignored -> {
+            Map<String, List<T>> merged = new TreeMap<>();
+            for (int i = 0; i < ids.size(); i++) {
+                List<T> result = futures.get(i).join();
+                if (!result.isEmpty()) {
+                    merged.put(ids.get(i), result);
+                }
+            }
+            return merged;
+        });
+    }
+
+    /**
+     * Cierra un evento después de que terminen sus operaciones pendientes y lo quita del gestor.
+     *
+     * @return true si el evento existía.
+     */
+    public boolean closeEvent(String eventId) throws IOException {
+        Evento event;
+        synchronized (this) {
+            event = events.remove(eventId);
+            if (event == null) {
+                return false;
+            }
+            eventsPerWorker[event.worker]--;
+        }
+        // El estadio se cierra en su hilo, después de las operaciones ya encoladas y sin que corra a la
+        // vez una instantánea o un vencimiento programado.
+        try {
+            CompletableFuture.runAsync(() -> {
+                try {
+                    event.estadio.close();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, workers[event.worker]).join();
+        } catch (RejectedExecutionException e) {
+            // El gestor ya se cerró y sus hilos terminaron: nada más toca el estadio.
+            event.estadio.close();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw e;
+        }
+        return true;
+    }
+
+    /**
+     * Espera las operaciones pendientes, detiene los hilos y cierra todos los eventos.
+     */
+    public void close() throws IOException {
+        for (ScheduledExecutorService worker : workers) {
+            worker.shutdown();
+        }
+        for (ScheduledExecutorService worker : workers) {
+            try {
+                worker.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        for (Evento event : events.values()) {
+            event.estadio.close();
+        }
+        events.clear();
+    }
+
+    private static final class Evento {
+        private final Estadio estadio;
+        private final int worker; // Índice del hilo que ejecuta todas las operaciones del evento.
+        private final ServicioReservas service;
+
+        Evento(Estadio estadio, int worker, ServicioReservas service) {
+            this.estadio = estadio;
+            this.worker = worker;
+            this.service = service;
+        }
+    }
+}
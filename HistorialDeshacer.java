@@ -0,0 +1,138 @@
+import java.util.Arrays;
+
+/**
+ * La clase `HistorialDeshacer` guarda las acciones que cada cliente puede deshacer y rehacer.
+ *
+ * Estructuras de datos utilizadas:
+ * - Un buffer circular de arreglos primitivos (`byte[]`, `int[]` y `long[]`) compartido por todos
+ *   los clientes. Cada acción recibe un número de serie creciente y ocupa la casilla
+ *   `serie % depth`; cuando el buffer está lleno, la acción más antigua se sobrescribe, así la
+ *   memoria queda acotada durante una venta larga. Registrar una acción no crea objetos.
+ * - Por cliente (índice = identificador de `RegistroClientes`), la serie de la última acción de su
+ *   pila de deshacer y de su pila de rehacer. Cada acción guarda la serie de la anterior del mismo
+ *   cliente en la misma pila, de modo que las pilas son listas enlazadas dentro del buffer.
+ *   Una serie cuya casilla ya fue sobrescrita marca el fondo de la pila.
+ *
+ * Deshacer solo afecta las acciones del cliente que lo pide, aunque otros clientes hayan actuado
+ * después. Registrar una acción nueva vacía la pila de rehacer de ese cliente, como en cualquier editor.
+ */
+public class HistorialDeshacer {
+    private static final long NONE = -1;
+
+    private final byte[] types;
+    private final int[] values;
+    private final int[] clients;
+    private final int[] promotedClients;
+    private final byte[] promotedTiers;
+    private final int[] promotedSections;
+    private final int[][] fallbacks; // Alternativas de una entrada a la lista de espera deshecha; null si no tenía.
+    private final long[] serials;   // Serie de la acción en cada casilla; NONE si ya se sacó de su pila.
+    private final long[] previous;  // Serie de la acción anterior del mismo cliente y la misma pila.
+    private long nextSerial;
+    private long[] undoTops = new long[0]; // Por cliente, serie del tope de su pila de deshacer.
+    private long[] redoTops = new long[0];
+
+    /**
+     * @param depth Cantidad máxima de acciones que se recuerdan, entre todos los clientes y ambas pilas.
+     */
+    public HistorialDeshacer(int depth) {
+        types = new byte[depth];
+        values = new int[depth];
+        clients = new int[depth];
+        promotedClients = new int[depth];
+        promotedTiers = new byte[depth];
+        promotedSections = new int[depth];
+        fallbacks = new int[depth][];
+        serials = new long[depth];
+        previous = new long[depth];
+        Arrays.fill(serials, NONE);
+    }
+
+    /**
+     * Registra una acción nueva del cliente y descarta lo que ese cliente podía rehacer.
+     */
+    public synchronized void record(byte type, int value, int client, int promotedClient, byte promotedTier,
+            int promotedSection) {
+        ensureClient(client);
+        push(undoTops, type, value, client, promotedClient, promotedTier, promotedSection, null);
+        redoTops[client] = NONE;
+    }
+
+    /**
+     * @return La última acción registrada o rehecha del cliente, o null si no tiene nada que deshacer.
+     */
+    public synchronized Comando popUndo(int client) {
+        return pop(undoTops, client);
+    }
+
+    /**
+     * @return La última acción deshecha del cliente, o null si no tiene nada que rehacer.
+     */
+    public synchronized Comando popRedo(int client) {
+        return pop(redoTops, client);
+    }
+
+    /**
+     * Guarda una acción rehecha para poder deshacerla otra vez, sin vaciar la pila de rehacer.
+     */
+    public synchronized void pushUndo(Comando command) {
+        ensureClient(command.getClient());
+        push(undoTops, command.getType(), command.getValue(), command.getClient(), command.getPromotedClient(),
+                command.getPromotedTier(), command.getPromotedSection(), null);
+    }
+
+    /**
+     * Guarda una acción deshecha para poder rehacerla.
+     */
+    public synchronized void pushRedo(Comando command) {
+        ensureClient(command.getClient());
+        push(redoTops, command.getType(), command.getValue(), command.getClient(), command.getPromotedClient(),
+                command.getPromotedTier(), command.getPromotedSection(),
+                command.getFallbacks().length == 0 ? null : command.getFallbacks());
+    }
+
+    private void push(long[] tops, byte type, int value, int client, int promotedClient, byte promotedTier,
+            int promotedSection, int[] sections) {
+        long serial = nextSerial++;
+        int slot = (int) (serial % types.length); // Si estaba lleno, se pierde la acción más antigua.
+        types[slot] = type;
+        values[slot] = value;
+        clients[slot] = client;
+        promotedClients[slot] = promotedClient;
+        promotedTiers[slot] = promotedTier;
+        promotedSections[slot] = promotedSection;
+        fallbacks[slot] = sections;
+        serials[slot] = serial;
+        previous[slot] = tops[client];
+        tops[client] = serial;
+    }
+
+    private Comando pop(long[] tops, int client) {
+        if (client < 0 || client >= tops.length || tops[client] == NONE) {
+            return null;
+        }
+        long serial = tops[client];
+        int slot = (int) (serial % types.length);
+        if (serials[slot] != serial) {
+            tops[client] = NONE; // La acción se sobrescribió, y con ella todas las anteriores del cliente.
+            return null;
+        }
+        tops[client] = previous[slot];
+        serials[slot] = NONE;
+        int[] sections = fallbacks[slot];
+        fallbacks[slot] = null;
+        return new Comando(types[slot], values[slot], clients[slot], promotedClients[slot], promotedTiers[slot],
+                promotedSections[slot], sections);
+    }
+
+    private void ensureClient(int client) {
+        if (client >= undoTops.length) {
+            int length = Math.max(client + 1, undoTops.length * 2);
+            int old = undoTops.length;
+            undoTops = Arrays.copyOf(undoTops, length);
+            redoTops = Arrays.copyOf(redoTops, length);
+            Arrays.fill(undoTops, old, length, NONE);
+            Arrays.fill(redoTops, old, length, NONE);
+        }
+    }
+}
@@ -0,0 +1,167 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * La clase `HistorialTransacciones` guarda los eventos del estadio (reservas, cancelaciones,
+ * promociones y cambios en las listas de espera) como registros primitivos.
+ *
+ * Estructuras de datos utilizadas:
+ * - Un buffer circular dividido en bloques (chunks) de `CHUNK_SIZE` eventos. Cada bloque guarda
+ *   sus campos en arreglos paralelos (`byte[]`, `short[]`, `int[]`, `long[]`), así registrar un
+ *   evento no crea objetos ni cadenas. Los bloques se crean cuando se necesitan, y al llegar a la
+ *   retención configurada los eventos más antiguos se sobrescriben.
+ *
+ * Las consultas recorren solo la ventana de tiempo pedida (el inicio se encuentra con búsqueda
+ * binaria, ya que los eventos se registran en orden de tiempo) y crean objetos `Transaccion` solo
+ * para la página devuelta.
+ */
+public class HistorialTransacciones {
+    private static final int CHUNK_BITS = 12;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS; // 4096 eventos por bloque.
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private final int capacity;
+    private final byte[][] types;
+    private final short[][] sections;
+    private final int[][] seats;
+    private final int[][] clients;
+    private final int[][] quantities;
+    private final long[][] timestamps;
+    private long next; // Cantidad total de eventos registrados desde el inicio.
+
+    /**
+     * @param retention Cantidad máxima de eventos que se conservan (se redondea a bloques completos).
+     */
+    public HistorialTransacciones(int retention) {
+        int chunks = Math.max(1, (retention + CHUNK_SIZE - 1) >>> CHUNK_BITS);
+        capacity = chunks << CHUNK_BITS;
+        types = new byte[chunks][];
+        sections = new short[chunks][];
+        seats = new int[chunks][];
+        clients = new int[chunks][];
+        quantities = new int[chunks][];
+        timestamps = new long[chunks][];
+    }
+
+    /**
+     * Registra un evento con la hora actual.
+     *
+     * @param type Tipo de evento de `DiarioReservas`.
+     * @param section Sección del evento.
+     * @param seat Índice del asiento, o -1 si el evento no tiene asiento.
+     * @param client Identificador del cliente en `RegistroClientes`.
+     */
+    public void record(byte type, int section, int seat, int client) {
+        record(type, section, seat, client, 1);
+    }
+
+    /**
+     * Registra un evento que afecta a varios asientos (por ejemplo, una reserva en lote).
+     *
+     * @param type Tipo de evento de `DiarioReservas`.
+     * @param section Sección del evento.
+     * @param seat Índice del primer asiento, o -1 si el evento no tiene asiento.
+     * @param client Identificador del cliente en `RegistroClientes`.
+     * @param quantity Cantidad de asientos del evento.
+     */
+    public synchronized void record(byte type, int section, int seat, int client, int quantity) {
+        int slot = (int) (next % capacity);
+        int chunk = slot >>> CHUNK_BITS;
+        if (types[chunk] == null) {
+            types[chunk] = new byte[CHUNK_SIZE];
+            sections[chunk] = new short[CHUNK_SIZE];
+            seats[chunk] = new int[CHUNK_SIZE];
+            clients[chunk] = new int[CHUNK_SIZE];
+            quantities[chunk] = new int[CHUNK_SIZE];
+            timestamps[chunk] = new long[CHUNK_SIZE];
+        }
+        int offset = slot & CHUNK_MASK;
+        types[chunk][offset] = type;
+        sections[chunk][offset] = (short) section;
+        seats[chunk][offset] = seat;
+        clients[chunk][offset] = client;
+        quantities[chunk][offset] = quantity;
+        timestamps[chunk][offset] = System.currentTimeMillis();
+        next++;
+    }
+
+    /**
+     * Busca eventos en un rango de tiempo, del más antiguo al más reciente.
+     *
+     * @param fromMillis Inicio del rango (inclusive), en milisegundos desde la época Unix.
+     * @param toMillis Fin del rango (exclusivo).
+     * @param client Identificador del cliente a filtrar, o -1 para todos.
+     * @param section Sección a filtrar, o -1 para todas.
+     * @param offset Cantidad de eventos que coinciden y se saltan (para paginar).
+     * @param limit Cantidad máxima de eventos a devolver.
+     * @return Eventos encontrados.
+     */
+    public synchronized List<Transaccion> query(long fromMillis, long toMillis, int client, int section,
+                                                int offset, int limit) {
+        List<Transaccion> page = new ArrayList<>();
+        long oldest = Math.max(0, next - capacity);
+        long position = firstAtOrAfter(oldest, fromMillis);
+        int skipped = 0;
+        for (; position < next && page.size() < limit; position++) {
+            int slot = (int) (position % capacity);
+            int chunk = slot >>> CHUNK_BITS;
+            int index = slot & CHUNK_MASK;
+            if (timestamps[chunk][index] >= toMillis) {
+                break;
+            }
+            if ((client >= 0 && clients[chunk][index] != client) || (section >= 0 && sections[chunk][index] != section)) {
+                continue;
+            }
+            if (skipped < offset) {
+                skipped++;
+                continue;
+            }
+            page.add(read(slot));
+        }
+        return page;
+    }
+
+    /**
+     * @param limit Cantidad máxima de eventos.
+     * @return Los últimos eventos registrados, del más antiguo al más reciente.
+     */
+    public synchronized List<Transaccion> recent(int limit) {
+        List<Transaccion> page = new ArrayList<>();
+        long oldest = Math.max(Math.max(0, next - capacity), next - limit);
+        for (long position = oldest; position < next; position++) {
+            page.add(read((int) (position % capacity)));
+        }
+        return page;
+    }
+
+    /**
+     * @return Cantidad de eventos conservados actualmente.
+     */
+    public synchronized int size() {
+        return (int) Math.min(next, capacity);
+    }
+
+    /**
+     * Búsqueda binaria del primer evento con hora mayor o igual a `fromMillis`.
+     */
+    private long firstAtOrAfter(long low, long fromMillis) {
+        long high = next;
+        while (low < high) {
+            long mid = (low + high) >>> 1;
+            int slot = (int) (mid % capacity);
+            if (timestamps[slot >>> CHUNK_BITS][slot & CHUNK_MASK] < fromMillis) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private Transaccion read(int slot) {
+        int chunk = slot >>> CHUNK_BITS;
+        int index = slot & CHUNK_MASK;
+        return new Transaccion(types[chunk][index], sections[chunk][index], seats[chunk][index],
+                clients[chunk][index], quantities[chunk][index], timestamps[chunk][index]);
+    }
+}
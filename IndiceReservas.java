@@ -0,0 +1,259 @@
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * La clase `IndiceReservas` relaciona clientes con los asientos que tienen reservados, usando solo
+ * arreglos primitivos y los identificadores numéricos de `RegistroClientes`.
+ *
+ * Estructuras de datos utilizadas:
+ * 1. **int[]** (`holderBySeat`): Identificador del dueño de cada asiento, indexado por el índice
+ *    global del `InventarioAsientos`. Responde "¿quién tiene este asiento?" en O(1).
+ * 2. **Lista enlazada XOR intrusiva** (`links`): Los asientos de un mismo cliente se enlazan por
+ *    su índice, en el orden en que los reservó. Cada asiento guarda `anterior ^ siguiente` en un
+ *    solo `int`: recorriendo desde un extremo siempre se conoce el vecino anterior y se obtiene el
+ *    siguiente. Agregar y quitar el primer o el último asiento cuestan O(1) sin crear objetos;
+ *    quitar uno del medio recorre la lista del cliente, que suele tener pocos asientos.
+ * 3. **Páginas por cliente** (`clientPages`): Primer asiento, último asiento y cantidad de cada
+ *    cliente, en páginas de `PAGE_SIZE` clientes que no se mueven al crecer.
+ *
+ * Cada asiento ocupa 8 bytes y cada cliente con reservas 12 bytes, en lugar de un objeto por
+ * cliente con su propio arreglo y su entrada en un mapa.
+ *
+ * Si el estadio es persistente, cada cambio de dueño también se escribe en su `ArchivoAsientos`
+ * (ver `mirrorTo`), para que otros procesos lean el estado sin pasar por este índice.
+ *
+ * `holderBySeat` se modifica solo con el candado de la sección del asiento. La lista de un
+ * cliente puede tener asientos de varias secciones, así que se modifica con el candado de su
+ * franja (`stripes`, por identificador de cliente).
+ */
+public class IndiceReservas {
+    private static final int NONE = -1;
+    private static final int PAGE_BITS = 12;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int HEAD = 0;
+    private static final int TAIL = 1;
+    private static final int COUNT = 2;
+    private static final int FIELDS = 3; // Enteros por cliente en cada página.
+    private static final int STRIPES = 64;
+
+    private final RegistroClientes clients;
+    private final int[] holderBySeat;
+    private final int[] links; // Anterior ^ siguiente de cada asiento en la lista de su cliente.
+    private volatile int[][] clientPages = new int[1][];
+    private final Object[] stripes = new Object[STRIPES];
+    private final AtomicInteger size = new AtomicInteger();
+    private ArchivoAsientos file; // Copia mapeada del estado de cada asiento; null si el estadio es solo en memoria.
+
+    /**
+     * @param seatCapacity Cantidad de índices globales del inventario.
+     * @param clients Registro que asigna los identificadores de cliente.
+     */
+    public IndiceReservas(int seatCapacity, RegistroClientes clients) {
+        this.clients = clients;
+        holderBySeat = new int[seatCapacity];
+        Arrays.fill(holderBySeat, NONE);
+        links = new int[seatCapacity];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Object();
+        }
+    }
+
+    /**
+     * Registra que un cliente reservó un asiento. El asiento debe estar libre en el índice.
+     *
+     * @param client Cliente que reserva.
+     * @param seat Índice global del asiento.
+     */
+    public void add(Cliente client, int seat) {
+        int id = clients.register(client);
+        holderBySeat[seat] = id;
+        if (file != null) {
+            file.set(seat, EstadoAsiento.RESERVED, id);
+        }
+        int[] page = pageOf(id);
+        synchronized (stripes[id & (STRIPES - 1)]) {
+            append(page, (id & (PAGE_SIZE - 1)) * FIELDS, seat);
+        }
+        size.incrementAndGet();
+    }
+
+    /**
+     * Registra varios asientos de un mismo cliente tomando una sola vez el candado de su franja.
+     *
+     * @param client Cliente que reserva.
+     * @param seats Índices globales de los asientos (deben estar libres en el índice).
+     */
+    public void addAll(Cliente client, int[] seats) {
+        int id = clients.register(client);
+        for (int seat : seats) {
+            holderBySeat[seat] = id;
+            if (file != null) {
+                file.set(seat, EstadoAsiento.RESERVED, id);
+            }
+        }
+        int[] page = pageOf(id);
+        int offset = (id & (PAGE_SIZE - 1)) * FIELDS;
+        synchronized (stripes[id & (STRIPES - 1)]) {
+            for (int seat : seats) {
+                append(page, offset, seat);
+            }
+        }
+        size.addAndGet(seats.length);
+    }
+
+    private void append(int[] page, int offset, int seat) {
+        if (page[offset + COUNT] == 0) {
+            links[seat] = NONE ^ NONE;
+            page[offset + HEAD] = seat;
+        } else {
+            int tail = page[offset + TAIL];
+            links[tail] ^= NONE ^ seat; // El siguiente del último pasa de NONE a `seat`.
+            links[seat] = tail ^ NONE;
+        }
+        page[offset + TAIL] = seat;
+        page[offset + COUNT]++;
+    }
+
+    /**
+     * Elimina la reserva de un asiento si pertenece al cliente indicado.
+     *
+     * @param client Cliente que debe tener el asiento.
+     * @param seat Índice global del asiento.
+     * @return true si la reserva existía y fue eliminada.
+     */
+    public boolean remove(Cliente client, int seat) {
+        int id = holderBySeat[seat];
+        if (id == NONE || id != clients.idOf(client)) {
+            return false;
+        }
+        holderBySeat[seat] = NONE;
+        if (file != null) {
+            file.set(seat, EstadoAsiento.AVAILABLE, NONE);
+        }
+        int[] page = pageOf(id);
+        int offset = (id & (PAGE_SIZE - 1)) * FIELDS;
+        synchronized (stripes[id & (STRIPES - 1)]) {
+            int prev;
+            if (seat == page[offset + TAIL]) {
+                prev = links[seat] ^ NONE;
+            } else {
+                // Recorre desde el primero hasta encontrar el asiento, llevando el anterior.
+                prev = NONE;
+                for (int current = page[offset + HEAD]; current != seat; ) {
+                    int following = links[current] ^ prev;
+                    prev = current;
+                    current = following;
+                }
+            }
+            int next = links[seat] ^ prev;
+            if (prev == NONE) {
+                page[offset + HEAD] = next;
+            } else {
+                links[prev] ^= seat ^ next;
+            }
+            if (next == NONE) {
+                page[offset + TAIL] = prev;
+            } else {
+                links[next] ^= seat ^ prev;
+            }
+            page[offset + COUNT]--;
+        }
+        size.decrementAndGet();
+        return true;
+    }
+
+    /**
+     * @param seat Índice global del asiento.
+     * @return Cliente que tiene el asiento (el primero registrado con su email), o null si no está reservado.
+     */
+    public Cliente holderOf(int seat) {
+        int id = holderBySeat[seat];
+        return id == NONE ? null : clients.get(id);
+    }
+
+    /**
+     * @param client Cliente a consultar (se compara por email normalizado).
+     * @return Copia de los índices de asientos del cliente, en el orden en que los reservó; vacía si no tiene reservas.
+     */
+    public int[] seatsOf(Cliente client) {
+        int id = clients.idOf(client);
+        if (id == NONE) {
+            return new int[0];
+        }
+        int[] page = pageOf(id);
+        int offset = (id & (PAGE_SIZE - 1)) * FIELDS;
+        synchronized (stripes[id & (STRIPES - 1)]) {
+            int[] seats = new int[page[offset + COUNT]];
+            int prev = NONE;
+            int seat = page[offset + HEAD];
+            for (int i = 0; i < seats.length; i++) {
+                seats[i] = seat;
+                int next = links[seat] ^ prev;
+                prev = seat;
+                seat = next;
+            }
+            return seats;
+        }
+    }
+
+    /**
+     * @param client Cliente a buscar (se compara por email normalizado).
+     * @return El `Cliente` registrado con ese email, o null si no tiene reservas.
+     */
+    public Cliente find(Cliente client) {
+        int id = clients.idOf(client);
+        if (id == NONE) {
+            return null;
+        }
+        int[] page = pageOf(id);
+        synchronized (stripes[id & (STRIPES - 1)]) {
+            return page[(id & (PAGE_SIZE - 1)) * FIELDS + COUNT] == 0 ? null : clients.get(id);
+        }
+    }
+
+    /**
+     * Copia al archivo el dueño de cada asiento (los que no tienen dueño quedan libres), recalcula
+     * sus sumas de verificación y, desde entonces, escribe en él cada cambio. Debe llamarse antes
+     * de que el índice sea visible para otros hilos.
+     *
+     * @param target Archivo de asientos del estadio.
+     */
+    public void mirrorTo(ArchivoAsientos target) {
+        for (int seat = 0; seat < holderBySeat.length; seat++) {
+            int id = holderBySeat[seat];
+            target.set(seat, id == NONE ? EstadoAsiento.AVAILABLE : EstadoAsiento.RESERVED, id);
+        }
+        target.rebuildChecksums();
+        file = target;
+    }
+
+    /**
+     * @return Cantidad total de asientos reservados.
+     */
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * Página de un cliente, creándola si hace falta. Las páginas nunca se mueven: al crecer solo
+     * se copia el arreglo de páginas, así que una escritura en una página no se pierde.
+     */
+    private int[] pageOf(int id) {
+        int index = id >>> PAGE_BITS;
+        int[][] pages = clientPages;
+        if (index < pages.length && pages[index] != null) {
+            return pages[index];
+        }
+        synchronized (this) {
+            pages = clientPages;
+            if (index >= pages.length) {
+                pages = Arrays.copyOf(pages, Math.max(index + 1, pages.length * 2));
+            }
+            if (pages[index] == null) {
+                pages[index] = new int[PAGE_SIZE * FIELDS];
+            }
+            clientPages = pages;
+            return pages[index];
+        }
+    }
+}
@@ -0,0 +1,176 @@
+import java.util.TreeSet;
+
+/**
+ * La clase `IndiceTramosLibres` permite encontrar N asientos libres contiguos en una misma fila de
+ * una sección en tiempo logarítmico.
+ *
+ * Estructuras de datos utilizadas:
+ * 1. **Árbol de segmentos por fila** (arreglos `int[]`): Cada nodo guarda el tramo libre más largo
+ *    de su rango (`best`) y los tramos libres pegados a su borde izquierdo (`prefix`) y derecho
+ *    (`suffix`). La raíz de cada fila dice cuál es su tramo libre más largo.
+ * 2. **Árbol de máximos sobre las filas**: Encuentra en O(log filas) la primera fila (la más
+ *    cercana al frente) cuyo tramo más largo alcanza para el grupo.
+ * 3. **TreeSet** (`rowsByBest`): Filas ordenadas por su tramo más largo, para la política de
+ *    mejor ajuste (la fila cuyo tramo más largo desperdicia menos asientos).
+ *
+ * Se construye a partir del mapa de bits de `InventarioAsientos` y se mantiene actualizado con
+ * `update` cada vez que un asiento cambia de estado. Igual que el inventario, no está sincronizado:
+ * se usa con el candado de la sección tomado.
+ */
+public class IndiceTramosLibres {
+    private final int[] rowStart;   // Índice global del primer asiento de cada fila.
+    private final int[] rowLength;  // Cantidad de asientos de cada fila.
+    private final int[] treeOffset; // Posición del árbol de cada fila en los arreglos compartidos.
+    private final int[] treeLeaves; // Cantidad de hojas (potencia de 2) del árbol de cada fila.
+    private final int[] prefix;
+    private final int[] suffix;
+    private final int[] best;
+
+    private final int rowLeaves;     // Hojas del árbol de máximos sobre las filas.
+    private final int[] rowMax;      // Árbol de máximos del tramo más largo por fila.
+    private final TreeSet<Long> rowsByBest = new TreeSet<>(); // (tramo más largo << 32) | fila.
+
+    /**
+     * @param rowStart Índice global del primer asiento de cada fila, en orden del frente hacia atrás.
+     * @param rowLength Cantidad de asientos de cada fila.
+     * @param inventory Inventario del que se lee el estado inicial de cada asiento.
+     */
+    public IndiceTramosLibres(int[] rowStart, int[] rowLength, InventarioAsientos inventory) {
+        this.rowStart = rowStart;
+        this.rowLength = rowLength;
+        int rows = rowStart.length;
+        treeOffset = new int[rows];
+        treeLeaves = new int[rows];
+        int total = 0;
+        for (int row = 0; row < rows; row++) {
+            treeOffset[row] = total;
+            treeLeaves[row] = Integer.highestOneBit(Math.max(1, rowLength[row] - 1)) << 1;
+            total += treeLeaves[row] * 2;
+        }
+        prefix = new int[total];
+        suffix = new int[total];
+        best = new int[total];
+
+        rowLeaves = Integer.highestOneBit(Math.max(1, rows - 1)) << 1;
+        rowMax = new int[rowLeaves * 2];
+
+        for (int row = 0; row < rows; row++) {
+            int base = treeOffset[row];
+            int leaves = treeLeaves[row];
+            for (int i = 0; i < rowLength[row]; i++) {
+                int free = inventory.isFree(rowStart[row] + i) ? 1 : 0;
+                prefix[base + leaves + i] = free;
+                suffix[base + leaves + i] = free;
+                best[base + leaves + i] = free;
+            }
+            for (int node = leaves - 1; node >= 1; node--) {
+                combine(base, node, leaves >>> (31 - Integer.numberOfLeadingZeros(node)));
+            }
+            setRowBest(row, best[base + 1]);
+        }
+    }
+
+    /**
+     * Actualiza el estado de un asiento.
+     *
+     * @param row Fila del asiento (posición dentro de la sección, empezando en 0).
+     * @param seat Índice global del asiento.
+     * @param free true si el asiento quedó libre.
+     */
+    public void update(int row, int seat, boolean free) {
+        int base = treeOffset[row];
+        int leaves = treeLeaves[row];
+        int node = leaves + (seat - rowStart[row]);
+        int value = free ? 1 : 0;
+        prefix[base + node] = value;
+        suffix[base + node] = value;
+        best[base + node] = value;
+        int width = 1;
+        for (node >>>= 1; node >= 1; node >>>= 1) {
+            width <<= 1;
+            combine(base, node, width);
+        }
+        int oldBest = rowMax[rowLeaves + row];
+        if (oldBest != best[base + 1]) {
+            setRowBest(row, best[base + 1]);
+        }
+    }
+
+    /**
+     * Busca `count` asientos libres contiguos en una misma fila.
+     *
+     * @param count Cantidad de asientos.
+     * @param policy Política para elegir la fila.
+     * @return Índice global del primer asiento del tramo, o -1 si ninguna fila tiene espacio.
+     */
+    public int find(int count, PoliticaAsientos policy) {
+        int row;
+        if (policy == PoliticaAsientos.BEST_FIT) {
+            Long entry = rowsByBest.ceiling((long) count << 32);
+            if (entry == null) {
+                return -1;
+            }
+            row = (int) (long) entry;
+        } else {
+            if (rowMax[1] < count) {
+                return -1;
+            }
+            // Bajar por el árbol de filas hacia la primera fila con un tramo suficiente.
+            int node = 1;
+            while (node < rowLeaves) {
+                node = rowMax[node * 2] >= count ? node * 2 : node * 2 + 1;
+            }
+            row = node - rowLeaves;
+        }
+        return rowStart[row] + findInRow(row, count);
+    }
+
+    /**
+     * Desciende por el árbol de una fila hasta el tramo libre de largo `count` que empieza más a la izquierda.
+     */
+    private int findInRow(int row, int count) {
+        int base = treeOffset[row];
+        int node = 1;
+        int start = 0;
+        int width = treeLeaves[row];
+        while (node < treeLeaves[row]) {
+            int left = node * 2;
+            int right = left + 1;
+            width >>>= 1;
+            if (best[base + left] >= count) {
+                node = left;
+            } else if (suffix[base + left] + prefix[base + right] >= count) {
+                return start + width - suffix[base + left]; // El tramo cruza el centro del nodo.
+            } else {
+                node = right;
+                start += width;
+            }
+        }
+        return start;
+    }
+
+    /**
+     * Recalcula un nodo a partir de sus hijos. `width` es la cantidad de hojas que cubre el nodo.
+     */
+    private void combine(int base, int node, int width) {
+        int left = base + node * 2;
+        int right = left + 1;
+        int half = width >>> 1;
+        prefix[base + node] = prefix[left] == half ? half + prefix[right] : prefix[left];
+        suffix[base + node] = suffix[right] == half ? half + suffix[left] : suffix[right];
+        best[base + node] = Math.max(Math.max(best[left], best[right]), suffix[left] + prefix[right]);
+    }
+
+    private void setRowBest(int row, int value) {
+        int old = rowMax[rowLeaves + row];
+        rowsByBest.remove(((long) old << 32) | row);
+        if (value > 0) {
+            rowsByBest.add(((long) value << 32) | row);
+        }
+        int node = rowLeaves + row;
+        rowMax[node] = value;
+        for (node >>>= 1; node >= 1; node >>>= 1) {
+            rowMax[node] = Math.max(rowMax[node * 2], rowMax[node * 2 + 1]);
+        }
+    }
+}
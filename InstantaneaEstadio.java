@@ -0,0 +1,295 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * La clase `InstantaneaEstadio` es una copia completa del estado del estadio en un momento dado:
+ * clientes registrados, asientos reservados y listas de espera.
+ *
+ * Al recuperar, se carga la instantánea más reciente y solo se reproducen los segmentos del diario
+ * a partir de `segment`, en lugar de todo el historial.
+ *
+ * Formato del archivo (`instantanea-000042.bin`):
+ * `[int versión][long segmento][int capacidad][clientes][reservas][listas de espera][alternativas][int crc32]`.
+ * Desde la versión 2, cada cliente en espera guarda también su nivel de prioridad; las
+ * instantáneas de la versión 1 se leen con todos los clientes en el nivel `GENERAL`. Desde la
+ * versión 3 se guardan las listas alternativas de cada sección (cliente y sección donde espera);
+ * las versiones anteriores se leen sin alternativas.
+ * Se escribe en un archivo temporal y se renombra de forma atómica, por lo que una caída durante
+ * la escritura deja intacta la instantánea anterior.
+ */
+public class InstantaneaEstadio {
+    private static final int VERSION = 3;
+    private static final String PREFIX = "instantanea-";
+    private static final String SUFFIX = ".bin";
+
+    private final long segment;
+    private final int capacity;
+    private final Cliente[] clients;      // Identificador -> cliente (puede tener huecos nulos).
+    private final int[] reservedSeats;    // Asientos reservados...
+    private final int[] reservedClients;  // ...y el identificador de su dueño, en la misma posición.
+    private final int[][] waitlists;      // Por sección, identificadores de clientes en orden de atención.
+    private final byte[][] waitlistTiers; // Nivel de prioridad de cada cliente en espera, en la misma posición.
+    private final int[][] fallbackClients; // Por sección, clientes de otras secciones que la aceptan como alternativa...
+    private final int[][] fallbackSources; // ...y la sección donde espera cada uno, en la misma posición.
+
+    public InstantaneaEstadio(long segment, int capacity, Cliente[] clients, int[] reservedSeats,
+                              int[] reservedClients, int[][] waitlists, byte[][] waitlistTiers,
+                              int[][] fallbackClients, int[][] fallbackSources) {
+        this.segment = segment;
+        this.capacity = capacity;
+        this.clients = clients;
+        this.reservedSeats = reservedSeats;
+        this.reservedClients = reservedClients;
+        this.waitlists = waitlists;
+        this.waitlistTiers = waitlistTiers;
+        this.fallbackClients = fallbackClients;
+        this.fallbackSources = fallbackSources;
+    }
+
+    /**
+     * @return Primer segmento del diario que no está incluido en esta instantánea.
+     */
+    public long getSegment() {
+        return segment;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public Cliente[] getClients() {
+        return clients;
+    }
+
+    public int[] getReservedSeats() {
+        return reservedSeats;
+    }
+
+    public int[] getReservedClients() {
+        return reservedClients;
+    }
+
+    public int[][] getWaitlists() {
+        return waitlists;
+    }
+
+    public byte[][] getWaitlistTiers() {
+        return waitlistTiers;
+    }
+
+    public int[][] getFallbackClients() {
+        return fallbackClients;
+    }
+
+    public int[][] getFallbackSources() {
+        return fallbackSources;
+    }
+
+    /**
+     * Escribe la instantánea en el directorio, sincroniza con el disco y la renombra de forma atómica.
+     *
+     * @param directory Directorio de datos.
+     */
+    public void write(Path directory) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(estimateSize());
+        buffer.putInt(VERSION).putLong(segment).putInt(capacity);
+
+        buffer.putInt(clients.length);
+        for (Cliente client : clients) {
+            if (client == null) {
+                buffer.put((byte) 0);
+                continue;
+            }
+            buffer.put((byte) 1);
+            putString(buffer, client.getName());
+            putString(buffer, client.getEmail());
+            putString(buffer, client.getPhoneNumber());
+        }
+
+        buffer.putInt(reservedSeats.length);
+        for (int i = 0; i < reservedSeats.length; i++) {
+            buffer.putInt(reservedSeats[i]).putInt(reservedClients[i]);
+        }
+
+        buffer.putInt(waitlists.length);
+        for (int section = 0; section < waitlists.length; section++) {
+            buffer.putInt(waitlists[section].length);
+            for (int i = 0; i < waitlists[section].length; i++) {
+                buffer.putInt(waitlists[section][i]).put(waitlistTiers[section][i]);
+            }
+        }
+
+        buffer.putInt(fallbackClients.length);
+        for (int section = 0; section < fallbackClients.length; section++) {
+            buffer.putInt(fallbackClients[section].length);
+            for (int i = 0; i < fallbackClients[section].length; i++) {
+                buffer.putInt(fallbackClients[section][i]).putInt(fallbackSources[section][i]);
+            }
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putInt((int) crc.getValue());
+        buffer.flip();
+
+        Path target = path(directory, segment);
+        Path temporary = directory.resolve(target.getFileName() + ".tmp");
+        try (FileChannel file = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                file.write(buffer);
+            }
+            file.force(true);
+        }
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Carga la instantánea válida más reciente del directorio.
+     *
+     * @param directory Directorio de datos.
+     * @return La instantánea, o null si no hay ninguna válida.
+     */
+    public static InstantaneaEstadio readLatest(Path directory) throws IOException {
+        List<Long> segments = listSnapshots(directory);
+        for (int i = segments.size() - 1; i >= 0; i--) {
+            InstantaneaEstadio snapshot = read(path(directory, segments.get(i)));
+            if (snapshot != null) {
+                return snapshot;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Borra las instantáneas anteriores a `segment`.
+     */
+    static void deleteBefore(Path directory, long segment) throws IOException {
+        for (long existing : listSnapshots(directory)) {
+            if (existing < segment) {
+                Files.deleteIfExists(path(directory, existing));
+            }
+        }
+    }
+
+    private static InstantaneaEstadio read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.limit() < 4) {
+                return null;
+            }
+            CRC32 crc = new CRC32();
+            crc.update(buffer.slice(0, buffer.limit() - 4));
+            if ((int) crc.getValue() != buffer.getInt(buffer.limit() - 4)) {
+                return null; // Instantánea dañada.
+            }
+            int version = buffer.getInt();
+            if (version < 1 || version > VERSION) {
+                return null; // Instantánea de una versión desconocida.
+            }
+            long segment = buffer.getLong();
+            int capacity = buffer.getInt();
+
+            Cliente[] clients = new Cliente[buffer.getInt()];
+            for (int i = 0; i < clients.length; i++) {
+                if (buffer.get() == 1) {
+                    clients[i] = new Cliente(getString(buffer), getString(buffer), getString(buffer));
+                }
+            }
+
+            int reserved = buffer.getInt();
+            int[] reservedSeats = new int[reserved];
+            int[] reservedClients = new int[reserved];
+            for (int i = 0; i < reserved; i++) {
+                reservedSeats[i] = buffer.getInt();
+                reservedClients[i] = buffer.getInt();
+            }
+
+            int[][] waitlists = new int[buffer.getInt()][];
+            byte[][] waitlistTiers = new byte[waitlists.length][];
+            for (int section = 0; section < waitlists.length; section++) {
+                waitlists[section] = new int[buffer.getInt()];
+                waitlistTiers[section] = new byte[waitlists[section].length];
+                for (int i = 0; i < waitlists[section].length; i++) {
+                    waitlists[section][i] = buffer.getInt();
+                    waitlistTiers[section][i] = version >= 2 ? buffer.get() : 0;
+                }
+            }
+
+            int[][] fallbackClients = new int[version >= 3 ? buffer.getInt() : waitlists.length][];
+            int[][] fallbackSources = new int[fallbackClients.length][];
+            for (int section = 0; section < fallbackClients.length; section++) {
+                fallbackClients[section] = new int[version >= 3 ? buffer.getInt() : 0];
+                fallbackSources[section] = new int[fallbackClients[section].length];
+                for (int i = 0; i < fallbackClients[section].length; i++) {
+                    fallbackClients[section][i] = buffer.getInt();
+                    fallbackSources[section][i] = buffer.getInt();
+                }
+            }
+            return new InstantaneaEstadio(segment, capacity, clients, reservedSeats, reservedClients, waitlists,
+                    waitlistTiers, fallbackClients, fallbackSources);
+        }
+    }
+
+    private int estimateSize() {
+        int size = 4 + 8 + 4 + 4 + 4 + 4 + 4 + 4; // Encabezado, cuatro contadores y CRC.
+        for (Cliente client : clients) {
+            size += 1;
+            if (client != null) {
+                size += 12 + utf8Length(client.getName()) + utf8Length(client.getEmail())
+                        + utf8Length(client.getPhoneNumber());
+            }
+        }
+        size += reservedSeats.length * 8;
+        for (int[] waitlist : waitlists) {
+            size += 4 + waitlist.length * 5;
+        }
+        for (int[] fallbacks : fallbackClients) {
+            size += 4 + fallbacks.length * 8;
+        }
+        return size;
+    }
+
+    private static int utf8Length(String value) {
+        return value.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private static void putString(ByteBuffer buffer, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(bytes.length).put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static Path path(Path directory, long segment) {
+        return directory.resolve(String.format("%s%06d%s", PREFIX, segment, SUFFIX));
+    }
+
+    private static List<Long> listSnapshots(Path directory) throws IOException {
+        List<Long> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                segments.add(Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length())));
+            }
+        }
+        Collections.sort(segments);
+        return segments;
+    }
+}
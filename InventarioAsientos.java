@@ -0,0 +1,428 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * La clase `InventarioAsientos` guarda el estado libre/ocupado de todos los asientos del estadio
+ * usando un mapa de bits primitivo en lugar de un `Set<Asiento>`.
+ *
+ * Cada asiento tiene un índice global (`int`). Los asientos de una sección ocupan un rango
+ * contiguo de índices que empieza en un múltiplo de 64, de modo que ninguna palabra del mapa
+ * de bits es compartida por dos secciones.
+ *
+ * Estructuras de datos utilizadas:
+ * 1. **long[]** (`freeBits`): Un bit por asiento; 1 significa libre. Buscar un asiento libre
+ *    recorre palabras de 64 asientos en vez de objetos.
+ * 2. **int[]** (`freeCount`): Contador de asientos libres por sección, para consultas en O(1).
+ * 3. **int[]** (`searchHint`): Primera palabra de la sección que puede tener un bit libre,
+ *    para no volver a recorrer palabras llenas.
+ * 4. **HashMap**: Para traducir el nombre de una sección a su identificador numérico.
+ * 5. **IndiceTramosLibres[]** (`runIndexes`): Por sección, tramos libres de cada fila para reservar
+ *    asientos contiguos. Se construye la primera vez que se pide un grupo en la sección.
+ *
+ * Esta clase no está sincronizada; quien la usa debe coordinar el acceso por sección.
+ */
+public class InventarioAsientos {
+    private final Map<String, Integer> sectionIds = new HashMap<>(); // Nombre de sección -> id.
+    private String[] sectionNames = new String[4];
+    private int[] sectionBase = new int[4];   // Primer índice global de cada sección.
+    private int[] sectionSize = new int[4];   // Cantidad de asientos de cada sección.
+    private int[] sectionFirstRow = new int[4]; // Primera fila (en los arreglos de filas) de cada sección.
+    private int[] sectionRowCount = new int[4]; // Cantidad de filas de cada sección.
+    private int[] freeCount = new int[4];     // Asientos libres por sección.
+    private int[] searchHint = new int[4];    // Primera palabra con posibles asientos libres.
+    private IndiceTramosLibres[] runIndexes = new IndiceTramosLibres[4]; // null hasta el primer grupo.
+    private int sectionCount;
+
+    private int[] rowStart = new int[4];      // Índice global del primer asiento de cada fila.
+    private int[] rowNumber = new int[4];     // Número de fila visible para el cliente.
+    private int[] rowFirstSeat = new int[4];  // Número del primer asiento de la fila.
+    private int totalRows;
+
+    private long[] freeBits = new long[0];
+    private int capacity; // Siguiente índice global libre para asignar a una fila nueva.
+
+    /**
+     * Registra una nueva sección vacía. Las filas se agregan con `addRow`.
+     *
+     * @param name Nombre de la sección.
+     * @return Identificador numérico de la sección.
+     */
+    public int addSection(String name) {
+        if (sectionIds.containsKey(name)) {
+            throw new IllegalArgumentException("Sección duplicada: " + name);
+        }
+        if (sectionCount == sectionNames.length) {
+            int newLength = sectionCount * 2;
+            sectionNames = Arrays.copyOf(sectionNames, newLength);
+            sectionBase = Arrays.copyOf(sectionBase, newLength);
+            sectionSize = Arrays.copyOf(sectionSize, newLength);
+            sectionFirstRow = Arrays.copyOf(sectionFirstRow, newLength);
+            sectionRowCount = Arrays.copyOf(sectionRowCount, newLength);
+            freeCount = Arrays.copyOf(freeCount, newLength);
+            searchHint = Arrays.copyOf(searchHint, newLength);
+            runIndexes = Arrays.copyOf(runIndexes, newLength);
+        }
+        // Alinear la sección a una palabra de 64 bits.
+        capacity = (capacity + 63) & ~63;
+
+        int id = sectionCount++;
+        sectionIds.put(name, id);
+        sectionNames[id] = name;
+        sectionBase[id] = capacity;
+        sectionFirstRow[id] = totalRows;
+        searchHint[id] = capacity >>> 6;
+        return id;
+    }
+
+    /**
+     * Agrega una fila de asientos libres al final de una sección. Solo se pueden agregar filas
+     * a la última sección registrada y en orden ascendente de número de fila.
+     *
+     * @param section Identificador de la sección.
+     * @param row Número de la fila.
+     * @param firstSeat Número del primer asiento de la fila.
+     * @param seats Cantidad de asientos de la fila.
+     */
+    public void addRow(int section, int row, int firstSeat, int seats) {
+        if (section != sectionCount - 1) {
+            throw new IllegalArgumentException("Solo se pueden agregar filas a la última sección.");
+        }
+        if (seats <= 0) {
+            throw new IllegalArgumentException("La fila debe tener al menos un asiento.");
+        }
+        if (sectionRowCount[section] > 0 && rowNumber[totalRows - 1] >= row) {
+            throw new IllegalArgumentException("Las filas deben agregarse en orden ascendente.");
+        }
+        if (totalRows == rowStart.length) {
+            int newLength = totalRows * 2;
+            rowStart = Arrays.copyOf(rowStart, newLength);
+            rowNumber = Arrays.copyOf(rowNumber, newLength);
+            rowFirstSeat = Arrays.copyOf(rowFirstSeat, newLength);
+        }
+        rowStart[totalRows] = capacity;
+        rowNumber[totalRows] = row;
+        rowFirstSeat[totalRows] = firstSeat;
+        totalRows++;
+        sectionRowCount[section]++;
+
+        int end = capacity + seats;
+        int words = (end + 63) >>> 6;
+        if (words > freeBits.length) {
+            freeBits = Arrays.copyOf(freeBits, Math.max(words, freeBits.length * 2));
+        }
+        // Encender los bits de la fila de a una palabra por vez, no de a un asiento.
+        for (int seat = capacity; seat < end; ) {
+            int wordEnd = Math.min(end, ((seat >>> 6) + 1) << 6);
+            int bits = wordEnd - seat;
+            freeBits[seat >>> 6] |= bits == 64 ? -1L : ((1L << bits) - 1) << seat;
+            seat = wordEnd;
+        }
+        capacity = end;
+        sectionSize[section] += seats;
+        freeCount[section] += seats;
+        runIndexes[section] = null; // Se reconstruye con la fila nueva cuando se necesite.
+    }
+
+    /**
+     * Obtiene el identificador de una sección a partir de su nombre.
+     *
+     * @param name Nombre de la sección.
+     * @return Identificador de la sección, o -1 si no existe.
+     */
+    public int sectionId(String name) {
+        Integer id = sectionIds.get(name);
+        return id == null ? -1 : id;
+    }
+
+    public String sectionName(int section) {
+        return sectionNames[section];
+    }
+
+    public int sectionCount() {
+        return sectionCount;
+    }
+
+    /**
+     * @return Cantidad de índices globales usados, incluyendo el relleno de alineación entre secciones.
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * @return Índice global del primer asiento de la sección; sus asientos ocupan `sectionCapacity` índices seguidos.
+     */
+    public int sectionStart(int section) {
+        return sectionBase[section];
+    }
+
+    public int sectionCapacity(int section) {
+        return sectionSize[section];
+    }
+
+    /**
+     * Cantidad de asientos libres en una sección, en O(1).
+     */
+    public int freeSeats(int section) {
+        return freeCount[section];
+    }
+
+    /**
+     * Reserva el primer asiento libre de una sección.
+     * Recorre palabras de 64 bits a partir de `searchHint`, por lo que el costo es O(palabras)
+     * en el peor caso y O(1) mientras la sección se llena en orden.
+     *
+     * @param section Identificador de la sección.
+     * @return Índice global del asiento reservado, o -1 si la sección está llena.
+     */
+    public int claimFirstFree(int section) {
+        if (freeCount[section] == 0) {
+            return -1;
+        }
+        int lastWord = (sectionBase[section] + sectionSize[section] - 1) >>> 6;
+        for (int word = searchHint[section]; word <= lastWord; word++) {
+            long bits = freeBits[word];
+            if (bits != 0) {
+                int seat = (word << 6) + Long.numberOfTrailingZeros(bits);
+                freeBits[word] = bits & (bits - 1); // Apaga el bit más bajo.
+                freeCount[section]--;
+                searchHint[section] = word;
+                updateRuns(section, seat, false);
+                return seat;
+            }
+        }
+        return -1; // No debería ocurrir si freeCount es consistente.
+    }
+
+    /**
+     * Reserva varios asientos libres de una sección en una sola pasada sobre el mapa de bits.
+     * No reserva nada si la sección no tiene suficientes asientos libres.
+     *
+     * @param section Identificador de la sección.
+     * @param count Cantidad de asientos a reservar.
+     * @param out Arreglo donde se escriben los índices globales reservados (al menos `count` posiciones).
+     * @return true si se reservaron los `count` asientos.
+     */
+    public boolean claimFree(int section, int count, int[] out) {
+        if (count <= 0 || freeCount[section] < count) {
+            return false;
+        }
+        int taken = 0;
+        int lastWord = (sectionBase[section] + sectionSize[section] - 1) >>> 6;
+        int word = searchHint[section];
+        for (; word <= lastWord && taken < count; word++) {
+            long bits = freeBits[word];
+            while (bits != 0 && taken < count) {
+                out[taken++] = (word << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+            }
+            freeBits[word] = bits;
+        }
+        freeCount[section] -= count;
+        searchHint[section] = word - 1; // La última palabra visitada puede tener asientos libres.
+        if (runIndexes[section] != null) {
+            for (int i = 0; i < count; i++) {
+                updateRuns(section, out[i], false);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reserva `count` asientos libres contiguos en una misma fila de una sección.
+     * La búsqueda usa `IndiceTramosLibres`, por lo que cuesta O(log filas + log asientos por fila)
+     * en lugar de recorrer la sección.
+     *
+     * @param section Identificador de la sección.
+     * @param count Cantidad de asientos a reservar.
+     * @param policy Política para elegir la fila.
+     * @param out Arreglo donde se escriben los índices globales reservados, en orden (al menos `count` posiciones).
+     * @return true si se encontró y reservó el tramo.
+     */
+    public boolean claimContiguous(int section, int count, PoliticaAsientos policy, int[] out) {
+        if (count <= 0 || freeCount[section] < count) {
+            return false;
+        }
+        IndiceTramosLibres runs = runIndexes[section];
+        if (runs == null) {
+            runs = buildRunIndex(section);
+        }
+        int start = runs.find(count, policy);
+        if (start < 0) {
+            return false;
+        }
+        for (int i = 0; i < count; i++) {
+            int seat = start + i;
+            freeBits[seat >>> 6] &= ~(1L << seat);
+            out[i] = seat;
+        }
+        freeCount[section] -= count;
+        int row = rowOf(section, start) - sectionFirstRow[section];
+        for (int i = 0; i < count; i++) {
+            runs.update(row, start + i, false);
+        }
+        return true;
+    }
+
+    /**
+     * Marca un asiento específico como ocupado.
+     *
+     * @param seat Índice global del asiento.
+     * @return true si el asiento estaba libre.
+     */
+    public boolean claim(int seat) {
+        long mask = 1L << seat;
+        int word = seat >>> 6;
+        if ((freeBits[word] & mask) == 0) {
+            return false;
+        }
+        freeBits[word] &= ~mask;
+        int section = sectionOf(seat);
+        freeCount[section]--;
+        updateRuns(section, seat, false);
+        return true;
+    }
+
+    /**
+     * Libera un asiento ocupado.
+     *
+     * @param seat Índice global del asiento.
+     * @return true si el asiento estaba ocupado.
+     */
+    public boolean release(int seat) {
+        long mask = 1L << seat;
+        int word = seat >>> 6;
+        if ((freeBits[word] & mask) != 0) {
+            return false;
+        }
+        freeBits[word] |= mask;
+        int section = sectionOf(seat);
+        freeCount[section]++;
+        if (word < searchHint[section]) {
+            searchHint[section] = word;
+        }
+        updateRuns(section, seat, true);
+        return true;
+    }
+
+    public boolean isFree(int seat) {
+        return (freeBits[seat >>> 6] & (1L << seat)) != 0;
+    }
+
+    /**
+     * Obtiene la sección a la que pertenece un asiento mediante búsqueda binaria.
+     *
+     * @param seat Índice global del asiento.
+     * @return Identificador de la sección.
+     */
+    public int sectionOf(int seat) {
+        int low = 0;
+        int high = sectionCount - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (sectionBase[mid] <= seat) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Construye el `Asiento` correspondiente a un índice global.
+     *
+     * @param seat Índice global del asiento.
+     * @return Asiento con sección, fila y número.
+     */
+    public Asiento seatAt(int seat) {
+        int section = sectionOf(seat);
+        int row = rowOf(section, seat);
+        return new Asiento(sectionNames[section], rowNumber[row], rowFirstSeat[row] + (seat - rowStart[row]));
+    }
+
+    /**
+     * Obtiene el índice global de un `Asiento`.
+     *
+     * @param seat Asiento a buscar.
+     * @return Índice global, o -1 si el asiento no pertenece al inventario.
+     */
+    public int indexOf(Asiento seat) {
+        int section = sectionId(seat.getSection());
+        if (section < 0) {
+            return -1;
+        }
+        // Búsqueda binaria de la fila dentro de la sección.
+        int low = sectionFirstRow[section];
+        int high = low + sectionRowCount[section] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (rowNumber[mid] < seat.getRow()) {
+                low = mid + 1;
+            } else if (rowNumber[mid] > seat.getRow()) {
+                high = mid - 1;
+            } else {
+                int offset = seat.getSeatNumber() - rowFirstSeat[mid];
+                if (offset < 0 || rowStart[mid] + offset >= rowEnd(section, mid)) {
+                    return -1;
+                }
+                return rowStart[mid] + offset;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Construye el índice de tramos libres de una sección a partir del mapa de bits actual.
+     */
+    private IndiceTramosLibres buildRunIndex(int section) {
+        int rows = sectionRowCount[section];
+        int[] starts = new int[rows];
+        int[] lengths = new int[rows];
+        for (int i = 0; i < rows; i++) {
+            int row = sectionFirstRow[section] + i;
+            starts[i] = rowStart[row];
+            lengths[i] = rowEnd(section, row) - rowStart[row];
+        }
+        IndiceTramosLibres runs = new IndiceTramosLibres(starts, lengths, this);
+        runIndexes[section] = runs;
+        return runs;
+    }
+
+    /**
+     * Mantiene el índice de tramos libres al cambiar un asiento, si la sección ya lo construyó.
+     */
+    private void updateRuns(int section, int seat, boolean free) {
+        IndiceTramosLibres runs = runIndexes[section];
+        if (runs != null) {
+            runs.update(rowOf(section, seat) - sectionFirstRow[section], seat, free);
+        }
+    }
+
+    /**
+     * Índice global siguiente al último asiento de una fila. Las filas de una sección son
+     * contiguas, así que la fila termina donde empieza la siguiente o donde termina la sección.
+     */
+    private int rowEnd(int section, int row) {
+        int lastRow = sectionFirstRow[section] + sectionRowCount[section] - 1;
+        return row < lastRow ? rowStart[row + 1] : sectionBase[section] + sectionSize[section];
+    }
+
+    /**
+     * Busca la fila (índice en los arreglos de filas) que contiene un asiento.
+     */
+    private int rowOf(int section, int seat) {
+        int low = sectionFirstRow[section];
+        int high = low + sectionRowCount[section] - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (rowStart[mid] <= seat) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+}
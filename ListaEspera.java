@@ -0,0 +1,408 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * La clase `ListaEspera` es la lista de espera indexada de una sección, con niveles de prioridad.
+ *
+ * Los clientes de un nivel más alto (por ejemplo, abonados de temporada) se atienden antes que los
+ * de un nivel más bajo; dentro de cada nivel el orden es FIFO.
+ *
+ * Estructuras de datos utilizadas:
+ * 1. **Lista doblemente enlazada por nivel**: Agregar al final, quitar del frente y quitar a un
+ *    cliente de cualquier posición cuestan O(1).
+ * 2. **HashMap** (`nodes`): Cliente -> nodo, para encontrar a un cliente en O(1) y evitar que
+ *    el mismo cliente se anote dos veces.
+ * 3. **Turnos numerados y árbol de Fenwick** (`holes`): Cada cliente recibe un turno consecutivo
+ *    dentro de su nivel. Su posición es la distancia en turnos desde el primero del nivel menos
+ *    los clientes que salieron del medio de la fila ("huecos"), que se cuentan con el árbol de
+ *    Fenwick en O(log n). Los huecos se anotan en un buffer al quitar y se pasan al árbol en la
+ *    siguiente consulta de posición, de modo que quitar sigue siendo O(1).
+ *
+ * Cada cliente puede indicar secciones alternativas que también aceptaría (`addFallback`); la
+ * lista solo las guarda junto al cliente, y `Estadio` las usa al promover entre secciones.
+ *
+ * Cuando los turnos se salen del rango del árbol, el nivel se renumera en O(n); esto ocurre como
+ * mucho una vez cada n operaciones, así que el costo amortizado sigue siendo O(1).
+ *
+ * Esta clase no está sincronizada; se usa con el candado de la sección tomado.
+ */
+public class ListaEspera implements Iterable<Cliente> {
+    private static final int[] NO_FALLBACKS = new int[0];
+
+    private final Nivel[] tiers; // Índice mayor = prioridad mayor.
+    private final Map<Cliente, Nodo> nodes = new HashMap<>();
+
+    /**
+     * @param tierCount Cantidad de niveles de prioridad.
+     */
+    public ListaEspera(int tierCount) {
+        tiers = new Nivel[tierCount];
+        for (int i = 0; i < tierCount; i++) {
+            tiers[i] = new Nivel();
+        }
+    }
+
+    /**
+     * Agrega un cliente al final de su nivel.
+     *
+     * @param client Cliente que espera.
+     * @param tier Nivel de prioridad (0 es el más bajo).
+     * @return true si se agregó, false si el cliente ya estaba en la lista.
+     */
+    public boolean add(Cliente client, int tier) {
+        if (nodes.containsKey(client)) {
+            return false;
+        }
+        Nivel level = tiers[tier];
+        if (level.nextTicket >= level.capacity()) {
+            level.renumber();
+        }
+        Nodo node = new Nodo(client, tier, level.nextTicket++);
+        node.prev = level.tail;
+        if (level.tail == null) {
+            level.head = node;
+        } else {
+            level.tail.next = node;
+        }
+        level.tail = node;
+        level.size++;
+        nodes.put(client, node);
+        return true;
+    }
+
+    /**
+     * Agrega un cliente al frente de su nivel. Se usa para devolver a la fila a un cliente
+     * promovido cuando se deshace la cancelación que le dio el asiento.
+     *
+     * @return true si se agregó, false si el cliente ya estaba en la lista.
+     */
+    public boolean addFirst(Cliente client, int tier) {
+        if (nodes.containsKey(client)) {
+            return false;
+        }
+        Nivel level = tiers[tier];
+        if (level.head == null) {
+            return add(client, tier);
+        }
+        if (level.head.ticket == 0) {
+            level.renumber();
+        }
+        Nodo node = new Nodo(client, tier, level.head.ticket - 1);
+        level.clearHole(node.ticket); // El turno pudo quedar como hueco de un cliente que ya salió.
+        node.next = level.head;
+        level.head.prev = node;
+        level.head = node;
+        level.size++;
+        nodes.put(client, node);
+        return true;
+    }
+
+    /**
+     * @return El próximo cliente a atender (frente del nivel más alto con clientes), o null si la lista está vacía.
+     */
+    public Cliente peek() {
+        for (int tier = tiers.length - 1; tier >= 0; tier--) {
+            if (tiers[tier].head != null) {
+                return tiers[tier].head.client;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Quita y devuelve el próximo cliente a atender.
+     *
+     * @return El cliente, o null si la lista está vacía.
+     */
+    public Cliente poll() {
+        for (int tier = tiers.length - 1; tier >= 0; tier--) {
+            Nodo head = tiers[tier].head;
+            if (head != null) {
+                unlink(head);
+                return head.client;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Quita a un cliente de la lista, esté donde esté, en O(1).
+     *
+     * @return true si el cliente estaba en la lista.
+     */
+    public boolean remove(Cliente client) {
+        Nodo node = nodes.get(client);
+        if (node == null) {
+            return false;
+        }
+        Nivel level = tiers[node.tier];
+        if (node != level.head) {
+            level.addHole(node.ticket); // Quitar el primero no deja hueco: el frente simplemente avanza.
+        }
+        unlink(node);
+        return true;
+    }
+
+    /**
+     * Posición de un cliente en la fila, contando los niveles de mayor prioridad.
+     *
+     * @return Posición empezando en 1, o -1 si el cliente no está en la lista.
+     */
+    public int positionOf(Cliente client) {
+        Nodo node = nodes.get(client);
+        if (node == null) {
+            return -1;
+        }
+        int ahead = 0;
+        for (int tier = tiers.length - 1; tier > node.tier; tier--) {
+            ahead += tiers[tier].size;
+        }
+        Nivel level = tiers[node.tier];
+        int distance = node.ticket - level.head.ticket;
+        return ahead + distance - level.holesBetween(level.head.ticket, node.ticket) + 1;
+    }
+
+    /**
+     * @return Nivel de prioridad del cliente, o -1 si no está en la lista.
+     */
+    public int tierOf(Cliente client) {
+        Nodo node = nodes.get(client);
+        return node == null ? -1 : node.tier;
+    }
+
+    /**
+     * Registra una sección alternativa que el cliente también aceptaría.
+     *
+     * @return true si el cliente está en la lista.
+     */
+    public boolean addFallback(Cliente client, int section) {
+        Nodo node = nodes.get(client);
+        if (node == null) {
+            return false;
+        }
+        if (!accepts(node, section)) {
+            node.fallbacks = Arrays.copyOf(node.fallbacks, node.fallbacks.length + 1);
+            node.fallbacks[node.fallbacks.length - 1] = section;
+        }
+        return true;
+    }
+
+    /**
+     * @return true si el cliente está en la lista y aceptaría un asiento de `section` como alternativa.
+     */
+    public boolean accepts(Cliente client, int section) {
+        Nodo node = nodes.get(client);
+        return node != null && accepts(node, section);
+    }
+
+    /**
+     * @return Secciones alternativas del cliente; vacío si no tiene o no está en la lista.
+     */
+    public int[] fallbacksOf(Cliente client) {
+        Nodo node = nodes.get(client);
+        return node == null ? new int[0] : node.fallbacks.clone();
+    }
+
+    private static boolean accepts(Nodo node, int section) {
+        for (int fallback : node.fallbacks) {
+            if (fallback == section) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean contains(Cliente client) {
+        return nodes.containsKey(client);
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    public boolean isEmpty() {
+        return nodes.isEmpty();
+    }
+
+    /**
+     * Recorre la lista en el orden en que se atenderá: niveles de mayor a menor prioridad, FIFO dentro de cada uno.
+     */
+    @Override
+    public Iterator<Cliente> iterator() {
+        return new Iterator<Cliente>() {
+            private int tier = tiers.length - 1;
+            private Nodo next = advance(null);
+
+            private Nodo advance(Nodo current) {
+                if (current != null && current.next != null) {
+                    return current.next;
+                }
+                int from = current == null ? tier : tier - 1;
+                for (tier = from; tier >= 0; tier--) {
+                    if (tiers[tier].head != null) {
+                        return tiers[tier].head;
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Cliente next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                Nodo current = next;
+                next = advance(current);
+                return current.client;
+            }
+        };
+    }
+
+    private void unlink(Nodo node) {
+        Nivel level = tiers[node.tier];
+        if (node.prev == null) {
+            level.head = node.next;
+        } else {
+            node.prev.next = node.next;
+        }
+        if (node.next == null) {
+            level.tail = node.prev;
+        } else {
+            node.next.prev = node.prev;
+        }
+        node.prev = null;
+        node.next = null;
+        level.size--;
+        nodes.remove(node.client);
+        if (level.size == 0) {
+            level.reset();
+        }
+    }
+
+    private static final class Nodo {
+        private final Cliente client;
+        private final int tier;
+        private int ticket;
+        private int[] fallbacks = NO_FALLBACKS;
+        private Nodo prev;
+        private Nodo next;
+
+        Nodo(Cliente client, int tier, int ticket) {
+            this.client = client;
+            this.tier = tier;
+            this.ticket = ticket;
+        }
+    }
+
+    /**
+     * Un nivel de prioridad: lista enlazada de clientes y el conteo de huecos por turno.
+     */
+    private static final class Nivel {
+        private static final int MIN_CAPACITY = 64;
+
+        private Nodo head;
+        private Nodo tail;
+        private int size;
+        private int nextTicket;  // Turno del próximo cliente agregado al final.
+        private int[] holes = new int[MIN_CAPACITY + 1]; // Árbol de Fenwick por turno (índices desde 1).
+        private int[] pending = new int[16]; // Huecos todavía no pasados al árbol.
+        private int pendingCount;
+
+        Nivel() {
+            nextTicket = MIN_CAPACITY / 4; // Espacio al frente para `addFirst`.
+        }
+
+        int capacity() {
+            return holes.length - 1;
+        }
+
+        void addHole(int ticket) {
+            if (pendingCount == pending.length) {
+                pending = Arrays.copyOf(pending, pendingCount * 2);
+            }
+            pending[pendingCount++] = ticket;
+        }
+
+        /**
+         * Quita la marca de hueco de un turno que se vuelve a usar.
+         */
+        void clearHole(int ticket) {
+            flush();
+            int count = prefix(ticket + 1) - prefix(ticket);
+            if (count > 0) {
+                update(ticket, -count);
+            }
+        }
+
+        /**
+         * Cantidad de huecos con turno en [from, to).
+         */
+        int holesBetween(int from, int to) {
+            flush();
+            return prefix(to) - prefix(from);
+        }
+
+        private void flush() {
+            for (int i = 0; i < pendingCount; i++) {
+                update(pending[i], 1);
+            }
+            pendingCount = 0;
+        }
+
+        private void update(int ticket, int delta) {
+            for (int index = ticket + 1; index < holes.length; index += index & -index) {
+                holes[index] += delta;
+            }
+        }
+
+        /**
+         * Huecos con turno menor que `end`.
+         */
+        private int prefix(int end) {
+            int count = 0;
+            for (int index = end; index > 0; index -= index & -index) {
+                count += holes[index];
+            }
+            return count;
+        }
+
+        /**
+         * Vuelve a numerar los turnos de forma consecutiva y sin huecos, con espacio libre al
+         * frente y al final para al menos `size` operaciones más.
+         */
+        void renumber() {
+            int capacity = MIN_CAPACITY;
+            while (capacity < (size + 1) * 4) {
+                capacity <<= 1;
+            }
+            holes = new int[capacity + 1];
+            pendingCount = 0;
+            int ticket = capacity / 4;
+            for (Nodo node = head; node != null; node = node.next) {
+                node.ticket = ticket++;
+            }
+            nextTicket = ticket;
+        }
+
+        /**
+         * Al vaciarse el nivel se descartan los huecos y se reduce el árbol.
+         */
+        void reset() {
+            if (holes.length != MIN_CAPACITY + 1) {
+                holes = new int[MIN_CAPACITY + 1];
+            } else {
+                Arrays.fill(holes, 0);
+            }
+            pendingCount = 0;
+            nextTicket = MIN_CAPACITY / 4;
+        }
+    }
+}
@@ -1,25 +1,39 @@
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
- * Clase principal que maneja la interacción con el usuario y controla
- * el flujo del programa utilizando el objeto Estadio.
+ * Clase principal que maneja la interacción con el usuario. Es un cliente más de
+ * `ServicioReservas`: toda la entrada y salida por consola vive aquí, y el motor de reservas
+ * solo devuelve objetos de resultado.
  */
 public class Main {
-    public static void main(String[] args) {
-        // Crear una instancia de la clase Estadio.
-        Estadio estadio = new Estadio();
+    public static void main(String[] args) throws IOException {
+        // Cargar la distribución del estadio indicada como argumento, o usar la estándar.
+        DistribucionEstadio layout = args.length > 0
+                ? DistribucionEstadio.load(Paths.get(args[0])) : DistribucionEstadio.standard(500, 1000, 2000);
+        // Crear una instancia de la clase Estadio, recuperando las reservas guardadas en "datos".
+        Estadio estadio = Estadio.open(layout, Paths.get("datos"));
+        ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
 
         // Llamar al menú principal para interactuar con el usuario.
-        mainMenu(estadio);
+        mainMenu(new ServicioEstadio(estadio, executor));
+
+        // Guardar una instantánea final y cerrar el diario.
+        executor.shutdown();
+        estadio.close();
     }
 
     /**
      * Menú principal del programa, que permite al usuario interactuar
      * con el sistema de reservas mediante opciones claras.
      *
-     * @param estadio Objeto de la clase Estadio que gestiona las reservas.
+     * @param service Servicio que gestiona las reservas.
      */
-    public static void mainMenu(Estadio estadio) {
+    public static void mainMenu(ServicioReservas service) {
         Scanner scanner = new Scanner(System.in);
         boolean exit = false; // Controla la salida del programa.
 
@@ -29,40 +43,40 @@ public class Main {
             System.out.println("2. Cancelar reserva");
             System.out.println("3. Ver secciones y asientos disponibles");
             System.out.println("4. Ver lista de espera");
-            System.out.println("5. Salir");
-
-            int option = -1;
-
-            // Manejo de errores para validar que la opción ingresada sea un número válido.
-            while (true) {
-                try {
-                    System.out.print("Seleccione una opción: ");
-                    option = Integer.parseInt(scanner.nextLine());
-                    if (option >= 1 && option <= 5) {
-                        break; // Salir del bucle si la opción es válida.
-                    } else {
-                        System.out.println("Por favor, seleccione un número entre 1 y 5.");
-                    }
-                } catch (NumberFormatException e) {
-                    System.out.println("Entrada inválida. Por favor, ingrese un número.");
-                }
-            }
+            System.out.println("5. Deshacer la última acción de un cliente");
+            System.out.println("6. Rehacer una acción de un cliente");
+            System.out.println("7. Ver historial de transacciones");
+            System.out.println("8. Salir");
 
             // Procesar la opción seleccionada por el usuario.
-            switch (option) {
+            switch (readOption(scanner, "Seleccione una opción: ", 8)) {
                 case 1:
-                    handleReservation(estadio, scanner);
+                    handleReservation(service, scanner);
                     break;
                 case 2:
-                    handleCancellation(estadio, scanner);
+                    handleCancellation(service, scanner);
                     break;
                 case 3:
-                    estadio.showAvailableSections();
+                    for (DisponibilidadSeccion section : service.availability().join()) {
+                        System.out.println(section);
+                    }
                     break;
                 case 4:
-                    estadio.showWaitlist(scanner);
+                    handleWaitlist(service, scanner);
                     break;
                 case 5:
+                    handleUndo(service, scanner, true);
+                    break;
+                case 6:
+                    handleUndo(service, scanner, false);
+                    break;
+                case 7:
+                    // Mostrar las transacciones más recientes.
+                    for (String entry : service.recentHistory(20).join()) {
+                        System.out.println("- " + entry);
+                    }
+                    break;
+                case 8:
                     exit = true;
                     System.out.println("Saliendo del sistema. ¡Gracias por usar nuestro servicio!");
                     break;
@@ -76,79 +90,210 @@ public class Main {
 
     /**
      * Método que maneja la lógica para reservar un asiento.
-     * Solicita los datos del cliente y la sección deseada.
+     * Solicita los datos del cliente y la sección deseada. Si la sección está llena, ofrece
+     * elegir otra sección de las alternativas del resultado o unirse a la lista de espera.
      *
-     * @param estadio Objeto de la clase Estadio que gestiona las reservas.
+     * @param service Servicio que gestiona las reservas.
      * @param scanner Scanner para leer la entrada del usuario.
      */
-    private static void handleReservation(Estadio estadio, Scanner scanner) {
-        // Solicitar los datos del cliente.
-        System.out.print("Ingrese el nombre del cliente: ");
-        String name = scanner.nextLine();
-        System.out.print("Ingrese el email del cliente: ");
-        String email = scanner.nextLine();
-        System.out.print("Ingrese el número de teléfono del cliente: ");
-        String phone = scanner.nextLine();
+    private static void handleReservation(ServicioReservas service, Scanner scanner) {
+        // Crear un objeto `Cliente` con los datos ingresados.
+        Cliente client = readClient(service, scanner, "Ingrese el nombre del cliente: ");
+        if (client == null) {
+            return;
+        }
 
         // Mostrar las secciones disponibles para reservar.
+        List<DisponibilidadSeccion> sections = service.availability().join();
         System.out.println("Seleccione la sección para reservar:");
-        System.out.println("1. Field Level ($300)");
-        System.out.println("2. Main Level ($120)");
-        System.out.println("3. Grandstand Level ($45)");
-
-        int sectionChoice = -1;
+        for (int i = 0; i < sections.size(); i++) {
+            System.out.println((i + 1) + ". " + sections.get(i).getSection() + " ($" + sections.get(i).getPrice() + ")");
+        }
+        String section = sections.get(readOption(scanner, "Ingrese el número de la sección: ", sections.size()) - 1).getSection();
 
-        // Validar la entrada del usuario para la selección de la sección.
+        // Intentar reservar un asiento; si la sección está llena, el usuario decide qué hacer.
         while (true) {
-            try {
-                System.out.print("Ingrese el número de la sección: ");
-                sectionChoice = Integer.parseInt(scanner.nextLine());
-                if (sectionChoice >= 1 && sectionChoice <= 3) {
-                    break; // Entrada válida
+            ResultadoReserva result = service.reserve(client, section).join();
+            switch (result.getStatus()) {
+                case RESERVED:
+                    System.out.println("Reservation successful for " + client + ". Total cost: $" + result.getCost());
+                    return;
+                case INVALID_SECTION:
+                    System.out.println("Sección no válida. Intente nuevamente.");
+                    return;
+                default:
+                    break;
+            }
+
+            System.out.println("Section full. What would you like to do?");
+            System.out.println("1. Choose another section");
+            System.out.println("2. Join the waitlist for this section");
+            if (readOption(scanner, "Ingrese su opción: ", 2) == 2) {
+                // La sección viene del resultado, así que un rechazo significa que el cliente ya estaba esperando.
+                if (service.joinWaitlist(client, result.getSection()).join()) {
+                    System.out.println(client + " ha sido agregado a la lista de espera de la sección.");
                 } else {
-                    System.out.println("Por favor, seleccione un número entre 1 y 3.");
+                    System.out.println(client + " ya está en la lista de espera de " + result.getSection()
+                            + "; no se agregó de nuevo.");
                 }
-            } catch (NumberFormatException e) {
-                System.out.println("Entrada inválida. Por favor, ingrese un número.");
+                return;
+            }
+
+            if (result.getAlternativeSections().isEmpty()) {
+                System.out.println("No alternative sections are available.");
+                return;
             }
+            System.out.println("Available sections:");
+            for (String alternative : result.getAlternativeSections()) {
+                System.out.println("- " + alternative);
+            }
+            System.out.print("Enter the section name to reserve: ");
+            section = scanner.nextLine();
         }
+    }
 
-        // Mapear la elección del usuario al nombre de la sección.
-        String section = switch (sectionChoice) {
-            case 1 -> "Field Level";
-            case 2 -> "Main Level";
-            case 3 -> "Grandstand Level";
-            default -> null; // Esto no debería ocurrir debido a la validación previa.
-        };
+    /**
+     * Método que maneja la lógica para cancelar una reserva existente.
+     * Solicita los datos del cliente para identificar la reserva.
+     *
+     * @param service Servicio que gestiona las reservas.
+     * @param scanner Scanner para leer la entrada del usuario.
+     */
+    private static void handleCancellation(ServicioReservas service, Scanner scanner) {
+        // Buscar al cliente por email: cancelar no registra clientes nuevos.
+        Cliente client = findClient(service, scanner, "Ingrese el email del cliente para cancelar su reserva: ");
+        if (client == null) {
+            return;
+        }
 
-        // Crear un objeto `Cliente` con los datos ingresados.
-        Cliente client = new Cliente(name, email, phone);
+        // Intentar cancelar la reserva del cliente.
+        List<Cancelacion> results = service.cancel(client).join();
+        if (results.isEmpty()) {
+            System.out.println("No reservation found for " + client + ".");
+        }
+        for (Cancelacion result : results) {
+            System.out.println("Reservation canceled for " + result.getClient() + " (" + result.getSeat() + ").");
+            if (result.getPromotedClient() != null) {
+                System.out.println("Waitlist reservation successful for " + result.getPromotedClient()
+                        + " in " + result.getSeat().getSection() + ".");
+            }
+        }
+    }
 
-        // Intentar reservar un asiento para el cliente en la sección seleccionada.
-        estadio.reserveSeat(client, section, scanner);
+    /**
+     * Deshace o rehace la última acción de un cliente. Solo afecta las acciones de ese cliente.
+     *
+     * @param service Servicio que gestiona las reservas.
+     * @param scanner Scanner para leer la entrada del usuario.
+     * @param undo true para deshacer, false para rehacer.
+     */
+    private static void handleUndo(ServicioReservas service, Scanner scanner, boolean undo) {
+        Cliente client = findClient(service, scanner, "Ingrese el email del cliente: ");
+        if (client == null) {
+            return;
+        }
+        ResultadoDeshacer result = (undo ? service.undo(client) : service.redo(client)).join();
+        switch (result) {
+            case DONE:
+                System.out.println(undo ? "Acción deshecha." : "Acción rehecha.");
+                break;
+            case NOTHING:
+                System.out.println(undo ? "No hay acciones para deshacer." : "No hay acciones para rehacer.");
+                break;
+            default:
+                System.out.println("La acción ya no se puede " + (undo ? "deshacer" : "rehacer")
+                        + ": otra operación cambió ese asiento o la lista de espera. Se descartó.");
+        }
     }
 
     /**
-     * Método que maneja la lógica para cancelar una reserva existente.
-     * Solicita los datos del cliente para identificar la reserva.
+     * Muestra la lista de espera para una sección seleccionada por el usuario.
      *
-     * @param estadio Objeto de la clase Estadio que gestiona las reservas.
+     * @param service Servicio que gestiona las reservas.
      * @param scanner Scanner para leer la entrada del usuario.
      */
-    private static void handleCancellation(Estadio estadio, Scanner scanner) {
-        // Solicitar los datos del cliente para buscar la reserva a cancelar.
-        System.out.print("Ingrese el nombre del cliente para cancelar su reserva: ");
+    private static void handleWaitlist(ServicioReservas service, Scanner scanner) {
+        List<DisponibilidadSeccion> sections = service.availability().join();
+        System.out.println("Seleccione la sección para ver la lista de espera:");
+        for (int i = 0; i < sections.size(); i++) {
+            System.out.println((i + 1) + ". " + sections.get(i).getSection());
+        }
+        String selectedSection = sections.get(readOption(scanner, "Ingrese el número de la sección: ", sections.size()) - 1).getSection();
+
+        // Mostrar la lista de espera o informar si está vacía.
+        List<Cliente> waitlist = service.waitlist(selectedSection).join();
+        if (waitlist.isEmpty()) {
+            System.out.println("La lista de espera para " + selectedSection + " está vacía.");
+        } else {
+            System.out.println("Lista de espera para " + selectedSection + ":");
+            for (Cliente client : waitlist) {
+                System.out.println("- " + client);
+            }
+        }
+    }
+
+    /**
+     * Solicita los datos de un cliente y lo registra. Un cliente que ya usó el sistema recibe su
+     * misma instancia si ingresa los mismos datos; con otro nombre o teléfono se rechaza.
+     *
+     * @param service Servicio que registra a los clientes.
+     * @param scanner Scanner para leer la entrada del usuario.
+     * @param namePrompt Mensaje para pedir el nombre.
+     * @return Cliente con los datos ingresados, o null si el email ya está registrado con otros datos.
+     */
+    private static Cliente readClient(ServicioReservas service, Scanner scanner, String namePrompt) {
+        System.out.print(namePrompt);
         String name = scanner.nextLine();
         System.out.print("Ingrese el email del cliente: ");
         String email = scanner.nextLine();
         System.out.print("Ingrese el número de teléfono del cliente: ");
         String phone = scanner.nextLine();
+        try {
+            return service.client(name, email, phone);
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage() + ". Ingrese los mismos datos o use otro email.");
+            return null;
+        }
+    }
 
-        // Crear un objeto `Cliente` con los datos ingresados.
-        Cliente client = new Cliente(name, email, phone);
+    /**
+     * Solicita el email de un cliente ya registrado, sin registrar clientes nuevos.
+     *
+     * @param service Servicio que registra a los clientes.
+     * @param scanner Scanner para leer la entrada del usuario.
+     * @param emailPrompt Mensaje para pedir el email.
+     * @return Cliente registrado con ese email, o null si no existe.
+     */
+    private static Cliente findClient(ServicioReservas service, Scanner scanner, String emailPrompt) {
+        System.out.print(emailPrompt);
+        String email = scanner.nextLine();
+        Cliente client = service.findClient(email);
+        if (client == null) {
+            System.out.println("No hay ningún cliente registrado con el email " + email + ".");
+        }
+        return client;
+    }
 
-        // Intentar cancelar la reserva del cliente.
-        estadio.cancelReservation(client);
+    /**
+     * Lee un número entre 1 y `max`, repitiendo la pregunta hasta que la entrada sea válida.
+     *
+     * @param scanner Scanner para leer la entrada del usuario.
+     * @param prompt Mensaje que se muestra antes de leer.
+     * @param max Opción más alta permitida.
+     * @return Opción elegida.
+     */
+    private static int readOption(Scanner scanner, String prompt, int max) {
+        while (true) {
+            try {
+                System.out.print(prompt);
+                int option = Integer.parseInt(scanner.nextLine());
+                if (option >= 1 && option <= max) {
+                    return option; // Entrada válida.
+                }
+                System.out.println("Por favor, seleccione un número entre 1 y " + max + ".");
+            } catch (NumberFormatException e) {
+                System.out.println("Entrada inválida. Por favor, ingrese un número.");
+            }
+        }
     }
 }
-
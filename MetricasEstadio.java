@@ -0,0 +1,342 @@
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntUnaryOperator;
+import java.util.function.Supplier;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+
+/**
+ * La clase `MetricasEstadio` reúne las métricas en vivo de un `Estadio`:
+ * - Un `HistogramaLatencia` por operación (`reserveSeat`, `cancelReservation`, `manageWaitlist`
+ *   y consultas de disponibilidad).
+ * - Contadores de reservas rechazadas (sección llena) y de clientes promovidos desde la lista de espera.
+ * - Por sección: asientos libres, clientes en espera, reservas por segundo, y cuántas veces un
+ *   hilo tuvo que esperar el candado de la sección y por cuánto tiempo.
+ *
+ * Registrar (`recordSince`, `countReservations`, los candados de `newSectionLock`) no toma candados
+ * ni crea objetos, para no distorsionar el camino que se mide. Los contadores de cada sección ocupan
+ * su propia línea de caché. Todo el trabajo (percentiles, tasas, texto) se hace al leer.
+ *
+ * Medir una latencia cuesta dos lecturas de `System.nanoTime()`. Con `-Destadio.metricas=false`
+ * no se miden latencias (los contadores y la contención de candados se siguen midiendo).
+ *
+ * Las métricas se leen por JMX (este objeto es un `DynamicMBean`; ver `register`) o como texto
+ * con `dump`, en el formato de exposición de Prometheus.
+ */
+public class MetricasEstadio implements DynamicMBean {
+    public static final int RESERVE = 0;
+    public static final int CANCEL = 1;
+    public static final int WAITLIST = 2;
+    public static final int AVAILABILITY = 3;
+    private static final String[] OPERATIONS = {"reserveSeat", "cancelReservation", "manageWaitlist", "availability"};
+    private static final boolean TIMING = Boolean.parseBoolean(System.getProperty("estadio.metricas", "true"));
+
+    // Contadores por sección, separados por 8 longs (64 bytes) para que dos secciones no compartan línea de caché.
+    private static final int STRIDE = 8;
+    private static final int RESERVED = 0;
+    private static final int CONTENDED = 1;
+    private static final int WAIT_NANOS = 2;
+
+    private final HistogramaLatencia[] latencies = new HistogramaLatencia[OPERATIONS.length];
+    private final LongAdder rejectedReservations = new LongAdder();
+    private final LongAdder promotions = new LongAdder();
+    private final String[] sectionNames;
+    private final AtomicLongArray sectionCounters;
+    private final IntUnaryOperator freeSeats;     // Sección -> asientos libres.
+    private final IntUnaryOperator waitlistDepth; // Sección -> clientes en espera.
+    private final Map<String, Supplier<Object>> attributes = new LinkedHashMap<>(); // Atributos JMX, en orden.
+    private final Map<String, String> attributeTypes = new LinkedHashMap<>();
+
+    // Tasa de reservas por sección, recalculada al leer como mucho una vez por segundo.
+    private final long[] rateBase;
+    private final double[] rates;
+    private long rateSampleNanos = System.nanoTime();
+
+    /**
+     * @param sectionNames Nombres de las secciones, por identificador.
+     * @param freeSeats Asientos libres de una sección. Se llama sin candados, así que puede devolver un valor aproximado.
+     * @param waitlistDepth Clientes en espera de una sección, con la misma salvedad.
+     */
+    public MetricasEstadio(String[] sectionNames, IntUnaryOperator freeSeats, IntUnaryOperator waitlistDepth) {
+        this.sectionNames = sectionNames.clone();
+        this.freeSeats = freeSeats;
+        this.waitlistDepth = waitlistDepth;
+        sectionCounters = new AtomicLongArray(sectionNames.length * STRIDE);
+        rateBase = new long[sectionNames.length];
+        rates = new double[sectionNames.length];
+
+        for (int operation = 0; operation < OPERATIONS.length; operation++) {
+            HistogramaLatencia histogram = new HistogramaLatencia();
+            latencies[operation] = histogram;
+            String prefix = OPERATIONS[operation] + ".";
+            attribute(prefix + "count", Long.class, histogram::count);
+            attribute(prefix + "meanMicros", Double.class, () -> histogram.mean() / 1_000);
+            attribute(prefix + "p50Micros", Double.class, () -> histogram.percentile(50) / 1_000.0);
+            attribute(prefix + "p99Micros", Double.class, () -> histogram.percentile(99) / 1_000.0);
+            attribute(prefix + "p999Micros", Double.class, () -> histogram.percentile(99.9) / 1_000.0);
+            attribute(prefix + "maxMicros", Double.class, () -> histogram.max() / 1_000.0);
+        }
+        attribute("reservations.rejected", Long.class, rejectedReservations::sum);
+        attribute("waitlist.promotions", Long.class, promotions::sum);
+        for (int section = 0; section < sectionNames.length; section++) {
+            int id = section;
+            String prefix = sectionNames[section] + ".";
+            attribute(prefix + "freeSeats", Integer.class, () -> freeSeats.applyAsInt(id));
+            attribute(prefix + "waitlistDepth", Integer.class, () -> waitlistDepth.applyAsInt(id));
+            attribute(prefix + "reservationsPerSecond", Double.class, () -> reservationRates()[id]);
+            attribute(prefix + "lockContended", Long.class, () -> sectionCounters.get(id * STRIDE + CONTENDED));
+            attribute(prefix + "lockWaitMillis", Double.class,
+                    () -> sectionCounters.get(id * STRIDE + WAIT_NANOS) / 1_000_000.0);
+        }
+    }
+
+    private void attribute(String name, Class<?> type, Supplier<Object> value) {
+        attributes.put(name, value);
+        attributeTypes.put(name, type.getName());
+    }
+
+    /**
+     * @return Marca de tiempo para `recordSince`, o 0 si la medición de latencias está desactivada.
+     */
+    public static long now() {
+        return TIMING ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Registra la latencia de una operación que empezó en `start`.
+     *
+     * @param operation `RESERVE`, `CANCEL`, `WAITLIST` o `AVAILABILITY`.
+     * @param start Valor de `now()` al empezar la operación.
+     */
+    public void recordSince(int operation, long start) {
+        if (TIMING) {
+            latencies[operation].record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Suma asientos reservados en una sección, para la tasa de reservas por segundo.
+     */
+    public void countReservations(int section, int seats) {
+        sectionCounters.addAndGet(section * STRIDE + RESERVED, seats);
+    }
+
+    /**
+     * Cuenta una reserva rechazada porque la sección estaba llena.
+     */
+    public void countRejected() {
+        rejectedReservations.increment();
+    }
+
+    /**
+     * Cuenta un cliente promovido desde una lista de espera.
+     */
+    public void countPromotion() {
+        promotions.increment();
+    }
+
+    /**
+     * Crea el candado de una sección. Si al tomarlo ya está ocupado, cuenta la espera y su duración.
+     *
+     * @param section Identificador de la sección.
+     */
+    public ReentrantLock newSectionLock(int section) {
+        return new CandadoMedido(sectionCounters, section * STRIDE);
+    }
+
+    /**
+     * @return Histograma de latencias de una operación.
+     */
+    public HistogramaLatencia latency(int operation) {
+        return latencies[operation];
+    }
+
+    /**
+     * Reservas por segundo de cada sección desde la lectura anterior; si pasó menos de un segundo,
+     * se repite el último valor para que lecturas seguidas no den tasas ruidosas.
+     */
+    private synchronized double[] reservationRates() {
+        long now = System.nanoTime();
+        if (now - rateSampleNanos >= 1_000_000_000L) {
+            double seconds = (now - rateSampleNanos) / 1e9;
+            for (int section = 0; section < rates.length; section++) {
+                long total = sectionCounters.get(section * STRIDE + RESERVED);
+                rates[section] = (total - rateBase[section]) / seconds;
+                rateBase[section] = total;
+            }
+            rateSampleNanos = now;
+        }
+        return rates.clone();
+    }
+
+    /**
+     * Registra este objeto en el servidor JMX de la plataforma.
+     *
+     * @param name Nombre JMX, por ejemplo `estadio:type=Metricas`.
+     */
+    public void register(String name) throws JMException {
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(name));
+    }
+
+    /**
+     * Genera el texto con todas las métricas, en el formato de exposición de Prometheus.
+     *
+     * @return Una métrica por línea; latencias en segundos.
+     */
+    public String dump() {
+        StringBuilder text = new StringBuilder();
+        text.append("# TYPE estadio_latency_seconds summary\n");
+        for (int operation = 0; operation < OPERATIONS.length; operation++) {
+            HistogramaLatencia histogram = latencies[operation];
+            String label = "operation=\"" + OPERATIONS[operation] + "\"";
+            for (double quantile : new double[] {0.5, 0.9, 0.99, 0.999}) {
+                line(text, "estadio_latency_seconds", label + ",quantile=\"" + quantile + "\"",
+                        histogram.percentile(quantile * 100) / 1e9);
+            }
+            line(text, "estadio_latency_seconds_max", label, histogram.max() / 1e9);
+            line(text, "estadio_latency_seconds_sum", label, histogram.sum() / 1e9);
+            line(text, "estadio_latency_seconds_count", label, histogram.count());
+        }
+        text.append("# TYPE estadio_reservations_rejected_total counter\n");
+        line(text, "estadio_reservations_rejected_total", null, rejectedReservations.sum());
+        text.append("# TYPE estadio_waitlist_promotions_total counter\n");
+        line(text, "estadio_waitlist_promotions_total", null, promotions.sum());
+
+        double[] reservationRates = reservationRates();
+        String[] names = {"estadio_section_free_seats", "estadio_section_waitlist_depth",
+                "estadio_section_reservations_per_second", "estadio_section_lock_contended_total",
+                "estadio_section_lock_wait_seconds_total"};
+        for (int metric = 0; metric < names.length; metric++) {
+            text.append("# TYPE ").append(names[metric]).append(metric < 3 ? " gauge\n" : " counter\n");
+            for (int section = 0; section < sectionNames.length; section++) {
+                String label = "section=\"" + sectionNames[section].replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+                double value;
+                switch (metric) {
+                    case 0:
+                        value = freeSeats.applyAsInt(section);
+                        break;
+                    case 1:
+                        value = waitlistDepth.applyAsInt(section);
+                        break;
+                    case 2:
+                        value = reservationRates[section];
+                        break;
+                    case 3:
+                        value = sectionCounters.get(section * STRIDE + CONTENDED);
+                        break;
+                    default:
+                        value = sectionCounters.get(section * STRIDE + WAIT_NANOS) / 1e9;
+                }
+                line(text, names[metric], label, value);
+            }
+        }
+        return text.toString();
+    }
+
+    private static void line(StringBuilder text, String name, String labels, double value) {
+        text.append(name);
+        if (labels != null) {
+            text.append('{').append(labels).append('}');
+        }
+        text.append(' ');
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            text.append((long) value);
+        } else {
+            text.append(value);
+        }
+        text.append('\n');
+    }
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        Supplier<Object> value = attributes.get(attribute);
+        if (value == null) {
+            throw new AttributeNotFoundException("Atributo desconocido: " + attribute);
+        }
+        return value.get();
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] names) {
+        AttributeList list = new AttributeList();
+        for (String name : names) {
+            Supplier<Object> value = attributes.get(name);
+            if (value != null) {
+                list.add(new Attribute(name, value.get()));
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException("Las métricas son de solo lectura: " + attribute.getName());
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList(); // Ningún atributo se puede cambiar.
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+        if (actionName.equals("dump") && (params == null || params.length == 0)) {
+            return dump();
+        }
+        throw new ReflectionException(new NoSuchMethodException(actionName), "Operación desconocida: " + actionName);
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        MBeanAttributeInfo[] attributeInfo = new MBeanAttributeInfo[attributes.size()];
+        int i = 0;
+        for (Map.Entry<String, String> entry : attributeTypes.entrySet()) {
+            attributeInfo[i++] = new MBeanAttributeInfo(entry.getKey(), entry.getValue(), entry.getKey(),
+                    true, false, false);
+        }
+        MBeanOperationInfo dump = new MBeanOperationInfo("dump", "Todas las métricas en texto (formato Prometheus)",
+                null, String.class.getName(), MBeanOperationInfo.INFO);
+        return new MBeanInfo(getClass().getName(), "Métricas del estadio", attributeInfo, null,
+                new MBeanOperationInfo[] {dump}, null);
+    }
+
+    /**
+     * Candado de sección que mide la contención: primero intenta tomarlo sin esperar y, si está
+     * ocupado, cuenta la espera y cuánto duró.
+     */
+    private static final class CandadoMedido extends ReentrantLock {
+        private static final long serialVersionUID = 1L;
+
+        private final AtomicLongArray counters;
+        private final int offset; // Primer contador de la sección en `counters`.
+
+        CandadoMedido(AtomicLongArray counters, int offset) {
+            this.counters = counters;
+            this.offset = offset;
+        }
+
+        @Override
+        public void lock() {
+            if (tryLock()) {
+                return;
+            }
+            long start = System.nanoTime();
+            super.lock();
+            counters.incrementAndGet(offset + CONTENDED);
+            counters.addAndGet(offset + WAIT_NANOS, System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+/**
+ * Políticas para elegir la fila al reservar asientos contiguos para un grupo.
+ */
+public enum PoliticaAsientos {
+    /**
+     * La fila más cercana al frente de la sección que tenga espacio para el grupo.
+     */
+    CLOSEST_TO_FRONT,
+
+    /**
+     * La fila cuyo tramo libre más largo es el más ajustado al tamaño del grupo, para dejar
+     * los tramos largos disponibles para grupos más grandes.
+     */
+    BEST_FIT
+}
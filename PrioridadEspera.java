@@ -0,0 +1,16 @@
+/**
+ * Niveles de prioridad de la lista de espera. Un nivel más alto se atiende primero; dentro de
+ * cada nivel el orden es FIFO. El valor de `ordinal()` es el nivel que se guarda en el diario,
+ * por lo que los niveles nuevos deben agregarse al final.
+ */
+public enum PrioridadEspera {
+    /**
+     * Público general.
+     */
+    GENERAL,
+
+    /**
+     * Abonados de temporada: se atienden antes que el público general.
+     */
+    SEASON_TICKET
+}
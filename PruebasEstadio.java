@@ -0,0 +1,615 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Comprobaciones rápidas y deterministas de las piezas con más riesgo, sin dependencias externas.
+ * `gradle build` las ejecuta (tarea `pruebas`); también se pueden ejecutar solas, todas o por nombre:
+ * <pre>
+ * java -cp out PruebasEstadio
+ * java -cp out PruebasEstadio json servidor
+ * </pre>
+ *
+ * Cada comprobación corre en su propio hilo con un límite de tiempo, así que una que se cuelga
+ * (por ejemplo, un lector de JSON que no avanza) se informa como falla en lugar de trabar la
+ * ejecución. Termina con código 1 si alguna falla.
+ */
+public class PruebasEstadio {
+    private static final long TIMEOUT_SECONDS = 60;
+
+    /**
+     * Una comprobación: lanza una excepción (normalmente `AssertionError`) si falla.
+     */
+    interface Comprobacion {
+        void run() throws Exception;
+    }
+
+    private static final Map<String, Comprobacion> CHECKS = new LinkedHashMap<>();
+
+    static {
+        CHECKS.put("json", PruebasEstadio::checkJson);
+        CHECKS.put("servidor", PruebasEstadio::checkServer);
+        CHECKS.put("clientes", PruebasEstadio::checkClients);
+        CHECKS.put("secciones", PruebasEstadio::checkSectionLimit);
+        CHECKS.put("gestor", PruebasEstadio::checkManager);
+        CHECKS.put("tramos", PruebasEstadio::checkRunIndex);
+        CHECKS.put("reservas", PruebasEstadio::checkReservationIndex);
+        CHECKS.put("agregados", PruebasEstadio::checkAggregates);
+        CHECKS.put("temporizadores", PruebasEstadio::checkTimerWheel);
+        CHECKS.put("recuperacion", PruebasEstadio::checkRecovery);
+        CHECKS.put("deshacer", PruebasEstadio::checkWaitlistUndo);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        List<String> names = args.length == 0 ? new ArrayList<>(CHECKS.keySet()) : List.of(args);
+        int failed = 0;
+        for (String name : names) {
+            Comprobacion check = CHECKS.get(name);
+            if (check == null) {
+                System.out.println("Comprobación desconocida: " + name + " (disponibles: " + CHECKS.keySet() + ")");
+                failed++;
+                continue;
+            }
+            CompletableFuture<Void> result = new CompletableFuture<>();
+            Thread thread = new Thread(() -> {
+                try {
+                    check.run();
+                    result.complete(null);
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                }
+            }, "prueba-" + name);
+            thread.setDaemon(true);
+            thread.start();
+            try {
+                result.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                System.out.println("OK     " + name);
+            } catch (ExecutionException e) {
+                System.out.println("FALLA  " + name + ": " + e.getCause());
+                failed++;
+            } catch (TimeoutException e) {
+                System.out.println("FALLA  " + name + ": no terminó en " + TIMEOUT_SECONDS + " s");
+                failed++;
+            }
+        }
+        System.out.println(failed == 0 ? "Resultado: OK" : "Resultado: " + failed + " comprobación(es) con fallas");
+        if (failed > 0) {
+            System.exit(1);
+        }
+    }
+
+    static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+
+    static void checkEquals(Object expected, Object actual, String what) {
+        if (expected == null ? actual != null : !expected.equals(actual)) {
+            throw new AssertionError(what + ": se esperaba " + expected + " y se obtuvo " + actual);
+        }
+    }
+
+    /**
+     * `ServidorReservas.parseJson`: cuerpos válidos, escapes y cuerpos mal formados, que deben
+     * terminar con `IllegalArgumentException` en lugar de colgarse.
+     */
+    private static void checkJson() {
+        Map<String, String> values = ServidorReservas.parseJson(
+                "{\"email\":\"a@x\", \"section\" : \"Field Level\",\"ttl\": 30 }");
+        checkEquals(Map.of("email", "a@x", "section", "Field Level", "ttl", "30"), values, "cuerpo válido");
+        checkEquals(Map.of("name", "Jos\u00e9\n\"Pepe\""), ServidorReservas.parseJson("{\"name\":\"Jos\\u00e9\\n\\\"Pepe\\\"\"}"),
+                "escapes");
+        checkEquals(Map.of(), ServidorReservas.parseJson("{}"), "objeto vacío");
+        checkEquals(Map.of(), ServidorReservas.parseJson(""), "cuerpo vacío");
+
+        String[] malformed = {"{\"a\",\"b\"}", "{\"a\"}", "{\"a\":\"b", "{\"a", "{\"a\":\"\\u00\"}", "{\"a\":\"\\uzzzz\"}"};
+        for (String body : malformed) {
+            try {
+                ServidorReservas.parseJson(body);
+                throw new AssertionError("se aceptó un cuerpo mal formado: " + body);
+            } catch (IllegalArgumentException expected) {
+                // Correcto: el servidor responde 400.
+            }
+        }
+    }
+
+    /**
+     * Un servidor real en un puerto libre: un cuerpo mal formado recibe 400 (y no deja la solicitud
+     * sin respuesta), y la prioridad de espera se lee igual con la configuración regional turca.
+     */
+    private static void checkServer() throws Exception {
+        ServidorReservas server = new ServidorReservas(new ServicioEstadio(new Estadio(2, 2, 2), Runnable::run), 0);
+        server.start();
+        Locale defaultLocale = Locale.getDefault();
+        try {
+            HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+            String base = "http://localhost:" + server.getPort();
+
+            for (String body : new String[] {"{\"a\",\"b\"}", "{\"email\":\"a@x\",\"section\":\"Field Level"}) {
+                HttpResponse<String> response = post(http, base + "/reservas", body);
+                checkEquals(400, response.statusCode(), "POST /reservas " + body);
+                check(response.body().contains("INVALID_REQUEST"), "respuesta a " + body + ": " + response.body());
+            }
+
+            // En turco, "general".toUpperCase() da "GENERAL" con una İ con punto.
+            Locale.setDefault(new Locale("tr", "TR"));
+            HttpResponse<String> response = post(http, base + "/espera",
+                    "{\"name\":\"Ana\",\"email\":\"ana@x\",\"phone\":\"1\",\"section\":\"Field Level\",\"priority\":\"general\"}");
+            checkEquals(200, response.statusCode(), "POST /espera con prioridad en minúsculas: " + response.body());
+        } finally {
+            Locale.setDefault(defaultLocale);
+            server.stop();
+        }
+    }
+
+    /**
+     * `RegistroClientes`: un email conocido devuelve la misma instancia con los mismos datos, se
+     * rechaza con otros datos, y buscar no registra.
+     */
+    private static void checkClients() {
+        RegistroClientes registry = new RegistroClientes();
+        check(registry.find("ana@x") == null, "find de un email nuevo");
+        checkEquals(0, registry.size(), "find no debe registrar");
+        Cliente ana = registry.intern("Ana", "ana@x", "1");
+        check(registry.intern("Ana", " ANA@x ", "1") == ana, "intern con los mismos datos debe devolver la misma instancia");
+        check(registry.find("Ana@X") == ana, "find por email normalizado");
+        for (String[] changed : new String[][] {{"Ana María", "1"}, {"Ana", "2"}}) {
+            try {
+                registry.intern(changed[0], "ana@x", changed[1]);
+                throw new AssertionError("se aceptaron datos distintos para un email registrado: " + List.of(changed));
+            } catch (IllegalArgumentException expected) {
+                // Correcto: los datos de un cliente registrado no cambian.
+            }
+        }
+        checkEquals("1", registry.find("ana@x").getPhoneNumber(), "teléfono registrado");
+        checkEquals(1, registry.size(), "clientes registrados");
+    }
+
+    /**
+     * `DistribucionEstadio`: una distribución con más secciones de las que caben en los eventos de
+     * la lista de espera se rechaza al leerla.
+     */
+    private static void checkSectionLimit() {
+        List<String> lines = new ArrayList<>();
+        for (int section = 0; section < DistribucionEstadio.MAX_SECTIONS; section++) {
+            lines.add("section S" + section + " | 10");
+            lines.add("rows 1 seats 1-1");
+        }
+        DistribucionEstadio largest = DistribucionEstadio.parse(lines);
+        checkEquals(DistribucionEstadio.MAX_SECTIONS, largest.sectionCount(), "secciones en el límite");
+        int last = DistribucionEstadio.MAX_SECTIONS - 1;
+        checkEquals(last, Estadio.waitlistSection(Estadio.waitlistValue(last, PrioridadEspera.values().length - 1)),
+                "sección de un evento de la lista de espera");
+        checkEquals(last, Estadio.fallbackPrimary(Estadio.fallbackValue(last, 0)), "sección principal de un evento alternativo");
+
+        lines.add("section Una más | 10");
+        lines.add("rows 1 seats 1-1");
+        try {
+            DistribucionEstadio.parse(lines);
+            throw new AssertionError("se aceptó una distribución con " + (last + 2) + " secciones");
+        } catch (IllegalArgumentException expected) {
+            check(expected.getMessage().contains("demasiadas secciones"), expected.getMessage());
+        }
+    }
+
+    /**
+     * `GestorEventos`: muchos eventos, en memoria y persistentes, con retenciones, no crean hilos
+     * propios; las retenciones vencen en el hilo del evento y un evento cerrado se recupera.
+     */
+    private static void checkManager() throws Exception {
+        Path data = Files.createTempDirectory("pruebas-gestor");
+        GestorEventos manager = new GestorEventos(2);
+        try {
+            DistribucionEstadio layout = DistribucionEstadio.standard(4, 4, 4);
+            List<ServicioReservas> events = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                ServicioReservas event = i % 2 == 0 ? manager.createEvent("memoria-" + i, layout)
+                        : manager.openEvent("disco-" + i, layout, data);
+                Cliente client = event.client("Ana", "ana@x", "1");
+                checkEquals(ResultadoReserva.Estado.RESERVED, event.reserve(client, "Field Level").join().getStatus(),
+                        "reserva en el evento " + i);
+                check(event.hold(client, "Main Level", 200).join() != null, "retención en el evento " + i);
+                events.add(event);
+            }
+            for (Thread thread : Thread.getAllStackTraces().keySet()) {
+                check(!List.of("instantaneas-estadio", "retenciones-estadio", "diario-reservas").contains(thread.getName()),
+                        "un evento creó el hilo " + thread.getName());
+            }
+
+            long deadline = System.currentTimeMillis() + 10_000;
+            for (ServicioReservas event : events) {
+                while (event.availability().join().get(1).getAvailableSeats() < 4) {
+                    check(System.currentTimeMillis() < deadline, "las retenciones no vencieron en el hilo del evento");
+                    Thread.sleep(20);
+                }
+            }
+
+            check(manager.closeEvent("disco-1"), "cerrar el evento");
+            ServicioReservas reopened = manager.openEvent("disco-1", layout, data);
+            checkEquals(1, reopened.reservedSeats(reopened.findClient("ana@x")).join().size(), "reservas recuperadas");
+            checkEquals(4, reopened.availability().join().get(1).getAvailableSeats(), "la retención no sobrevive al reinicio");
+        } finally {
+            manager.close();
+            deleteRecursively(data);
+        }
+    }
+
+    /**
+     * `IndiceTramosLibres`: después de cada cambio de un asiento, la búsqueda con ambas políticas
+     * coincide con recorrer las filas asiento por asiento. Las filas tienen largos que cruzan
+     * potencias de 2 y el estado inicial se lee de un inventario con asientos ya ocupados.
+     */
+    private static void checkRunIndex() {
+        Random random = new Random(11);
+        int[] lengths = {1, 5, 64, 70, 3, 130, 17};
+        InventarioAsientos inventory = new InventarioAsientos();
+        int section = inventory.addSection("S");
+        int[] rowStart = new int[lengths.length];
+        for (int row = 0; row < lengths.length; row++) {
+            rowStart[row] = inventory.capacity();
+            inventory.addRow(section, row + 1, 1, lengths[row]);
+        }
+        boolean[] free = new boolean[inventory.capacity()];
+        for (int seat = 0; seat < free.length; seat++) {
+            free[seat] = random.nextInt(3) > 0 || !inventory.claim(seat);
+        }
+        IndiceTramosLibres index = new IndiceTramosLibres(rowStart, lengths, inventory);
+
+        int[] counts = {1, 2, 3, 5, 17, 64, 70, 100, 131};
+        for (int step = 0; step < 3000; step++) {
+            for (int count : counts) {
+                for (PoliticaAsientos policy : PoliticaAsientos.values()) {
+                    checkEquals(findRun(rowStart, lengths, free, count, policy), index.find(count, policy),
+                            "tramo de " + count + " con " + policy + " en el paso " + step);
+                }
+            }
+            int row = random.nextInt(lengths.length);
+            int seat = rowStart[row] + random.nextInt(lengths[row]);
+            free[seat] = step % 500 < 250 ? random.nextInt(4) > 0 : random.nextInt(4) == 0; // Llenar y vaciar por etapas.
+            index.update(row, seat, free[seat]);
+        }
+    }
+
+    /**
+     * Búsqueda de referencia de `checkRunIndex`: la primera fila con un tramo suficiente, o la fila
+     * cuyo tramo más largo es el menor que alcanza; dentro de la fila, el tramo más a la izquierda.
+     */
+    private static int findRun(int[] rowStart, int[] lengths, boolean[] free, int count, PoliticaAsientos policy) {
+        int chosen = -1;
+        int chosenLongest = Integer.MAX_VALUE;
+        for (int row = 0; row < lengths.length; row++) {
+            int longest = 0;
+            int first = -1;
+            int run = 0;
+            for (int i = 0; i < lengths[row]; i++) {
+                run = free[rowStart[row] + i] ? run + 1 : 0;
+                longest = Math.max(longest, run);
+                if (run == count && first < 0) {
+                    first = rowStart[row] + i - count + 1;
+                }
+            }
+            if (first < 0) {
+                continue;
+            }
+            if (policy == PoliticaAsientos.CLOSEST_TO_FRONT) {
+                return first;
+            }
+            if (longest < chosenLongest) {
+                chosen = first;
+                chosenLongest = longest;
+            }
+        }
+        return chosen;
+    }
+
+    /**
+     * `IndiceReservas`: las listas XOR de cada cliente conservan el orden de reserva al quitar el
+     * primer, el último o un asiento del medio, comparadas con listas comunes.
+     */
+    private static void checkReservationIndex() {
+        Random random = new Random(5);
+        RegistroClientes registry = new RegistroClientes();
+        Cliente[] clients = new Cliente[4];
+        List<List<Integer>> expected = new ArrayList<>();
+        for (int i = 0; i < clients.length; i++) {
+            clients[i] = registry.intern("Cliente " + i, "c" + i + "@x", String.valueOf(i));
+            expected.add(new ArrayList<>());
+        }
+        int capacity = 64;
+        IndiceReservas index = new IndiceReservas(capacity, registry);
+        int[] owner = new int[capacity];
+        Arrays.fill(owner, -1);
+
+        index.addAll(clients[0], new int[] {10, 20, 30, 40, 50});
+        for (int seat : new int[] {10, 20, 30, 40, 50}) {
+            expected.get(0).add(seat);
+            owner[seat] = 0;
+        }
+        check(!index.remove(clients[1], 10), "quitar un asiento de otro cliente");
+        check(!index.remove(clients[0], 11), "quitar un asiento sin dueño");
+        for (int seat : new int[] {10, 50, 30}) { // Primero, último y del medio.
+            check(index.remove(clients[0], seat), "quitar el asiento " + seat);
+            expected.get(0).remove(Integer.valueOf(seat));
+            owner[seat] = -1;
+            checkSeats(index, clients, expected);
+        }
+
+        for (int step = 0; step < 5000; step++) {
+            int seat = random.nextInt(capacity);
+            if (owner[seat] < 0) {
+                int client = random.nextInt(clients.length);
+                index.add(clients[client], seat);
+                expected.get(client).add(seat);
+                owner[seat] = client;
+            } else {
+                check(index.remove(clients[owner[seat]], seat), "quitar el asiento " + seat);
+                expected.get(owner[seat]).remove(Integer.valueOf(seat));
+                owner[seat] = -1;
+            }
+            checkSeats(index, clients, expected);
+            checkEquals(owner[seat] < 0 ? null : clients[owner[seat]], index.holderOf(seat), "dueño del asiento " + seat);
+        }
+    }
+
+    private static void checkSeats(IndiceReservas index, Cliente[] clients, List<List<Integer>> expected) {
+        int total = 0;
+        for (int i = 0; i < clients.length; i++) {
+            List<Integer> seats = new ArrayList<>();
+            for (int seat : index.seatsOf(clients[i])) {
+                seats.add(seat);
+            }
+            checkEquals(expected.get(i), seats, "asientos de " + clients[i].getEmail());
+            checkEquals(expected.get(i).isEmpty() ? null : clients[i], index.find(clients[i]), "find de " + clients[i].getEmail());
+            total += seats.size();
+        }
+        checkEquals(total, index.size(), "asientos reservados");
+    }
+
+    /**
+     * `AgregadosSecciones`: mientras un hilo publica sin parar valores que siempre suman lo mismo,
+     * los lectores nunca ven valores de dos publicaciones distintas.
+     */
+    private static void checkAggregates() throws Exception {
+        int capacity = 1000;
+        AgregadosSecciones aggregates = new AgregadosSecciones(new String[] {"A", "B"}, new int[] {300, 45});
+        aggregates.publish(1, 7, 3, 2);
+        DisponibilidadSeccion b = aggregates.snapshot(1);
+        checkEquals(List.of(7, 3, 2, 135L), List.of(b.getAvailableSeats(), b.getSoldSeats(), b.getWaitlistSize(), b.getRevenue()),
+                "libres, vendidos, en espera y recaudación");
+        checkEquals(7, aggregates.freeSeats(1), "libres sin reintentos");
+        checkEquals(2, aggregates.waitlistDepth(1), "en espera sin reintentos");
+
+        CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> {
+            for (int i = 0; i < 2_000_000; i++) {
+                int free = i % (capacity + 1);
+                aggregates.publish(0, free, capacity - free, free % 7);
+            }
+        });
+        long reads = 0;
+        while (!writer.isDone() || reads == 0) {
+            DisponibilidadSeccion a = aggregates.snapshot(0);
+            check(a.getAvailableSeats() + a.getSoldSeats() == capacity && a.getWaitlistSize() == a.getAvailableSeats() % 7
+                    && a.getRevenue() == a.getSoldSeats() * 300L, "lectura de dos publicaciones distintas: " + a);
+            reads++;
+        }
+        writer.get();
+        checkEquals(b.toString(), aggregates.snapshot(1).toString(), "la otra sección no cambia");
+    }
+
+    /**
+     * `RuedaTemporizadores`: con vencimientos en todos los niveles y más allá de la rueda, saltos de
+     * reloj cortos y largos, cancelaciones y rearmados, cada avance devuelve exactamente los
+     * vencidos, en orden de vencimiento, y ninguno antes de su hora.
+     */
+    private static void checkTimerWheel() {
+        Random random = new Random(3);
+        long tick = 10;
+        long now = 1_000_003;
+        int ids = 200;
+        RuedaTemporizadores wheel = new RuedaTemporizadores(ids, tick, now);
+        long[] deadlineTick = new long[ids]; // Modelo: tick de vencimiento, o -1 si no está armado.
+        Arrays.fill(deadlineTick, -1);
+        long[] scales = {64, 64 * 64, 64 * 64 * 64, 64L * 64 * 64 * 64, 4L * 64 * 64 * 64 * 64}; // En ticks.
+        int armed = 0;
+
+        for (int step = 0; step < 20_000; step++) {
+            int id = random.nextInt(ids);
+            int action = random.nextInt(10);
+            if (action < 5) {
+                long deadline = now + (long) (random.nextDouble() * scales[random.nextInt(scales.length)] * tick);
+                wheel.arm(id, deadline);
+                armed += deadlineTick[id] < 0 ? 1 : 0;
+                deadlineTick[id] = Math.max(now / tick + 1, (deadline + tick - 1) / tick);
+                checkEquals(deadlineTick[id] * tick, wheel.deadlineOf(id), "vencimiento del temporizador " + id);
+            } else if (action < 6) {
+                checkEquals(deadlineTick[id] >= 0, wheel.cancel(id), "cancelar el temporizador " + id);
+                armed -= deadlineTick[id] >= 0 ? 1 : 0;
+                deadlineTick[id] = -1;
+            } else {
+                now += (long) (random.nextDouble() * scales[random.nextInt(scales.length - 1)] * tick / 8);
+                int[] expired = wheel.advance(now);
+                List<Integer> expected = new ArrayList<>();
+                for (int i = 0; i < ids; i++) {
+                    if (deadlineTick[i] >= 0 && deadlineTick[i] <= now / tick) {
+                        expected.add(i);
+                    }
+                }
+                List<Integer> actual = new ArrayList<>();
+                for (int i = 0; i < expired.length; i++) {
+                    actual.add(expired[i]);
+                    check(i == 0 || deadlineTick[expired[i - 1]] <= deadlineTick[expired[i]],
+                            "vencimientos fuera de orden en el paso " + step);
+                }
+                actual.sort(null);
+                checkEquals(expected, actual, "vencidos al avanzar a " + now + " en el paso " + step);
+                for (int i : expected) {
+                    deadlineTick[i] = -1;
+                }
+                armed -= expected.size();
+            }
+            checkEquals(armed, wheel.size(), "temporizadores armados");
+            checkEquals(deadlineTick[id] >= 0, wheel.isArmed(id), "temporizador " + id + " armado");
+        }
+    }
+
+    /**
+     * Diario e instantáneas: un estadio persistente se recupera igual desde una instantánea más el
+     * diario que la sigue (como tras una caída, sin cerrarlo) y desde la instantánea que toma al
+     * cerrar, incluidas las listas de espera con sus secciones alternativas.
+     */
+    private static void checkRecovery() throws Exception {
+        Path data = Files.createTempDirectory("pruebas-recuperacion");
+        Path crashed = Files.createTempDirectory("pruebas-recuperacion-caida");
+        List<Estadio> open = new ArrayList<>();
+        try {
+            DistribucionEstadio layout = DistribucionEstadio.standard(3, 2, 2);
+            Estadio estadio = Estadio.open(layout, data);
+            open.add(estadio);
+            List<String> emails = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                emails.add("c" + i + "@x");
+                estadio.internClient("Cliente " + i, "c" + i + "@x", String.valueOf(i));
+            }
+            Cliente[] c = new Cliente[emails.size()];
+            for (int i = 0; i < c.length; i++) {
+                c[i] = estadio.findClient(emails.get(i));
+            }
+            for (int i = 0; i < 3; i++) {
+                check(estadio.reserveSeat(c[i], "Field Level") != null, "reserva en Field Level");
+            }
+            check(estadio.reserveSeat(c[3], "Main Level") != null && estadio.reserveSeat(c[4], "Main Level") != null,
+                    "reservas en Main Level");
+            check(estadio.joinWaitlist(c[5], "Field Level", PrioridadEspera.GENERAL, List.of("Main Level")), "espera de c5");
+            estadio.snapshot();
+
+            // Después de la instantánea: solo en el diario.
+            check(estadio.joinWaitlist(c[6], "Field Level", PrioridadEspera.values()[PrioridadEspera.values().length - 1],
+                    List.of("Grandstand Level")), "espera de c6");
+            check(estadio.joinWaitlist(c[7], "Main Level", PrioridadEspera.GENERAL, List.of()), "espera de c7");
+            checkEquals(1, estadio.cancelReservation(c[0]).size(), "cancelación de c0");
+            check(estadio.reserveSeat(c[0], "Grandstand Level") != null, "reserva en Grandstand Level");
+            checkEquals(ResultadoDeshacer.DONE, estadio.undo(c[7]), "deshacer la espera de c7");
+            String state = describe(estadio, emails);
+
+            List<Path> files;
+            try (Stream<Path> walk = Files.walk(data)) {
+                files = walk.filter(Files::isRegularFile).collect(Collectors.toList());
+            }
+            for (Path file : files) {
+                Path target = crashed.resolve(data.relativize(file));
+                Files.createDirectories(target.getParent());
+                Files.copy(file, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            Estadio afterCrash = Estadio.open(layout, crashed);
+            open.add(afterCrash);
+            checkEquals(state, describe(afterCrash, emails), "estado recuperado de la instantánea y el diario");
+
+            estadio.close();
+            open.remove(estadio);
+            Estadio reopened = Estadio.open(layout, data);
+            open.add(reopened);
+            checkEquals(state, describe(reopened, emails), "estado recuperado de la instantánea final");
+
+            // Las alternativas también se recuperan: un asiento de Main Level pasa a c5, que espera en Field Level.
+            for (Estadio recovered : List.of(afterCrash, reopened)) {
+                List<Cancelacion> released = recovered.cancelReservation(recovered.findClient(emails.get(3)));
+                checkEquals(emails.get(5), released.get(0).getPromotedClient().getEmail(), "promoción a la sección alternativa");
+            }
+            checkEquals(describe(afterCrash, emails), describe(reopened, emails), "estado después de la promoción");
+        } finally {
+            for (Estadio estadio : open) {
+                estadio.close();
+            }
+            deleteRecursively(data);
+            deleteRecursively(crashed);
+        }
+    }
+
+    /**
+     * Estado comparable de un estadio: disponibilidad, asientos de cada cliente y listas de espera.
+     */
+    private static String describe(Estadio estadio, List<String> emails) {
+        StringBuilder state = new StringBuilder();
+        for (DisponibilidadSeccion section : estadio.getAvailability()) {
+            state.append(section).append('\n');
+            for (Cliente waiting : estadio.getWaitlist(section.getSection())) {
+                state.append("  espera ").append(waiting.getEmail()).append('\n');
+            }
+        }
+        for (String email : emails) {
+            Cliente client = estadio.findClient(email);
+            state.append(email).append(' ').append(client == null ? List.of() : estadio.getReservedSeats(client)).append('\n');
+        }
+        return state.toString();
+    }
+
+    /**
+     * Deshacer y rehacer una entrada a la lista de espera con una sección alternativa: al deshacerla
+     * el cliente deja de recibir asientos de ambas secciones, y al rehacerla vuelve a recibirlos.
+     */
+    private static void checkWaitlistUndo() {
+        Estadio estadio = new Estadio(DistribucionEstadio.standard(1, 1, 1));
+        Cliente ana = estadio.internClient("Ana", "ana@x", "1");
+        Cliente beto = estadio.internClient("Beto", "beto@x", "2");
+        Cliente carla = estadio.internClient("Carla", "carla@x", "3");
+        check(estadio.reserveSeat(ana, "Field Level") != null && estadio.reserveSeat(beto, "Main Level") != null,
+                "llenar Field Level y Main Level");
+        check(estadio.joinWaitlist(carla, "Field Level", PrioridadEspera.GENERAL, List.of("Main Level")), "espera de Carla");
+
+        checkEquals(ResultadoDeshacer.DONE, estadio.undo(carla), "deshacer la espera");
+        checkEquals(-1, estadio.getWaitlistPosition(carla, "Field Level"), "posición después de deshacer");
+        check(estadio.cancelReservation(beto).get(0).getPromotedClient() == null,
+                "un asiento de la sección alternativa no debe ir a quien deshizo su espera");
+        check(estadio.reserveSeat(beto, "Main Level") != null, "volver a llenar Main Level");
+
+        checkEquals(ResultadoDeshacer.DONE, estadio.redo(carla), "rehacer la espera");
+        checkEquals(1, estadio.getWaitlistPosition(carla, "Field Level"), "posición después de rehacer");
+        checkEquals(carla, estadio.cancelReservation(beto).get(0).getPromotedClient(),
+                "la alternativa vuelve con la espera rehecha");
+        checkEquals("Main Level", estadio.getReservedSeats(carla).get(0).getSection(), "sección del asiento de Carla");
+        checkEquals(List.of(), estadio.getWaitlist("Field Level"), "lista de Field Level después de la promoción");
+        checkEquals(ResultadoDeshacer.CONFLICT, estadio.undo(carla), "deshacer una espera que ya terminó en promoción");
+
+        // Deshacer la cancelación de Beto devuelve a Carla al frente de Field Level, aceptando Main Level.
+        checkEquals(ResultadoDeshacer.DONE, estadio.undo(beto), "deshacer la cancelación");
+        checkEquals(List.of(carla), estadio.getWaitlist("Field Level"), "Carla vuelve a esperar");
+        checkEquals(carla, estadio.cancelReservation(beto).get(0).getPromotedClient(), "Carla conserva la alternativa");
+        checkEquals(ResultadoDeshacer.NOTHING, estadio.redo(carla), "nada que rehacer");
+    }
+
+    private static void deleteRecursively(Path directory) throws Exception {
+        List<Path> paths;
+        try (Stream<Path> walk = Files.walk(directory)) {
+            paths = walk.sorted(Comparator.reverseOrder()).collect(Collectors.toList());
+        }
+        for (Path path : paths) {
+            Files.delete(path);
+        }
+    }
+
+    private static HttpResponse<String> post(HttpClient http, String url, String body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofSeconds(10))
+                .POST(HttpRequest.BodyPublishers.ofString(body)).build();
+        return http.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
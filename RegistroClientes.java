@@ -0,0 +1,195 @@
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * La clase `RegistroClientes` asigna a cada cliente un identificador numérico denso (0, 1, 2, ...).
+ *
+ * Los identificadores permiten que el diario, las instantáneas y el índice de reservas guarden un
+ * `int` en lugar de los datos completos del cliente. Dos objetos `Cliente` con el mismo email
+ * normalizado reciben el mismo identificador, y `intern` devuelve siempre el primero que se
+ * registró, para que el resto del programa comparta una sola instancia por cliente.
+ *
+ * Estructuras de datos utilizadas:
+ * 1. **Tabla hash de direccionamiento abierto** (`slots`): Cada casilla guarda identificador + 1
+ *    (0 = vacía) y se compara contra el email del cliente en `clients`; con sondeo lineal y a lo
+ *    sumo media tabla ocupada, buscar cuesta O(1). Son 8 bytes por cliente en lugar de un nodo de
+ *    mapa y un `Integer`. Se lee sin candados: cada casilla se publica con semántica release
+ *    después de guardar el cliente, y al crecer se publica una tabla nueva completa.
+ * 2. **Cliente[]**: Identificador -> cliente. Crece duplicando su tamaño; se publica como `volatile`.
+ */
+public class RegistroClientes {
+    private volatile AtomicIntegerArray slots = new AtomicIntegerArray(32);
+    private volatile Cliente[] clients = new Cliente[16];
+    private int size;
+    private int used; // Casillas ocupadas en `slots`; protegido por `this`.
+
+    /**
+     * Registra un cliente si no estaba registrado.
+     *
+     * @param client Cliente a registrar.
+     * @return Identificador del cliente.
+     */
+    public int register(Cliente client) {
+        int id = idOf(client.getKey());
+        if (id >= 0) {
+            return id;
+        }
+        synchronized (this) {
+            id = idOf(client.getKey());
+            if (id >= 0) {
+                return id;
+            }
+            int newId = size;
+            store(newId, client);
+            return newId;
+        }
+    }
+
+    /**
+     * Registra un cliente con un identificador conocido. Se usa al recuperar el estado desde disco.
+     *
+     * @param id Identificador guardado.
+     * @param client Cliente correspondiente.
+     */
+    public synchronized void restore(int id, Cliente client) {
+        store(id, client);
+    }
+
+    /**
+     * @param client Cliente a buscar (se compara por email normalizado).
+     * @return Identificador del cliente, o -1 si no está registrado.
+     */
+    public int idOf(Cliente client) {
+        return idOf(client.getKey());
+    }
+
+    /**
+     * @param key Email normalizado (ver `Cliente.normalize`).
+     * @return Identificador del cliente, o -1 si no está registrado.
+     */
+    public int idOf(String key) {
+        AtomicIntegerArray table = slots;
+        int mask = table.length() - 1;
+        for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+            int value = table.getAcquire(slot);
+            if (value == 0) {
+                return -1;
+            }
+            Cliente client = get(value - 1);
+            if (client != null && client.getKey().equals(key)) {
+                return value - 1;
+            }
+        }
+    }
+
+    /**
+     * Devuelve la instancia registrada de un cliente, registrándolo si es nuevo.
+     *
+     * Los datos de un cliente registrado no cambian: el diario guarda su registro `CLIENT` una vez
+     * por segmento y las reservas comparten la instancia. Por eso un email conocido con otro nombre
+     * u otro teléfono se rechaza en lugar de devolver en silencio los datos anteriores.
+     *
+     * @param name Nombre del cliente.
+     * @param email Email del cliente.
+     * @param phoneNumber Teléfono del cliente.
+     * @return El `Cliente` compartido para ese email; solo se crea un objeto si el email es nuevo.
+     * @throws IllegalArgumentException Si el email ya está registrado con otro nombre o teléfono.
+     */
+    public Cliente intern(String name, String email, String phoneNumber) {
+        int id = idOf(Cliente.normalize(email));
+        Cliente registered = get(id >= 0 ? id : register(new Cliente(name, email, phoneNumber)));
+        // Se compara también después de registrar: otro hilo pudo registrar el mismo email antes.
+        if (!registered.getName().equals(name) || !registered.getPhoneNumber().equals(phoneNumber)) {
+            throw new IllegalArgumentException("El email " + email + " ya está registrado a nombre de "
+                    + registered.getName() + " con el teléfono " + registered.getPhoneNumber());
+        }
+        return registered;
+    }
+
+    /**
+     * Busca un cliente sin registrarlo, para consultas y cancelaciones.
+     *
+     * @param email Email del cliente (sin importar mayúsculas ni espacios alrededor).
+     * @return El `Cliente` registrado con ese email, o null si no está registrado.
+     */
+    public Cliente find(String email) {
+        int id = idOf(Cliente.normalize(email));
+        return id >= 0 ? get(id) : null;
+    }
+
+    /**
+     * @param id Identificador del cliente.
+     * @return Cliente registrado con ese identificador, o null si no existe.
+     */
+    public Cliente get(int id) {
+        Cliente[] current = clients;
+        return id >= 0 && id < current.length ? current[id] : null;
+    }
+
+    /**
+     * @return Cantidad de identificadores asignados (el mayor identificador más uno).
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Guarda el cliente en el arreglo antes de publicarlo en la tabla, para que quien obtenga el
+     * identificador de la tabla también vea el cliente en el arreglo. Debe llamarse sincronizado.
+     */
+    private void store(int id, Cliente client) {
+        Cliente[] current = clients;
+        if (id >= current.length) {
+            current = Arrays.copyOf(current, Math.max(id + 1, current.length * 2));
+        }
+        current[id] = client;
+        clients = current;
+        AtomicIntegerArray table = slots;
+        if ((used + 1) * 2 > table.length()) {
+            table = rehash(table, table.length() * 2);
+            slots = table;
+        }
+        if (insert(table, client.getKey(), id)) {
+            used++;
+        }
+        size = Math.max(size, id + 1);
+    }
+
+    /**
+     * Escribe el identificador en la casilla del email, reemplazando la que ya tuviera ese email.
+     *
+     * @return true si ocupó una casilla vacía.
+     */
+    private boolean insert(AtomicIntegerArray table, String key, int id) {
+        int mask = table.length() - 1;
+        for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+            int value = table.get(slot);
+            if (value == 0 || clients[value - 1].getKey().equals(key)) {
+                table.setRelease(slot, id + 1);
+                return value == 0;
+            }
+        }
+    }
+
+    /**
+     * Copia todas las casillas en una tabla nueva, que se publica ya completa.
+     */
+    private AtomicIntegerArray rehash(AtomicIntegerArray table, int capacity) {
+        AtomicIntegerArray larger = new AtomicIntegerArray(capacity);
+        for (int slot = 0; slot < table.length(); slot++) {
+            int value = table.get(slot);
+            if (value != 0) {
+                insert(larger, clients[value - 1].getKey(), value - 1);
+            }
+        }
+        return larger;
+    }
+
+    /**
+     * Mezcla los bits del hash del email para que emails parecidos no caigan en casillas contiguas.
+     */
+    private static int hash(String key) {
+        int h = key.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
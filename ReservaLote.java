@@ -0,0 +1,47 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resultado de una `SolicitudReserva` dentro de una reserva en lote. Cada solicitud es todo o nada:
+ * o se reservaron todos los asientos pedidos, o ninguno.
+ *
+ * Los asientos se guardan como índices del inventario; los objetos `Asiento` se crean solo al
+ * llamar a `getSeats`, para no asignar miles de objetos en cargas masivas que no los usan.
+ */
+public class ReservaLote {
+    private final SolicitudReserva request;
+    private final int[] seatIndices; // Vacío si la solicitud no se pudo cumplir.
+    private final InventarioAsientos inventory;
+
+    public ReservaLote(SolicitudReserva request, int[] seatIndices, InventarioAsientos inventory) {
+        this.request = request;
+        this.seatIndices = seatIndices;
+        this.inventory = inventory;
+    }
+
+    public SolicitudReserva getRequest() {
+        return request;
+    }
+
+    /**
+     * @return true si se reservaron todos los asientos pedidos.
+     */
+    public boolean isSuccessful() {
+        return seatIndices.length > 0;
+    }
+
+    public int getSeatCount() {
+        return seatIndices.length;
+    }
+
+    /**
+     * @return Asientos reservados; vacío si la solicitud no se pudo cumplir.
+     */
+    public List<Asiento> getSeats() {
+        List<Asiento> seats = new ArrayList<>(seatIndices.length);
+        for (int seatIndex : seatIndices) {
+            seats.add(inventory.seatAt(seatIndex));
+        }
+        return seats;
+    }
+}
@@ -0,0 +1,20 @@
+/**
+ * Resultado de deshacer o rehacer la última acción de un cliente (ver `Estadio.undo`).
+ */
+public enum ResultadoDeshacer {
+    /**
+     * La acción se deshizo (o se rehízo).
+     */
+    DONE,
+
+    /**
+     * El cliente no tenía acciones en la pila.
+     */
+    NOTHING,
+
+    /**
+     * Otra operación ya cambió el asiento o la lista de espera que la acción había dejado, así que
+     * no se puede revertir. La acción se descarta de la pila.
+     */
+    CONFLICT
+}
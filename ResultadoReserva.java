@@ -0,0 +1,83 @@
+import java.util.List;
+
+/**
+ * Resultado de pedir un asiento en una sección. En lugar de preguntar al usuario qué hacer cuando
+ * la sección está llena, el resultado trae las secciones alternativas con asientos libres y si
+ * el cliente puede unirse a la lista de espera; quien llama decide.
+ */
+public class ResultadoReserva {
+    /**
+     * Estados posibles de una solicitud de reserva.
+     */
+    public enum Estado {
+        RESERVED,        // Se reservó un asiento.
+        SECTION_FULL,    // La sección no tiene asientos libres.
+        INVALID_SECTION  // La sección no existe.
+    }
+
+    private final Estado status;
+    private final Cliente client;
+    private final String section;
+    private final Asiento seat;
+    private final int cost;
+    private final List<String> alternativeSections;
+    private final boolean waitlistAvailable;
+
+    public ResultadoReserva(Estado status, Cliente client, String section, Asiento seat, int cost,
+                            List<String> alternativeSections, boolean waitlistAvailable) {
+        this.status = status;
+        this.client = client;
+        this.section = section;
+        this.seat = seat;
+        this.cost = cost;
+        this.alternativeSections = alternativeSections;
+        this.waitlistAvailable = waitlistAvailable;
+    }
+
+    public Estado getStatus() {
+        return status;
+    }
+
+    public boolean isReserved() {
+        return status == Estado.RESERVED;
+    }
+
+    public Cliente getClient() {
+        return client;
+    }
+
+    /**
+     * @return Nombre normalizado de la sección, o el texto recibido si la sección no es válida.
+     */
+    public String getSection() {
+        return section;
+    }
+
+    /**
+     * @return Asiento reservado, o null si no se reservó.
+     */
+    public Asiento getSeat() {
+        return seat;
+    }
+
+    /**
+     * @return Costo del asiento reservado, o 0 si no se reservó.
+     */
+    public int getCost() {
+        return cost;
+    }
+
+    /**
+     * @return Otras secciones con asientos libres cuando la sección pedida está llena; vacío en otro caso.
+     */
+    public List<String> getAlternativeSections() {
+        return alternativeSections;
+    }
+
+    /**
+     * @return true si el cliente puede unirse a la lista de espera de la sección pedida.
+     */
+    public boolean isWaitlistAvailable() {
+        return waitlistAvailable;
+    }
+}
@@ -0,0 +1,205 @@
+import java.util.Arrays;
+
+/**
+ * La clase `RuedaTemporizadores` es una rueda de temporizadores jerárquica para vencimientos de
+ * identificadores enteros (por ejemplo, asientos retenidos), en lugar de una tarea programada por
+ * cada temporizador.
+ *
+ * Estructura:
+ * - `LEVELS` niveles de `SLOTS` casillas. Una casilla del nivel 0 dura un tick; una del nivel `n`
+ *   dura `SLOTS^n` ticks. Con 4 niveles de 64 casillas y ticks de 100 ms, la rueda cubre unos
+ *   19 días; los vencimientos más lejanos esperan en el último nivel y se vuelven a ubicar.
+ * - Cada casilla es una lista doblemente enlazada intrusiva sobre arreglos primitivos (`next`,
+ *   `prev`), indexada por identificador. Armar y cancelar cuestan O(1) y no crean objetos.
+ * - Al avanzar, cuando el nivel 0 da una vuelta se "desciende" la casilla actual del nivel
+ *   siguiente, repartiendo sus temporizadores en los niveles de abajo. Si los niveles inferiores
+ *   están vacíos se salta directo al próximo descenso, así que un salto largo de reloj no
+ *   recorre tick por tick.
+ *
+ * Cada identificador tiene como mucho un temporizador; armarlo de nuevo reemplaza el anterior.
+ * Esta clase no está sincronizada.
+ */
+public class RuedaTemporizadores {
+    private static final int LEVELS = 4;
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int NONE = -1;
+
+    private final long tickMillis;
+    private final int[] heads = new int[LEVELS * SLOTS]; // Primer identificador de cada casilla.
+    private final int[] levelSize = new int[LEVELS];     // Temporizadores en cada nivel.
+    private final int[] next;
+    private final int[] prev;
+    private final int[] bucket;        // Casilla de cada identificador, o NONE si no está armado.
+    private final long[] deadlineTick; // Tick en que vence cada identificador.
+    private long currentTick;          // Último tick procesado.
+    private int size;
+
+    /**
+     * @param ids Cantidad de identificadores (0 a `ids - 1`).
+     * @param tickMillis Duración de un tick; los vencimientos se redondean hacia arriba a un tick.
+     * @param nowMillis Hora actual, en milisegundos.
+     */
+    public RuedaTemporizadores(int ids, long tickMillis, long nowMillis) {
+        this.tickMillis = tickMillis;
+        next = new int[ids];
+        prev = new int[ids];
+        bucket = new int[ids];
+        deadlineTick = new long[ids];
+        Arrays.fill(heads, NONE);
+        Arrays.fill(bucket, NONE);
+        currentTick = nowMillis / tickMillis;
+    }
+
+    /**
+     * Arma (o vuelve a armar) el temporizador de un identificador, en O(1).
+     *
+     * @param id Identificador.
+     * @param deadlineMillis Hora de vencimiento, en milisegundos.
+     */
+    public void arm(int id, long deadlineMillis) {
+        cancel(id);
+        // Nunca en el tick actual, que ya se procesó: vence como pronto en el siguiente.
+        deadlineTick[id] = Math.max(currentTick + 1, (deadlineMillis + tickMillis - 1) / tickMillis);
+        insert(id);
+        size++;
+    }
+
+    /**
+     * Cancela el temporizador de un identificador, en O(1).
+     *
+     * @return true si estaba armado.
+     */
+    public boolean cancel(int id) {
+        int slot = bucket[id];
+        if (slot == NONE) {
+            return false;
+        }
+        unlink(id, slot);
+        size--;
+        return true;
+    }
+
+    public boolean isArmed(int id) {
+        return bucket[id] != NONE;
+    }
+
+    /**
+     * @return Hora de vencimiento del identificador (redondeada al tick), o -1 si no está armado.
+     */
+    public long deadlineOf(int id) {
+        return bucket[id] == NONE ? -1 : deadlineTick[id] * tickMillis;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Avanza la rueda hasta `nowMillis` y quita los temporizadores vencidos.
+     *
+     * @param nowMillis Hora actual, en milisegundos.
+     * @return Identificadores vencidos, en orden de vencimiento (por tick); vacío si no hubo.
+     */
+    public int[] advance(long nowMillis) {
+        long targetTick = nowMillis / tickMillis;
+        if (size == 0) {
+            currentTick = Math.max(currentTick, targetTick); // Nada que vencer: saltar directo.
+            return new int[0];
+        }
+        int[] expired = new int[0];
+        int count = 0;
+        while (currentTick < targetTick && size > 0) {
+            int lowest = 0;
+            while (levelSize[lowest] == 0) {
+                lowest++;
+            }
+            if (lowest > 0) {
+                // Nada puede vencer antes del próximo descenso del nivel más bajo con temporizadores.
+                int bits = SLOT_BITS * lowest;
+                currentTick = Math.min(targetTick, (((currentTick >>> bits) + 1) << bits) - 1);
+                if (currentTick == targetTick) {
+                    break;
+                }
+            }
+            currentTick++;
+            // Descender primero los niveles altos, para que sus temporizadores lleguen al nivel 0.
+            for (int level = LEVELS - 1; level >= 1; level--) {
+                if ((currentTick & ((1L << (SLOT_BITS * level)) - 1)) == 0) {
+                    cascade(level * SLOTS + (int) ((currentTick >>> (SLOT_BITS * level)) & (SLOTS - 1)));
+                }
+            }
+            int slot = (int) (currentTick & (SLOTS - 1));
+            for (int id = heads[slot]; id != NONE; ) {
+                int following = next[id];
+                if (deadlineTick[id] <= currentTick) {
+                    unlink(id, slot);
+                    size--;
+                    if (count == expired.length) {
+                        expired = Arrays.copyOf(expired, Math.max(16, count * 2));
+                    }
+                    expired[count++] = id;
+                }
+                id = following;
+            }
+        }
+        currentTick = Math.max(currentTick, targetTick);
+        return Arrays.copyOf(expired, count);
+    }
+
+    /**
+     * Vuelve a ubicar los temporizadores de una casilla según el tiempo que les falta.
+     */
+    private void cascade(int slot) {
+        int id = heads[slot];
+        heads[slot] = NONE;
+        while (id != NONE) {
+            levelSize[slot / SLOTS]--;
+            int following = next[id];
+            insert(id);
+            id = following;
+        }
+    }
+
+    /**
+     * Agrega un identificador a la casilla que le corresponde según `deadlineTick - currentTick`.
+     */
+    private void insert(int id) {
+        long deadline = deadlineTick[id];
+        long delta = deadline - currentTick;
+        int slot;
+        if (delta < SLOTS) {
+            slot = (int) (Math.max(deadline, currentTick) & (SLOTS - 1));
+        } else {
+            int level = 1;
+            while (level < LEVELS - 1 && delta >= 1L << (SLOT_BITS * (level + 1))) {
+                level++;
+            }
+            long position = delta >= 1L << (SLOT_BITS * LEVELS)
+                    ? (currentTick >>> (SLOT_BITS * level)) - 1 // Más allá de la rueda: la última casilla de la vuelta.
+                    : deadline >>> (SLOT_BITS * level);
+            slot = level * SLOTS + (int) (position & (SLOTS - 1));
+        }
+        bucket[id] = slot;
+        levelSize[slot / SLOTS]++;
+        prev[id] = NONE;
+        next[id] = heads[slot];
+        if (heads[slot] != NONE) {
+            prev[heads[slot]] = id;
+        }
+        heads[slot] = id;
+    }
+
+    private void unlink(int id, int slot) {
+        levelSize[slot / SLOTS]--;
+        if (prev[id] == NONE) {
+            heads[slot] = next[id];
+        } else {
+            next[prev[id]] = next[id];
+        }
+        if (next[id] != NONE) {
+            prev[next[id]] = prev[id];
+        }
+        bucket[id] = NONE;
+    }
+}
@@ -0,0 +1,132 @@
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * Implementación de `ServicioReservas` sobre un `Estadio`.
+ *
+ * Las operaciones de `Estadio` son seguras entre hilos (un candado por sección), pero pueden
+ * esperar el fsync del diario. Por eso cada operación se ejecuta en el `Executor` recibido y
+ * quien llama obtiene el futuro de inmediato. Un estadio confinado a un hilo (ver `GestorEventos`)
+ * no toma candados, así que el `Executor` debe ser ese mismo hilo.
+ */
+public class ServicioEstadio implements ServicioReservas {
+    private final Estadio estadio;
+    private final Executor executor;
+
+    /**
+     * @param estadio Estadio que atiende las operaciones.
+     * @param executor Hilos donde se ejecutan las operaciones.
+     */
+    public ServicioEstadio(Estadio estadio, Executor executor) {
+        this.estadio = estadio;
+        this.executor = executor;
+    }
+
+    @Override
+    public CompletableFuture<ResultadoReserva> reserve(Cliente client, String section) {
+        return submit(() -> estadio.reserve(client, section));
+    }
+
+    @Override
+    public CompletableFuture<List<Cancelacion>> cancel(Cliente client) {
+        return submit(() -> estadio.cancelReservation(client));
+    }
+
+    @Override
+    public CompletableFuture<Cancelacion> cancel(Cliente client, Asiento seat) {
+        return submit(() -> estadio.cancelReservation(client, seat));
+    }
+
+    @Override
+    public CompletableFuture<List<Asiento>> reservedSeats(Cliente client) {
+        return submit(() -> estadio.getReservedSeats(client));
+    }
+
+    @Override
+    public CompletableFuture<Asiento> hold(Cliente client, String section, long ttlMillis) {
+        return submit(() -> estadio.holdSeat(client, section, ttlMillis));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> confirmHold(Cliente client, Asiento seat) {
+        return submit(() -> estadio.confirmHold(client, seat));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> releaseHold(Cliente client, Asiento seat) {
+        return submit(() -> estadio.releaseHold(client, seat));
+    }
+
+    @Override
+    public CompletableFuture<List<DisponibilidadSeccion>> availability() {
+        return submit(estadio::getAvailability);
+    }
+
+    @Override
+    public CompletableFuture<List<Cancelacion>> releaseSeats(Cliente holder, List<Asiento> seats) {
+        return submit(() -> estadio.releaseSeats(holder, seats));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> joinWaitlist(Cliente client, String section, PrioridadEspera priority,
+                                                   List<String> fallbackSections) {
+        return submit(() -> estadio.joinWaitlist(client, section, priority, fallbackSections));
+    }
+
+    @Override
+    public CompletableFuture<Integer> joinWaitlistWithPosition(Cliente client, String section, PrioridadEspera priority,
+                                                               List<String> fallbackSections) {
+        return submit(() -> estadio.joinWaitlistWithPosition(client, section, priority, fallbackSections));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> leaveWaitlist(Cliente client, String section) {
+        return submit(() -> estadio.leaveWaitlist(client, section));
+    }
+
+    @Override
+    public CompletableFuture<List<Cliente>> waitlist(String section) {
+        return submit(() -> estadio.getWaitlist(section));
+    }
+
+    @Override
+    public CompletableFuture<Integer> waitlistPosition(Cliente client, String section) {
+        return submit(() -> estadio.getWaitlistPosition(client, section));
+    }
+
+    @Override
+    public CompletableFuture<ResultadoDeshacer> undo(Cliente client) {
+        return submit(() -> estadio.undo(client));
+    }
+
+    @Override
+    public CompletableFuture<ResultadoDeshacer> redo(Cliente client) {
+        return submit(() -> estadio.redo(client));
+    }
+
+    @Override
+    public CompletableFuture<List<String>> recentHistory(int limit) {
+        return submit(() -> estadio.getRecentHistory(limit));
+    }
+
+    @Override
+    public CompletableFuture<String> metrics() {
+        return submit(() -> estadio.getMetrics().dump());
+    }
+
+    @Override
+    public Cliente client(String name, String email, String phoneNumber) {
+        return estadio.internClient(name, email, phoneNumber);
+    }
+
+    @Override
+    public Cliente findClient(String email) {
+        return estadio.findClient(email);
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> operation) {
+        return CompletableFuture.supplyAsync(operation, executor);
+    }
+}
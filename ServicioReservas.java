@@ -0,0 +1,178 @@
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Interfaz de servicio del sistema de reservas, sin `Scanner` ni `System.out`.
+ *
+ * Todas las operaciones devuelven un `CompletableFuture` con un objeto de resultado, de modo que
+ * la consola, un servidor o una prueba de carga pueden usar el mismo motor sin bloquearse en la
+ * entrada del usuario. Los casos esperados (sección llena, sección no válida, reserva inexistente)
+ * vienen en el resultado; el futuro solo falla ante errores inesperados, como una falla de disco.
+ */
+public interface ServicioReservas {
+    /**
+     * Reserva el primer asiento libre de una sección.
+     *
+     * @param client Cliente que realiza la reserva.
+     * @param section Nombre de la sección (sin importar mayúsculas).
+     * @return Resultado con el asiento, o con las alternativas si la sección está llena.
+     */
+    CompletableFuture<ResultadoReserva> reserve(Cliente client, String section);
+
+    /**
+     * Cancela todas las reservas de un cliente.
+     *
+     * @param client Cliente que cancela.
+     * @return Una cancelación por asiento liberado; vacío si el cliente no tenía reservas.
+     */
+    CompletableFuture<List<Cancelacion>> cancel(Cliente client);
+
+    /**
+     * Cancela la reserva de un asiento específico.
+     *
+     * @param client Cliente que tiene la reserva.
+     * @param seat Asiento a liberar.
+     * @return Resultado de la cancelación, o null si el asiento no pertenece al cliente.
+     */
+    CompletableFuture<Cancelacion> cancel(Cliente client, Asiento seat);
+
+    /**
+     * Libera un lote de asientos de un cliente y promueve clientes de las listas de espera en una sola pasada.
+     *
+     * @param holder Cliente que tiene los asientos.
+     * @param seats Asientos a liberar.
+     * @return Una cancelación por asiento liberado, con el cliente promovido si lo hubo.
+     */
+    CompletableFuture<List<Cancelacion>> releaseSeats(Cliente holder, List<Asiento> seats);
+
+    /**
+     * @param client Cliente a consultar (se compara por email normalizado).
+     * @return Asientos reservados por el cliente; vacío si no tiene reservas.
+     */
+    CompletableFuture<List<Asiento>> reservedSeats(Cliente client);
+
+    /**
+     * Retiene el primer asiento libre de una sección mientras el comprador paga.
+     *
+     * @param ttlMillis Duración de la retención, en milisegundos.
+     * @return Asiento retenido, o null si la sección no es válida o está llena.
+     */
+    CompletableFuture<Asiento> hold(Cliente client, String section, long ttlMillis);
+
+    /**
+     * Convierte una retención vigente en una reserva.
+     *
+     * @return true si se reservó; false si el asiento no estaba retenido por el cliente.
+     */
+    CompletableFuture<Boolean> confirmHold(Cliente client, Asiento seat);
+
+    /**
+     * Libera una retención antes de que venza.
+     *
+     * @return true si el asiento estaba retenido por el cliente.
+     */
+    CompletableFuture<Boolean> releaseHold(Cliente client, Asiento seat);
+
+    /**
+     * @return Disponibilidad de cada sección, en el orden del estadio.
+     */
+    CompletableFuture<List<DisponibilidadSeccion>> availability();
+
+    /**
+     * Agrega un cliente a la lista de espera de una sección como público general.
+     *
+     * @return true si el cliente fue agregado, false si la sección no es válida o el cliente ya estaba esperando.
+     */
+    default CompletableFuture<Boolean> joinWaitlist(Cliente client, String section) {
+        return joinWaitlist(client, section, PrioridadEspera.GENERAL);
+    }
+
+    /**
+     * Agrega un cliente a la lista de espera de una sección con un nivel de prioridad.
+     *
+     * @return true si el cliente fue agregado, false si la sección no es válida o el cliente ya estaba esperando.
+     */
+    default CompletableFuture<Boolean> joinWaitlist(Cliente client, String section, PrioridadEspera priority) {
+        return joinWaitlist(client, section, priority, List.of());
+    }
+
+    /**
+     * Agrega un cliente a la lista de espera de una sección, con otras secciones que también aceptaría.
+     *
+     * @return true si el cliente fue agregado, false si alguna sección no es válida o el cliente ya estaba esperando.
+     */
+    CompletableFuture<Boolean> joinWaitlist(Cliente client, String section, PrioridadEspera priority,
+                                            List<String> fallbackSections);
+
+    /**
+     * Igual que `joinWaitlist`, pero devuelve la posición tomada en la misma operación, sin que
+     * una promoción entre medio la cambie.
+     *
+     * @return Posición (desde 1) en la que quedó el cliente; si ya estaba esperando, su posición
+     *         actual con signo negativo; 0 si alguna sección no es válida.
+     */
+    CompletableFuture<Integer> joinWaitlistWithPosition(Cliente client, String section, PrioridadEspera priority,
+                                                        List<String> fallbackSections);
+
+    /**
+     * Quita a un cliente de la lista de espera de una sección.
+     *
+     * @return true si el cliente estaba en la lista.
+     */
+    CompletableFuture<Boolean> leaveWaitlist(Cliente client, String section);
+
+    /**
+     * @param section Nombre de la sección (sin importar mayúsculas).
+     * @return Clientes en espera en el orden en que se atenderán; vacío si la sección no es válida.
+     */
+    CompletableFuture<List<Cliente>> waitlist(String section);
+
+    /**
+     * @param client Cliente a buscar (se compara por email normalizado).
+     * @param section Nombre de la sección (sin importar mayúsculas).
+     * @return Posición en la lista de espera empezando en 1, o -1 si el cliente no está esperando.
+     */
+    CompletableFuture<Integer> waitlistPosition(Cliente client, String section);
+
+    /**
+     * Deshace la última acción del cliente, sin afectar las de otros clientes.
+     *
+     * @return `DONE`, `NOTHING` si el cliente no tenía acciones, o `CONFLICT` si el asiento ya cambió.
+     */
+    CompletableFuture<ResultadoDeshacer> undo(Cliente client);
+
+    /**
+     * Rehace la última acción deshecha del cliente.
+     *
+     * @return `DONE`, `NOTHING` si el cliente no tenía acciones, o `CONFLICT` si el asiento ya cambió.
+     */
+    CompletableFuture<ResultadoDeshacer> redo(Cliente client);
+
+    /**
+     * @param limit Cantidad máxima de transacciones.
+     * @return Las transacciones más recientes, de la más antigua a la más nueva.
+     */
+    CompletableFuture<List<String>> recentHistory(int limit);
+
+    /**
+     * @return Métricas en vivo (latencias, contadores y medidas por sección) en formato de texto de Prometheus.
+     */
+    CompletableFuture<String> metrics();
+
+    /**
+     * Devuelve la instancia compartida de un cliente, para no crear un `Cliente` nuevo en cada
+     * interacción. No pasa por el ejecutor: el registro de clientes admite varios hilos.
+     *
+     * @return El `Cliente` registrado con ese email.
+     * @throws IllegalArgumentException Si el email ya está registrado con otro nombre o teléfono.
+     */
+    Cliente client(String name, String email, String phoneNumber);
+
+    /**
+     * Busca un cliente ya registrado sin registrarlo, para operaciones que solo consultan o
+     * deshacen (cancelar, deshacer, rehacer). Tampoco pasa por el ejecutor.
+     *
+     * @return El `Cliente` registrado con ese email, o null si no está registrado.
+     */
+    Cliente findClient(String email);
+}
@@ -0,0 +1,498 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.management.JMException;
+
+/**
+ * Servidor HTTP/JSON embebido para las taquillas, construido sobre `com.sun.net.httpserver`
+ * del JDK, sin dependencias externas. Es otro cliente de `ServicioReservas`, igual que `Main`.
+ *
+ * Cada solicitud se atiende en su propio hilo: con Java 21 o superior se usa un hilo virtual por
+ * solicitud; en versiones anteriores, un pool de hilos que crece según la demanda.
+ *
+ * Rutas:
+ * - `POST /reservas` con `{"name","email","phone","section"}`: reserva un asiento.
+ *   Responde 200 si se reservó, 409 si la sección está llena (con alternativas) y 400 si la sección no es válida.
+ * - `DELETE /reservas?email=...`: cancela todas las reservas del cliente.
+ * - `GET /disponibilidad` o `GET /disponibilidad?section=...`: asientos libres, vendidos, lista de espera y recaudación por sección.
+ * - `POST /espera` con `{"name","email","phone","section","priority","fallbacks"}`: se une a la lista de espera.
+ *   `priority` es opcional (`GENERAL` o `SEASON_TICKET`); `fallbacks` también, con otras secciones
+ *   aceptadas separadas por comas. Responde la posición que tomó el cliente al anotarse, o 409 con
+ *   su posición actual si ya estaba esperando.
+ * - `POST /retenciones` con `{"name","email","phone","section","ttl"}`: retiene un asiento por `ttl`
+ *   segundos (300 por defecto) mientras el comprador paga. Responde 409 si la sección está llena.
+ * - `PUT /retenciones` con `{"email","section","row","seat"}`: confirma la retención como reserva.
+ * - `DELETE /retenciones?email=...&section=...&row=...&seat=...`: libera la retención.
+ * - `GET /espera?section=...&email=...`: posición del cliente en la lista de espera.
+ * - `DELETE /espera?section=...&email=...`: deja la lista de espera.
+ * - `GET /metricas`: métricas en vivo en texto, en el formato de Prometheus. Las mismas métricas
+ *   se publican por JMX como `estadio:type=Metricas`.
+ *
+ * Toda solicitud recibe respuesta: un cuerpo o parámetro mal formado, o un email ya registrado con
+ * otro nombre o teléfono, responde 400 `INVALID_REQUEST`, y una falla interna (por ejemplo, un
+ * error de disco al escribir el diario) responde 500.
+ *
+ * Uso:
+ * <pre>
+ * java -cp out ServidorReservas --port=8080 --data=datos --venue=distribucion-estadio.txt
+ * </pre>
+ * `--venue` es opcional; sin él se usa la distribución estándar de tres secciones.
+ */
+public class ServidorReservas {
+    static {
+        // Sin TCP_NODELAY, Nagle y el ACK retrasado agregan ~40 ms a cada respuesta pequeña.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final ServicioReservas service;
+
+    /**
+     * @param service Servicio que atiende las solicitudes.
+     * @param port Puerto donde escuchar; 0 elige un puerto libre.
+     */
+    public ServidorReservas(ServicioReservas service, int port) throws IOException {
+        this.service = service;
+        this.executor = newRequestExecutor();
+        server = HttpServer.create(new InetSocketAddress(port), 1024);
+        server.setExecutor(executor);
+        server.createContext("/reservas", guarded(this::handleReservations));
+        server.createContext("/disponibilidad", guarded(this::handleAvailability));
+        server.createContext("/espera", guarded(this::handleWaitlist));
+        server.createContext("/retenciones", guarded(this::handleHolds));
+        server.createContext("/metricas", guarded(this::handleMetrics));
+    }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (!arg.startsWith("--") || equals < 0) {
+                System.out.println("Opción no válida: " + arg);
+                return;
+            }
+            options.put(arg.substring(2, equals), arg.substring(equals + 1));
+        }
+
+        String venue = options.get("venue");
+        DistribucionEstadio layout = venue == null
+                ? DistribucionEstadio.standard(500, 1000, 2000) : DistribucionEstadio.load(Paths.get(venue));
+        Estadio estadio = Estadio.open(layout, Paths.get(options.getOrDefault("data", "datos")));
+        try {
+            estadio.getMetrics().register("estadio:type=Metricas");
+        } catch (JMException e) {
+            System.out.println("No se pudieron publicar las métricas por JMX: " + e.getMessage());
+        }
+        // Las operaciones corren en el hilo de la solicitud, que ya es uno por solicitud.
+        ServidorReservas server = new ServidorReservas(new ServicioEstadio(estadio, Runnable::run),
+                Integer.parseInt(options.getOrDefault("port", "8080")));
+        server.start();
+        System.out.println("Servidor de reservas escuchando en el puerto " + server.getPort());
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            try {
+                estadio.close();
+            } catch (IOException e) {
+                System.out.println("Error al cerrar el estadio: " + e.getMessage());
+            }
+        }));
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Deja de aceptar solicitudes, espera hasta un segundo a las que están en curso y libera los hilos.
+     */
+    public void stop() {
+        server.stop(1);
+        executor.shutdown();
+    }
+
+    /**
+     * @return Puerto en el que escucha el servidor.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Envuelve una ruta para que ninguna excepción deje la conexión sin respuesta: `HttpServer`
+     * la cerraría sin enviar nada. Una entrada mal formada (`IllegalArgumentException`, que incluye
+     * los números no válidos) responde 400; cualquier otra falla, incluida la de un futuro del
+     * servicio, responde 500 y se informa en la salida de errores.
+     */
+    private static HttpHandler guarded(HttpHandler handler) {
+        return exchange -> {
+            try {
+                handler.handle(exchange);
+            } catch (IllegalArgumentException e) {
+                sendError(exchange, 400, "{\"status\":\"INVALID_REQUEST\"}");
+            } catch (RuntimeException e) {
+                System.err.println("Error al atender " + exchange.getRequestMethod() + " "
+                        + exchange.getRequestURI() + ": " + e);
+                sendError(exchange, 500, "{\"status\":\"INTERNAL_ERROR\"}");
+            }
+        };
+    }
+
+    /**
+     * Responde con un error si la respuesta todavía no empezó; si ya se enviaron los encabezados,
+     * solo cierra el intercambio.
+     */
+    private static void sendError(HttpExchange exchange, int status, String json) throws IOException {
+        if (exchange.getResponseCode() == -1) {
+            send(exchange, status, json);
+        } else {
+            exchange.close();
+        }
+    }
+
+    private void handleReservations(HttpExchange exchange) throws IOException {
+        switch (exchange.getRequestMethod()) {
+            case "POST": {
+                Map<String, String> body = parseJson(readBody(exchange));
+                ResultadoReserva result = service.reserve(clientFrom(body), body.getOrDefault("section", "")).join();
+                switch (result.getStatus()) {
+                    case RESERVED:
+                        Asiento seat = result.getSeat();
+                        send(exchange, 200, "{\"status\":\"RESERVED\",\"section\":" + quote(seat.getSection())
+                                + ",\"row\":" + seat.getRow() + ",\"seat\":" + seat.getSeatNumber()
+                                + ",\"cost\":" + result.getCost() + "}");
+                        break;
+                    case SECTION_FULL:
+                        send(exchange, 409, "{\"status\":\"SECTION_FULL\",\"section\":" + quote(result.getSection())
+                                + ",\"alternatives\":" + quoteAll(result.getAlternativeSections())
+                                + ",\"waitlist\":" + result.isWaitlistAvailable() + "}");
+                        break;
+                    default:
+                        send(exchange, 400, "{\"status\":\"INVALID_SECTION\"}");
+                }
+                break;
+            }
+            case "DELETE": {
+                Map<String, String> query = parseQuery(exchange);
+                List<Cancelacion> results = service.cancel(new Cliente("", query.getOrDefault("email", ""), "")).join();
+                StringBuilder json = new StringBuilder("{\"canceled\":[");
+                for (int i = 0; i < results.size(); i++) {
+                    Cancelacion result = results.get(i);
+                    json.append(i > 0 ? "," : "").append("{\"seat\":").append(quote(result.getSeat().toString()))
+                            .append(",\"promoted\":").append(result.getPromotedClient() == null
+                                    ? "null" : quote(result.getPromotedClient().getEmail()))
+                            .append('}');
+                }
+                send(exchange, results.isEmpty() ? 404 : 200, json.append("]}").toString());
+                break;
+            }
+            default:
+                send(exchange, 405, "{\"error\":\"Método no permitido\"}");
+        }
+    }
+
+    private void handleAvailability(HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestMethod().equals("GET")) {
+            send(exchange, 405, "{\"error\":\"Método no permitido\"}");
+            return;
+        }
+        String section = parseQuery(exchange).get("section");
+        StringBuilder json = new StringBuilder("{\"sections\":[");
+        boolean first = true;
+        for (DisponibilidadSeccion availability : service.availability().join()) {
+            if (section != null && !availability.getSection().equalsIgnoreCase(section)) {
+                continue;
+            }
+            json.append(first ? "" : ",").append("{\"section\":").append(quote(availability.getSection()))
+                    .append(",\"price\":").append(availability.getPrice())
+                    .append(",\"available\":").append(availability.getAvailableSeats())
+                    .append(",\"waitlist\":").append(availability.getWaitlistSize())
+                    .append(",\"sold\":").append(availability.getSoldSeats())
+                    .append(",\"revenue\":").append(availability.getRevenue()).append('}');
+            first = false;
+        }
+        send(exchange, first && section != null ? 404 : 200, json.append("]}").toString());
+    }
+
+    private void handleWaitlist(HttpExchange exchange) throws IOException {
+        switch (exchange.getRequestMethod()) {
+            case "POST": {
+                Map<String, String> body = parseJson(readBody(exchange));
+                Cliente client = clientFrom(body);
+                String section = body.getOrDefault("section", "");
+                PrioridadEspera priority;
+                try {
+                    priority = PrioridadEspera.valueOf(body.getOrDefault("priority", "GENERAL").toUpperCase(Locale.ROOT));
+                } catch (IllegalArgumentException e) {
+                    send(exchange, 400, "{\"status\":\"INVALID_PRIORITY\"}");
+                    break;
+                }
+                // Secciones alternativas separadas por comas, por ejemplo "Main Level,Grandstand Level".
+                List<String> fallbacks = new ArrayList<>();
+                for (String fallback : body.getOrDefault("fallbacks", "").split(",")) {
+                    if (!fallback.isBlank()) {
+                        fallbacks.add(fallback.trim());
+                    }
+                }
+                // La posición se lee en la misma operación: una promoción posterior no la cambia.
+                int position = service.joinWaitlistWithPosition(client, section, priority, fallbacks).join();
+                if (position == 0) {
+                    send(exchange, 400, "{\"status\":\"INVALID_SECTION\"}");
+                } else {
+                    boolean joined = position > 0;
+                    send(exchange, joined ? 200 : 409, "{\"status\":\"" + (joined ? "WAITING" : "ALREADY_WAITING")
+                            + "\",\"position\":" + Math.abs(position) + "}");
+                }
+                break;
+            }
+            case "DELETE": {
+                Map<String, String> query = parseQuery(exchange);
+                Cliente client = new Cliente("", query.getOrDefault("email", ""), "");
+                boolean left = service.leaveWaitlist(client, query.getOrDefault("section", "")).join();
+                send(exchange, left ? 200 : 404, "{\"left\":" + left + "}");
+                break;
+            }
+            case "GET": {
+                Map<String, String> query = parseQuery(exchange);
+                Cliente client = new Cliente("", query.getOrDefault("email", ""), "");
+                int position = service.waitlistPosition(client, query.getOrDefault("section", "")).join();
+                send(exchange, position < 0 ? 404 : 200, "{\"position\":" + position + "}");
+                break;
+            }
+            default:
+                send(exchange, 405, "{\"error\":\"Método no permitido\"}");
+        }
+    }
+
+    private void handleHolds(HttpExchange exchange) throws IOException {
+        switch (exchange.getRequestMethod()) {
+            case "POST": {
+                Map<String, String> body = parseJson(readBody(exchange));
+                long ttlMillis = Long.parseLong(body.getOrDefault("ttl", "300")) * 1000;
+                Asiento seat = service.hold(clientFrom(body), body.getOrDefault("section", ""), ttlMillis).join();
+                if (seat == null) {
+                    send(exchange, 409, "{\"status\":\"UNAVAILABLE\"}");
+                } else {
+                    send(exchange, 200, "{\"status\":\"HELD\",\"section\":" + quote(seat.getSection())
+                            + ",\"row\":" + seat.getRow() + ",\"seat\":" + seat.getSeatNumber()
+                            + ",\"ttl\":" + ttlMillis / 1000 + "}");
+                }
+                break;
+            }
+            case "PUT": {
+                Map<String, String> body = parseJson(readBody(exchange));
+                boolean confirmed = service.confirmHold(new Cliente("", body.getOrDefault("email", ""), ""), seatFrom(body)).join();
+                send(exchange, confirmed ? 200 : 409, "{\"status\":\"" + (confirmed ? "RESERVED" : "HOLD_NOT_FOUND") + "\"}");
+                break;
+            }
+            case "DELETE": {
+                Map<String, String> query = parseQuery(exchange);
+                Cliente client = new Cliente("", query.getOrDefault("email", ""), "");
+                boolean released = service.releaseHold(client, seatFrom(query)).join();
+                send(exchange, released ? 200 : 404, "{\"released\":" + released + "}");
+                break;
+            }
+            default:
+                send(exchange, 405, "{\"error\":\"Método no permitido\"}");
+        }
+    }
+
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestMethod().equals("GET")) {
+            send(exchange, 405, "{\"error\":\"Método no permitido\"}");
+            return;
+        }
+        send(exchange, 200, "text/plain; version=0.0.4; charset=utf-8", service.metrics().join());
+    }
+
+    private static Asiento seatFrom(Map<String, String> values) {
+        return new Asiento(values.getOrDefault("section", ""), Integer.parseInt(values.getOrDefault("row", "0")),
+                Integer.parseInt(values.getOrDefault("seat", "0")));
+    }
+
+    /**
+     * Registra al cliente del cuerpo; un email conocido con otro nombre o teléfono lanza
+     * `IllegalArgumentException` y la solicitud responde 400.
+     */
+    private Cliente clientFrom(Map<String, String> body) {
+        return service.client(body.getOrDefault("name", ""), body.getOrDefault("email", ""), body.getOrDefault("phone", ""));
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        return new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+    }
+
+    private static void send(HttpExchange exchange, int status, String json) throws IOException {
+        send(exchange, status, "application/json; charset=utf-8", json);
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static Map<String, String> parseQuery(HttpExchange exchange) {
+        Map<String, String> values = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return values;
+        }
+        for (String pair : query.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals > 0) {
+                values.put(URLDecoder.decode(pair.substring(0, equals), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Lee un objeto JSON plano (sin objetos ni arreglos anidados) como un mapa de texto.
+     * Es suficiente para los cuerpos de las solicitudes de este servidor.
+     *
+     * @throws IllegalArgumentException Si una clave no va seguida de `:`, un texto no tiene comilla
+     *         final o un escape `\\u` está incompleto o no es hexadecimal.
+     */
+    static Map<String, String> parseJson(String json) {
+        Map<String, String> values = new HashMap<>();
+        int i = json.indexOf('{') + 1;
+        while (i > 0 && i < json.length()) {
+            int start = i;
+            int keyStart = json.indexOf('"', i);
+            if (keyStart < 0) {
+                break;
+            }
+            StringBuilder key = new StringBuilder();
+            i = readString(json, keyStart, key);
+            int colon = json.indexOf(':', i);
+            if (colon < 0) {
+                throw new IllegalArgumentException("Falta ':' después de la clave \"" + key + "\" en el JSON");
+            }
+            i = colon + 1;
+            while (i < json.length() && Character.isWhitespace(json.charAt(i))) {
+                i++;
+            }
+            if (i >= json.length()) {
+                break;
+            }
+            if (json.charAt(i) == '"') {
+                StringBuilder value = new StringBuilder();
+                i = readString(json, i, value);
+                values.put(key.toString(), value.toString());
+            } else {
+                int end = i;
+                while (end < json.length() && json.charAt(end) != ',' && json.charAt(end) != '}') {
+                    end++;
+                }
+                values.put(key.toString(), json.substring(i, end).trim());
+                i = end;
+            }
+            int comma = json.indexOf(',', i);
+            if (comma < 0) {
+                break;
+            }
+            if (comma < start) { // Cada vuelta debe avanzar; si no, el cuerpo está mal formado.
+                throw new IllegalArgumentException("JSON mal formado cerca de la posición " + i);
+            }
+            i = comma + 1;
+        }
+        return values;
+    }
+
+    /**
+     * Lee un texto JSON que empieza en la comilla `start` y devuelve la posición siguiente a la comilla final.
+     *
+     * @throws IllegalArgumentException Si el texto no tiene comilla final.
+     */
+    private static int readString(String json, int start, StringBuilder out) {
+        int i = start + 1;
+        while (i < json.length() && json.charAt(i) != '"') {
+            char c = json.charAt(i);
+            if (c == '\\' && i + 1 < json.length()) {
+                char escaped = json.charAt(++i);
+                switch (escaped) {
+                    case 'n': out.append('\n'); break;
+                    case 't': out.append('\t'); break;
+                    case 'r': out.append('\r'); break;
+                    case 'u':
+                        if (i + 5 > json.length()) {
+                            throw new IllegalArgumentException("Escape \\u incompleto en el JSON");
+                        }
+                        out.append((char) Integer.parseInt(json.substring(i + 1, i + 5), 16));
+                        i += 4;
+                        break;
+                    default: out.append(escaped);
+                }
+            } else {
+                out.append(c);
+            }
+            i++;
+        }
+        if (i >= json.length()) {
+            throw new IllegalArgumentException("Texto sin comilla final en el JSON");
+        }
+        return i + 1;
+    }
+
+    static String quote(String value) {
+        StringBuilder json = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        return json.append('"').toString();
+    }
+
+    private static String quoteAll(List<String> values) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < values.size(); i++) {
+            json.append(i > 0 ? "," : "").append(quote(values.get(i)));
+        }
+        return json.append(']').toString();
+    }
+
+    /**
+     * Un hilo virtual por solicitud cuando el JDK los ofrece (Java 21+); si no, un pool de hilos
+     * que crea uno nuevo por solicitud concurrente y reutiliza los libres.
+     */
+    private static ExecutorService newRequestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(task -> {
+                Thread thread = new Thread(task, "reservas-http");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+}
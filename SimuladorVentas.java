@@ -0,0 +1,694 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Simulador determinista de una apertura de ventas contra la API de `Estadio`, sin `Scanner` ni HTTP.
+ *
+ * Genera a partir de una semilla una traza de operaciones con hora virtual: una tormenta inicial
+ * de compradores (la primera parte de la traza llega 10 veces más rápido) que se concentra en la
+ * primera sección (`--hot`), reservas que encuentran la sección llena y reaccionan como en el menú
+ * (anotarse en la lista de espera aceptando las secciones alternativas que devuelve `reserve`,
+ * reservar en la primera alternativa, o abandonar), cancelaciones que promueven clientes en
+ * espera, y salidas de la lista de espera. Con `--holds=F`, esa fracción de las reservas retiene
+ * el asiento mientras el comprador paga: la mayoría paga más tarde en la traza y el resto deja
+ * vencer la retención, que devuelve el asiento y lo ofrece a la lista de espera. La misma semilla
+ * produce siempre la misma traza.
+ *
+ * Las retenciones vencen con la hora virtual de la traza (`Estadio.useHoldClock`), no con la del
+ * sistema: antes de cada operación el simulador llama a `expireHolds` con la hora de la operación.
+ * Así los vencimientos caen siempre entre las mismas operaciones, sea cual sea la velocidad.
+ *
+ * La traza se puede guardar (`--record`) y reproducir después (`--replay`), tan rápido como se
+ * pueda o a N veces la velocidad original (`--speed=N`). Con un solo hilo la ejecución es
+ * determinista y se reporta una huella del estado final: dos corridas de la misma traza dan la
+ * misma huella, y una diferencia señala un cambio de comportamiento.
+ *
+ * Solo se reproducen trazas propias, que guardan solicitudes (qué pidió cada comprador y cómo
+ * reacciona ante una sección llena). El diario de `DiarioReservas` y `HistorialTransacciones`
+ * guardan resultados (qué asiento recibió quién y a quién se promovió), sin hora ni reacciones, y
+ * no guardan las retenciones; reproducirlos solo volvería a aplicar esos resultados, que es lo que
+ * ya hace `Estadio.open` al recuperar.
+ *
+ * Reporta el rendimiento, la latencia por tipo de operación y las invariantes:
+ * - Ningún asiento reservado por dos clientes, y los asientos de los clientes suman los vendidos.
+ * - Por sección, libres + vendidos no supera la capacidad, y en total la diferencia (los asientos
+ *   retenidos) coincide con las retenciones vigentes según el simulador.
+ * - Las listas de espera respetan el orden FIFO dentro de cada nivel de prioridad, y cada
+ *   promoción por cancelación atendió al primero (solo con un hilo, donde el orden de llegada es
+ *   total). Las promociones por vencimiento de una retención no se comprueban una por una.
+ *
+ * Uso:
+ * <pre>
+ * java -cp out SimuladorVentas --seed=7 --operations=200000 --record=apertura.txt
+ * java -cp out SimuladorVentas --replay=apertura.txt --speed=10
+ * </pre>
+ *
+ * Opciones (todas opcionales):
+ * - `--seed=N`: Semilla de la traza (por defecto 42).
+ * - `--operations=N` y `--buyers=N`: Tamaño de la traza generada (por defecto 200000 y 50000).
+ * - `--rate=N`: Operaciones por segundo de hora virtual fuera de la tormenta (por defecto 20000).
+ * - `--hot=F`: Fracción de las reservas que piden la primera sección (por defecto 0.6).
+ * - `--holds=F`: Fracción de las reservas generadas que son retenciones (por defecto 0: sin retenciones).
+ * - `--hold-ttl=N`: Duración de una retención en milisegundos de hora virtual (por defecto 500).
+ * - `--seats=N`: Asientos por sección de la distribución estándar (por defecto 20000).
+ * - `--venue=archivo`: Distribución a usar en lugar de la estándar (ver `DistribucionEstadio`).
+ * - `--data=dir`: Usa un estadio persistente en `dir` en lugar de uno en memoria. Conviene que empiece
+ *   vacío: los asientos de clientes que no están en la traza cuentan como vendidos sin dueño.
+ * - `--record=archivo` y `--replay=archivo`: Guarda la traza generada o reproduce una guardada.
+ * - `--speed=N`: Reproduce a N veces la hora virtual; 0 (por defecto) no espera entre operaciones.
+ * - `--threads=N`: Hilos que ejecutan la traza, repartida por cliente (por defecto 1).
+ * - `--check-every=N`: Comprueba las invariantes cada N operaciones con un hilo (por defecto 10000; 0 solo al final).
+ */
+public class SimuladorVentas {
+    // Tipos de operación de la traza.
+    static final byte RESERVE = 'R';
+    static final byte CANCEL = 'C';
+    static final byte LEAVE = 'L';
+    static final byte HOLD = 'H';
+    static final byte PAY = 'P';
+    // Qué hace el comprador si la sección está llena.
+    static final byte WAIT = 'W';
+    static final byte ALTERNATIVE = 'A';
+    static final byte GIVE_UP = 'G';
+
+    // Contadores de resultados.
+    private static final int RESERVED = 0;
+    private static final int FULL = 1;
+    private static final int WAITED = 2;
+    private static final int SWITCHED = 3;
+    private static final int GAVE_UP = 4;
+    private static final int CANCELLED = 5;
+    private static final int PROMOTED = 6;
+    private static final int LEFT = 7;
+    private static final int HELD = 8;
+    private static final int PAID = 9;
+    private static final int EXPIRED = 10;
+    private static final String[] OUTCOMES = {"reservas", "sección llena", "a la lista de espera",
+            "en la alternativa", "abandonos", "asientos cancelados", "promociones", "salidas de la lista",
+            "retenciones", "retenciones pagadas", "retenciones vencidas"};
+
+    private final Traza trace;
+    private final DistribucionEstadio layout;
+    private final Estadio estadio;
+    private final Cliente[] clients;
+    private final Map<Cliente, Integer> clientIndex = new HashMap<>();
+    private final String[] sectionNames;
+    private final HistogramaLatencia[] latencies = {new HistogramaLatencia(), new HistogramaLatencia(), new HistogramaLatencia(),
+            new HistogramaLatencia(), new HistogramaLatencia()};
+    private final long holdTtlMillis;
+    private final Asiento[] heldSeats; // Última retención de cada comprador; solo la toca el hilo del comprador.
+    private final AtomicLong virtualMillis = new AtomicLong(); // Hora virtual más avanzada, para las retenciones.
+    private final AtomicLongArray outcomes = new AtomicLongArray(OUTCOMES.length);
+    private final List<String> violations = new ArrayList<>(); // Las primeras `MAX_REPORTED`.
+    private int violationCount;
+    private static final int MAX_REPORTED = 20;
+    private Verificador verifier; // Solo con un hilo: seguimiento del orden de las listas de espera.
+
+    /**
+     * @param holdTtlMillis Duración de las retenciones, en milisegundos de hora virtual.
+     */
+    public SimuladorVentas(Traza trace, DistribucionEstadio layout, Estadio estadio, long holdTtlMillis) {
+        this.trace = trace;
+        this.layout = layout;
+        this.estadio = estadio;
+        this.holdTtlMillis = holdTtlMillis;
+        heldSeats = new Asiento[trace.buyers];
+        estadio.useHoldClock(virtualMillis::get);
+        sectionNames = new String[layout.sectionCount()];
+        for (int section = 0; section < sectionNames.length; section++) {
+            sectionNames[section] = layout.sectionName(section);
+        }
+        clients = new Cliente[trace.buyers];
+        for (int i = 0; i < clients.length; i++) {
+            clients[i] = estadio.internClient("Comprador " + i, "comprador-" + i + "@simulacion", "000");
+            clientIndex.put(clients[i], i);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (!arg.startsWith("--") || equals < 0) {
+                System.out.println("Opción no válida: " + arg);
+                return;
+            }
+            options.put(arg.substring(2, equals), arg.substring(equals + 1));
+        }
+
+        int seats = Integer.parseInt(options.getOrDefault("seats", "20000"));
+        DistribucionEstadio layout = options.containsKey("venue")
+                ? DistribucionEstadio.load(Paths.get(options.get("venue"))) : DistribucionEstadio.standard(seats, seats, seats);
+        Traza trace;
+        if (options.containsKey("replay")) {
+            trace = Traza.read(Paths.get(options.get("replay")), layout.sectionCount());
+        } else {
+            trace = Traza.generate(Long.parseLong(options.getOrDefault("seed", "42")),
+                    Integer.parseInt(options.getOrDefault("operations", "200000")),
+                    Integer.parseInt(options.getOrDefault("buyers", "50000")),
+                    layout.sectionCount(),
+                    Double.parseDouble(options.getOrDefault("rate", "20000")),
+                    Double.parseDouble(options.getOrDefault("hot", "0.6")),
+                    Double.parseDouble(options.getOrDefault("holds", "0")),
+                    Long.parseLong(options.getOrDefault("hold-ttl", "500")));
+        }
+        if (options.containsKey("record")) {
+            trace.write(Paths.get(options.get("record")));
+        }
+
+        Estadio estadio = options.containsKey("data")
+                ? Estadio.open(layout, Paths.get(options.get("data"))) : new Estadio(layout);
+        SimuladorVentas simulator = new SimuladorVentas(trace, layout, estadio,
+                Long.parseLong(options.getOrDefault("hold-ttl", "500")));
+        boolean ok = simulator.run(Integer.parseInt(options.getOrDefault("threads", "1")),
+                Double.parseDouble(options.getOrDefault("speed", "0")),
+                Integer.parseInt(options.getOrDefault("check-every", "10000")));
+        estadio.close();
+        if (!ok) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Ejecuta la traza, comprueba las invariantes e imprime el reporte.
+     *
+     * @param threads Hilos que ejecutan la traza; las operaciones de un cliente siempre van al mismo hilo, en orden.
+     * @param speed Múltiplo de la hora virtual al que se reproduce; 0 para no esperar.
+     * @param checkEvery Operaciones entre comprobaciones de las invariantes con un hilo; 0 para comprobar solo al final.
+     * @return true si se cumplieron todas las invariantes.
+     */
+    public boolean run(int threads, double speed, int checkEvery) throws InterruptedException {
+        verifier = threads == 1 && waitlistsEmpty() ? new Verificador() : null;
+        long begin = System.nanoTime();
+        if (threads == 1) {
+            for (int op = 0; op < trace.size; op++) {
+                perform(op, begin, speed);
+                if (checkEvery > 0 && (op + 1) % checkEvery == 0) {
+                    checkInvariants(op + 1);
+                }
+            }
+        } else {
+            CountDownLatch done = new CountDownLatch(threads);
+            for (int t = 0; t < threads; t++) {
+                int worker = t;
+                Thread thread = new Thread(() -> {
+                    try {
+                        for (int op = 0; op < trace.size; op++) {
+                            if (trace.clients[op] % threads == worker) {
+                                perform(op, begin, speed);
+                            }
+                        }
+                    } finally {
+                        done.countDown();
+                    }
+                }, "simulador-" + worker);
+                thread.setDaemon(true);
+                thread.start();
+            }
+            done.await();
+        }
+        long elapsed = System.nanoTime() - begin;
+        checkInvariants(trace.size);
+        report(threads, speed, elapsed);
+        return violationCount == 0;
+    }
+
+    /**
+     * El orden de las listas de espera solo se puede comprobar si se conoce cada llegada: con un
+     * estadio persistente que ya tenía clientes en espera, se comprueban solo los asientos.
+     */
+    private boolean waitlistsEmpty() {
+        for (String section : sectionNames) {
+            if (!estadio.getWaitlist(section).isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Espera la hora programada de la operación (si `speed` > 0), la ejecuta y registra su latencia.
+     * Con pausas, la latencia se mide desde la hora programada: si el estadio se atrasa, la espera
+     * acumulada cuenta como parte de la respuesta, igual que para un comprador real.
+     */
+    private void perform(int op, long begin, double speed) {
+        long scheduled = System.nanoTime();
+        if (speed > 0) {
+            scheduled = begin + (long) (trace.times[op] * 1000 / speed);
+            long wait = scheduled - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+        }
+        byte type = trace.types[op];
+        if (trace.hasHolds) {
+            long now = virtualMillis.accumulateAndGet(trace.times[op] / 1000, Math::max);
+            outcomes.addAndGet(EXPIRED, estadio.expireHolds(now));
+        }
+        execute(op, type);
+        latencies[type == RESERVE ? 0 : type == CANCEL ? 1 : type == LEAVE ? 2 : type == HOLD ? 3 : 4]
+                .record(System.nanoTime() - scheduled);
+    }
+
+    private void execute(int op, byte type) {
+        int buyer = trace.clients[op];
+        Cliente client = clients[buyer];
+        int section = trace.sections[op];
+        if (type == RESERVE) {
+            // Misma decisión que en el menú ante una sección llena; sin alternativas, se anota en la lista de espera.
+            ResultadoReserva result = estadio.reserve(client, sectionNames[section]);
+            if (result.getStatus() == ResultadoReserva.Estado.RESERVED) {
+                outcomes.incrementAndGet(RESERVED);
+                return;
+            }
+            outcomes.incrementAndGet(FULL);
+            List<String> alternatives = result.getAlternativeSections();
+            byte reaction = trace.reactions[op];
+            if (reaction == ALTERNATIVE && !alternatives.isEmpty()) {
+                if (estadio.reserveSeat(client, alternatives.get(0)) != null) {
+                    outcomes.incrementAndGet(SWITCHED);
+                }
+            } else if (reaction == GIVE_UP) {
+                outcomes.incrementAndGet(GAVE_UP);
+            } else if (estadio.joinWaitlist(client, sectionNames[section], tierOf(buyer), alternatives)) {
+                outcomes.incrementAndGet(WAITED);
+                if (verifier != null) {
+                    verifier.joined(section, buyer, op);
+                }
+            }
+        } else if (type == CANCEL) {
+            for (Cancelacion cancellation : estadio.cancelReservation(client)) {
+                outcomes.incrementAndGet(CANCELLED);
+                if (cancellation.getPromotedClient() != null) {
+                    outcomes.incrementAndGet(PROMOTED);
+                    if (verifier != null) {
+                        verifier.promoted(layout.sectionId(cancellation.getSeat().getSection()),
+                                clientIndex.get(cancellation.getPromotedClient()), op);
+                    }
+                }
+            }
+        } else if (type == HOLD) {
+            Asiento seat = estadio.holdSeat(client, sectionNames[section], holdTtlMillis);
+            if (seat == null) {
+                outcomes.incrementAndGet(FULL);
+            } else {
+                outcomes.incrementAndGet(HELD);
+                heldSeats[buyer] = seat;
+            }
+        } else if (type == PAY) {
+            // Paga su última retención; si ya venció, el pago llega tarde y no reserva nada.
+            Asiento seat = heldSeats[buyer];
+            heldSeats[buyer] = null;
+            if (seat != null && estadio.confirmHold(client, seat)) {
+                outcomes.incrementAndGet(PAID);
+            }
+        } else if (estadio.leaveWaitlist(client, sectionNames[section])) {
+            outcomes.incrementAndGet(LEFT);
+            if (verifier != null) {
+                verifier.left(section, buyer);
+            }
+        }
+    }
+
+    /**
+     * Uno de cada diez compradores es abonado de temporada.
+     */
+    private static PrioridadEspera tierOf(int buyer) {
+        return buyer % 10 == 0 ? PrioridadEspera.SEASON_TICKET : PrioridadEspera.GENERAL;
+    }
+
+    /**
+     * Comprueba las invariantes de asientos y, con un hilo, las de las listas de espera.
+     * Con varios hilos solo se llama al final, cuando ya no hay operaciones en curso.
+     */
+    private void checkInvariants(int afterOps) {
+        List<DisponibilidadSeccion> availability = estadio.getAvailability();
+        long sold = 0;
+        long held = 0;
+        for (int section = 0; section < sectionNames.length; section++) {
+            DisponibilidadSeccion current = availability.get(section);
+            sold += current.getSoldSeats();
+            int unsold = layout.sectionSeats(section) - current.getSoldSeats();
+            if (current.getAvailableSeats() > unsold) {
+                violation(afterOps, sectionNames[section] + ": libres=" + current.getAvailableSeats()
+                        + " pero capacidad - vendidos=" + unsold);
+            }
+            held += unsold - current.getAvailableSeats();
+        }
+        long liveHolds = outcomes.get(HELD) - outcomes.get(PAID) - outcomes.get(EXPIRED);
+        if (held != liveHolds) {
+            violation(afterOps, held + " asientos no están libres ni vendidos pero hay " + liveHolds + " retenciones vigentes");
+        }
+
+        Set<String> taken = new HashSet<>();
+        long owned = 0;
+        for (Cliente client : clients) {
+            for (Asiento seat : estadio.getReservedSeats(client)) {
+                owned++;
+                if (!taken.add(seat.toString())) {
+                    violation(afterOps, "asiento reservado dos veces: " + seat);
+                }
+            }
+        }
+        if (owned != sold) {
+            violation(afterOps, "los clientes tienen " + owned + " asientos pero se vendieron " + sold);
+        }
+
+        for (int section = 0; section < sectionNames.length; section++) {
+            List<Cliente> waitlist = estadio.getWaitlist(sectionNames[section]);
+            if (new HashSet<>(waitlist).size() != waitlist.size()) {
+                violation(afterOps, sectionNames[section] + ": un cliente aparece dos veces en la lista de espera");
+            }
+            if (verifier != null) {
+                verifier.check(section, waitlist, afterOps);
+            }
+        }
+    }
+
+    private void violation(int afterOps, String message) {
+        if (violationCount++ < MAX_REPORTED) {
+            violations.add("tras " + afterOps + " operaciones: " + message);
+        }
+    }
+
+    private void report(int threads, double speed, long elapsedNanos) {
+        System.out.printf("Traza: %,d operaciones de %,d compradores, %.1f s de hora virtual; %d hilo(s), %s%n",
+                trace.size, trace.buyers, trace.size == 0 ? 0 : trace.times[trace.size - 1] / 1e6, threads,
+                speed > 0 ? "velocidad " + speed + "x" : "sin pausas");
+        System.out.printf("%,d operaciones en %.2f s: %,.0f operaciones/s%n",
+                trace.size, elapsedNanos / 1e9, trace.size * 1e9 / Math.max(1, elapsedNanos));
+        System.out.printf("%-12s %10s %10s %10s %10s %10s%n", "Operación", "Cantidad", "p50 µs", "p99 µs", "p999 µs", "máx µs");
+        String[] names = {"reservar", "cancelar", "salir", "retener", "pagar"};
+        for (int i = 0; i < latencies.length; i++) {
+            HistogramaLatencia histogram = latencies[i];
+            if (i >= 3 && !trace.hasHolds) {
+                continue;
+            }
+            System.out.printf("%-12s %,10d %10.1f %10.1f %10.1f %10.1f%n", names[i], histogram.count(),
+                    histogram.percentile(50) / 1e3, histogram.percentile(99) / 1e3,
+                    histogram.percentile(99.9) / 1e3, histogram.max() / 1e3);
+        }
+        StringBuilder results = new StringBuilder("Resultados:");
+        for (int i = 0; i < OUTCOMES.length; i++) {
+            results.append(i == 0 ? " " : ", ").append(OUTCOMES[i]).append('=').append(outcomes.get(i));
+        }
+        System.out.println(results);
+        if (threads == 1 && verifier == null) {
+            System.out.println("Orden de las listas de espera: no comprobado (el estadio ya tenía clientes en espera)");
+        }
+        if (violationCount == 0) {
+            System.out.println("Invariantes: OK");
+        } else {
+            System.out.println("Invariantes: " + violationCount + " violaciones"
+                    + (violationCount > MAX_REPORTED ? " (se muestran las primeras " + MAX_REPORTED + ")" : ""));
+            for (String violation : violations) {
+                System.out.println("  " + violation);
+            }
+        }
+        if (threads == 1) {
+            System.out.printf("Huella del estado final: %016x%n", fingerprint());
+        }
+    }
+
+    /**
+     * Huella (FNV-1a de 64 bits) de los asientos de cada cliente y del orden de cada lista de espera.
+     */
+    private long fingerprint() {
+        long hash = 0xCBF29CE484222325L;
+        for (int buyer = 0; buyer < clients.length; buyer++) {
+            for (Asiento seat : estadio.getReservedSeats(clients[buyer])) {
+                hash = mixInto(hash, buyer);
+                hash = mixInto(hash, layout.sectionId(seat.getSection()));
+                hash = mixInto(hash, seat.getRow());
+                hash = mixInto(hash, seat.getSeatNumber());
+            }
+        }
+        for (String section : sectionNames) {
+            hash = mixInto(hash, -1);
+            for (Cliente client : estadio.getWaitlist(section)) {
+                hash = mixInto(hash, clientIndex.getOrDefault(client, -1));
+            }
+        }
+        return hash;
+    }
+
+    private static long mixInto(long hash, int value) {
+        for (int shift = 0; shift < 32; shift += 8) {
+            hash = (hash ^ ((value >>> shift) & 0xFF)) * 0x100000001B3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Seguimiento del orden de llegada a las listas de espera cuando la traza corre en un solo hilo.
+     *
+     * Cada entrada exitosa recibe como turno el número de su operación. La clave de orden de un
+     * cliente es su nivel (abonados primero) y su turno. Al comprobar una sección:
+     * - su lista de espera debe estar en orden creciente de clave;
+     * - por cada promoción desde ella desde la comprobación anterior, ningún cliente que ya
+     *   esperaba en ese momento y sigue esperando puede tener una clave menor que el promovido.
+     */
+    private final class Verificador {
+        private final List<Map<Integer, Long>> turns = new ArrayList<>(); // Por sección, cliente -> turno.
+        private final List<List<long[]>> promotions = new ArrayList<>(); // Por sección, {clave, operación}.
+
+        Verificador() {
+            for (int section = 0; section < sectionNames.length; section++) {
+                turns.add(new HashMap<>());
+                promotions.add(new ArrayList<>());
+            }
+        }
+
+        void joined(int section, int buyer, int op) {
+            turns.get(section).put(buyer, (long) op);
+        }
+
+        void left(int section, int buyer) {
+            turns.get(section).remove(buyer);
+        }
+
+        /**
+         * Solo cuenta las promociones desde la propia lista de la sección; un cliente sin turno en
+         * ella fue atendido desde la lista alternativa, que solo se usa si la propia está vacía.
+         */
+        void promoted(int section, int buyer, int op) {
+            Long turn = turns.get(section).remove(buyer);
+            if (turn != null) {
+                promotions.get(section).add(new long[] {key(buyer, turn), op});
+            }
+        }
+
+        void check(int section, List<Cliente> waitlist, int afterOps) {
+            int size = waitlist.size();
+            long[] keys = new long[size];
+            long[] joinedAt = new long[size];
+            for (int i = 0; i < size; i++) {
+                int buyer = clientIndex.get(waitlist.get(i));
+                Long turn = turns.get(section).get(buyer);
+                if (turn == null) {
+                    violation(afterOps, sectionNames[section] + ": el comprador " + buyer + " espera sin haberse anotado");
+                    return;
+                }
+                keys[i] = key(buyer, turn);
+                joinedAt[i] = turn;
+                if (i > 0 && keys[i] <= keys[i - 1]) {
+                    violation(afterOps, sectionNames[section] + ": la lista de espera no respeta el orden de llegada en la posición " + i);
+                }
+            }
+
+            // Clave mínima entre los que se anotaron antes de cada operación, en orden de turno.
+            Integer[] byTurn = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                byTurn[i] = i;
+            }
+            Arrays.sort(byTurn, (a, b) -> Long.compare(joinedAt[a], joinedAt[b]));
+            long[] sortedTurns = new long[size];
+            long[] minKey = new long[size];
+            for (int i = 0; i < size; i++) {
+                sortedTurns[i] = joinedAt[byTurn[i]];
+                minKey[i] = Math.min(keys[byTurn[i]], i == 0 ? Long.MAX_VALUE : minKey[i - 1]);
+            }
+            for (long[] promotion : promotions.get(section)) {
+                int earlier = lowerBound(sortedTurns, promotion[1]); // Cuántos esperaban ya al promover.
+                if (earlier > 0 && minKey[earlier - 1] < promotion[0]) {
+                    violation(afterOps, sectionNames[section] + ": la operación " + promotion[1]
+                            + " promovió a un cliente con otro esperando antes que él");
+                }
+            }
+            promotions.get(section).clear();
+        }
+
+        private long key(int buyer, long turn) {
+            return (tierOf(buyer) == PrioridadEspera.SEASON_TICKET ? 0 : 1L << 48) + turn;
+        }
+
+        private int lowerBound(long[] sorted, long value) {
+            int low = 0;
+            int high = sorted.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (sorted[middle] < value) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+
+    /**
+     * Traza de operaciones en arreglos paralelos: hora virtual (microsegundos desde la apertura),
+     * tipo, comprador, sección y reacción si la sección está llena.
+     *
+     * Formato de archivo (texto, una operación por línea, `#` para comentarios):
+     * `microsegundos tipo comprador sección reacción`, por ejemplo `1250 R 17 0 W`. Los tipos son
+     * `R` (reservar), `C` (cancelar), `L` (salir de la lista de espera), `H` (retener) y `P` (pagar
+     * la última retención del comprador); `H` y `P` ignoran la reacción.
+     */
+    public static final class Traza {
+        final int size;
+        final int buyers;
+        final long[] times;
+        final byte[] types;
+        final int[] clients;
+        final int[] sections;
+        final byte[] reactions;
+        final boolean hasHolds; // Si hay operaciones `H`: solo entonces se vencen retenciones antes de cada operación.
+
+        Traza(int buyers, long[] times, byte[] types, int[] clients, int[] sections, byte[] reactions) {
+            this.size = times.length;
+            this.buyers = buyers;
+            this.times = times;
+            this.types = types;
+            this.clients = clients;
+            this.sections = sections;
+            this.reactions = reactions;
+            boolean holds = false;
+            for (byte type : types) {
+                holds |= type == HOLD;
+            }
+            this.hasHolds = holds;
+        }
+
+        /**
+         * Genera una apertura de ventas. El primer 30% de las operaciones llega a 10 veces `rate`.
+         * Mezcla: 75% reservas, 15% cancelaciones y 10% salidas de la lista de espera. Ante una
+         * sección llena, 50% se anota en la lista de espera, 30% reserva en una alternativa y 20% abandona.
+         *
+         * Una fracción `holds` de las reservas son retenciones. El 70% de esos compradores paga
+         * entre 0 y 1,5 veces `holdTtlMillis` después (una operación `P` cuando llega esa hora
+         * virtual, así que a veces paga tarde) y el resto no paga y deja vencer la retención. Con
+         * `holds` en 0 la traza es la misma que sin retenciones.
+         */
+        public static Traza generate(long seed, int operations, int buyers, int sectionCount, double rate, double hot,
+                                     double holds, long holdTtlMillis) {
+            Random random = new Random(seed);
+            long[] times = new long[operations];
+            byte[] types = new byte[operations];
+            int[] clients = new int[operations];
+            int[] sections = new int[operations];
+            byte[] reactions = new byte[operations];
+            PriorityQueue<long[]> payments = new PriorityQueue<>((a, b) -> Long.compare(a[0], b[0])); // {microsegundos, comprador}.
+            double micros = 0;
+            for (int op = 0; op < operations; op++) {
+                double currentRate = op < operations * 3L / 10 ? rate * 10 : rate;
+                micros += -Math.log(1 - random.nextDouble()) / currentRate * 1e6; // Llegadas de Poisson.
+                times[op] = (long) micros;
+                if (!payments.isEmpty() && payments.peek()[0] <= times[op]) {
+                    types[op] = PAY;
+                    clients[op] = (int) payments.poll()[1];
+                    reactions[op] = WAIT;
+                    continue;
+                }
+                int kind = random.nextInt(100);
+                types[op] = kind < 75 ? RESERVE : kind < 90 ? CANCEL : LEAVE;
+                clients[op] = random.nextInt(buyers);
+                sections[op] = sectionCount == 1 || random.nextDouble() < hot ? 0 : 1 + random.nextInt(sectionCount - 1);
+                int reaction = random.nextInt(10);
+                reactions[op] = reaction < 5 ? WAIT : reaction < 8 ? ALTERNATIVE : GIVE_UP;
+                if (holds > 0 && types[op] == RESERVE && random.nextDouble() < holds) {
+                    types[op] = HOLD;
+                    if (random.nextInt(10) < 7) {
+                        long delay = (long) (random.nextDouble() * 1.5 * holdTtlMillis * 1000);
+                        payments.add(new long[] {times[op] + delay, clients[op]});
+                    }
+                }
+            }
+            return new Traza(buyers, times, types, clients, sections, reactions);
+        }
+
+        public void write(Path file) throws IOException {
+            try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                writer.write("# SimuladorVentas: microsegundos tipo comprador sección reacción; compradores=" + buyers);
+                writer.newLine();
+                for (int op = 0; op < size; op++) {
+                    writer.write(times[op] + " " + (char) types[op] + " " + clients[op] + " " + sections[op]
+                            + " " + (char) reactions[op]);
+                    writer.newLine();
+                }
+            }
+        }
+
+        /**
+         * @throws IllegalArgumentException Si una línea no es válida o usa una sección que la distribución no tiene.
+         */
+        public static Traza read(Path file, int sectionCount) throws IOException {
+            List<String> lines = new ArrayList<>();
+            List<Integer> lineNumbers = new ArrayList<>(); // Línea del archivo de cada operación, para los errores.
+            List<String> fileLines = Files.readAllLines(file, StandardCharsets.UTF_8);
+            for (int number = 0; number < fileLines.size(); number++) {
+                String line = fileLines.get(number);
+                if (!line.isBlank() && !line.startsWith("#")) {
+                    lines.add(line);
+                    lineNumbers.add(number + 1);
+                }
+            }
+            int operations = lines.size();
+            long[] times = new long[operations];
+            byte[] types = new byte[operations];
+            int[] clients = new int[operations];
+            int[] sections = new int[operations];
+            byte[] reactions = new byte[operations];
+            int buyers = 0;
+            for (int op = 0; op < operations; op++) {
+                String[] fields = lines.get(op).trim().split("\\s+");
+                try {
+                    times[op] = Long.parseLong(fields[0]);
+                    types[op] = (byte) fields[1].charAt(0);
+                    clients[op] = Integer.parseInt(fields[2]);
+                    sections[op] = Integer.parseInt(fields[3]);
+                    reactions[op] = (byte) fields[4].charAt(0);
+                } catch (RuntimeException e) {
+                    throw new IllegalArgumentException("Línea " + lineNumbers.get(op) + " no válida en la traza: "
+                            + lines.get(op));
+                }
+                if ((types[op] != RESERVE && types[op] != CANCEL && types[op] != LEAVE && types[op] != HOLD
+                        && types[op] != PAY) || clients[op] < 0
+                        || sections[op] < 0 || sections[op] >= sectionCount) {
+                    throw new IllegalArgumentException("Línea " + lineNumbers.get(op) + " no válida en la traza: "
+                            + lines.get(op));
+                }
+                buyers = Math.max(buyers, clients[op] + 1);
+            }
+            return new Traza(buyers, times, types, clients, sections, reactions);
+        }
+    }
+}
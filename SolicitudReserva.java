@@ -0,0 +1,26 @@
+/**
+ * Una solicitud dentro de una reserva en lote: `count` asientos en una sección para un cliente.
+ */
+public class SolicitudReserva {
+    private final Cliente client;
+    private final String section;
+    private final int count;
+
+    public SolicitudReserva(Cliente client, String section, int count) {
+        this.client = client;
+        this.section = section;
+        this.count = count;
+    }
+
+    public Cliente getClient() {
+        return client;
+    }
+
+    public String getSection() {
+        return section;
+    }
+
+    public int getCount() {
+        return count;
+    }
+}
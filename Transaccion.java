@@ -0,0 +1,52 @@
+/**
+ * Un evento del historial de transacciones. Solo se crean objetos `Transaccion` al consultar el
+ * historial; mientras tanto los eventos viven como campos primitivos en `HistorialTransacciones`.
+ *
+ * `type` usa los tipos de evento de `DiarioReservas`. `seat` es el índice del asiento en el
+ * inventario (el primero, en eventos de varios asientos), o -1 para eventos de la lista de espera,
+ * que solo tienen sección. `quantity` es la cantidad de asientos del evento.
+ */
+public class Transaccion {
+    private final byte type;
+    private final int section;
+    private final int seat;
+    private final int client;
+    private final int quantity;
+    private final long timestamp;
+
+    public Transaccion(byte type, int section, int seat, int client, int quantity, long timestamp) {
+        this.type = type;
+        this.section = section;
+        this.seat = seat;
+        this.client = client;
+        this.quantity = quantity;
+        this.timestamp = timestamp;
+    }
+
+    public byte getType() {
+        return type;
+    }
+
+    public int getSection() {
+        return section;
+    }
+
+    public int getSeat() {
+        return seat;
+    }
+
+    public int getClient() {
+        return client;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    /**
+     * @return Momento del evento, en milisegundos desde la época Unix.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+}
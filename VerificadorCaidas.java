@@ -0,0 +1,318 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Comprueba que el diario y el archivo de asientos (`ArchivoAsientos`) de un estadio persistente
+ * sobreviven a la caída del proceso.
+ *
+ * Cada ronda lanza otra JVM (el mismo `java` y el mismo classpath) que abre un estadio en un
+ * directorio vacío y ejecuta desde varios hilos reservas, cancelaciones, retenciones, listas de
+ * espera con alternativas y deshacer, hasta que termina con `Runtime.halt`, sin cerrar el estadio
+ * ni el archivo. Las rondas alternan dos formas de caer:
+ * - Tranquila: los hilos terminan sus operaciones y después el proceso se detiene. Todo lo que se
+ *   confirmó está en el diario, así que el archivo debe coincidir asiento por asiento con el
+ *   estado recuperado (los asientos retenidos vuelven a estar libres, porque las retenciones no van
+ *   al diario) y todas sus páginas deben tener la suma de verificación correcta.
+ * - Durante las escrituras: el proceso se detiene con los hilos trabajando. El archivo puede ir
+ *   por delante del diario, y una página escrita entre la casilla y su suma queda marcada como
+ *   dañada; ambas cosas se informan, pero no son errores.
+ *
+ * En ambos casos, este proceso primero mapea el archivo en modo de solo lectura, como lo haría un
+ * reporte (ver `ArchivoAsientos.main`). Después daña a propósito la última casilla, como una
+ * página escrita a medias, y `verify` debe detectarlo. Por último abre el estadio, que recupera el
+ * diario y reconcilia el archivo: el archivo debe coincidir exactamente con las reservas
+ * recuperadas y no debe tener páginas dañadas.
+ *
+ * Uso:
+ * <pre>
+ * java -cp out VerificadorCaidas --rounds=10 --threads=4
+ * </pre>
+ *
+ * Opciones (todas opcionales):
+ * - `--rounds=N`: Cantidad de caídas (por defecto 10).
+ * - `--seats=N`: Asientos por sección de la distribución estándar (por defecto 2000).
+ * - `--threads=N`: Hilos que operan sobre el estadio antes de la caída (por defecto 4).
+ * - `--millis=N`: Tiempo de operación antes de la caída, en milisegundos (por defecto 500).
+ * - `--seed=N`: Semilla de las operaciones (por defecto 42); la ronda `r` usa `seed + r`.
+ * - `--data=dir`: Directorio donde se crean los directorios de cada ronda (por defecto uno temporal).
+ */
+public class VerificadorCaidas {
+    private static final long HOLD_MILLIS = 60_000; // Las retenciones no vencen durante la ronda.
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("--child")) {
+            runChild(Paths.get(args[1]), Integer.parseInt(args[2]), Integer.parseInt(args[3]),
+                    Long.parseLong(args[4]), Long.parseLong(args[5]), Boolean.parseBoolean(args[6]));
+            return;
+        }
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (!arg.startsWith("--") || equals < 0) {
+                System.out.println("Opción no válida: " + arg);
+                return;
+            }
+            options.put(arg.substring(2, equals), arg.substring(equals + 1));
+        }
+
+        int rounds = Integer.parseInt(options.getOrDefault("rounds", "10"));
+        int seats = Integer.parseInt(options.getOrDefault("seats", "2000"));
+        int threads = Integer.parseInt(options.getOrDefault("threads", "4"));
+        long millis = Long.parseLong(options.getOrDefault("millis", "500"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+        Path base = options.containsKey("data")
+                ? Files.createDirectories(Paths.get(options.get("data"))) : Files.createTempDirectory("caidas");
+
+        int failedRounds = 0;
+        for (int round = 0; round < rounds; round++) {
+            boolean quiet = round % 2 == 0;
+            Path directory = base.resolve("ronda-" + round);
+            Files.createDirectories(directory);
+            List<String> violations = new ArrayList<>();
+            String childOutput = crashChild(directory, seats, threads, seed + round, millis, quiet, violations);
+            System.out.printf("Ronda %d (%s): %s%n", round, quiet ? "caída tranquila" : "caída durante escrituras",
+                    childOutput);
+            if (violations.isEmpty()) {
+                checkRound(DistribucionEstadio.standard(seats, seats, seats), directory, seats * 2, quiet, violations);
+            }
+            for (String violation : violations) {
+                System.out.println("  ERROR: " + violation);
+            }
+            if (!violations.isEmpty()) {
+                failedRounds++;
+            }
+        }
+        System.out.println(failedRounds == 0 ? "Resultado: OK" : "Resultado: " + failedRounds + " ronda(s) con errores");
+        System.out.println("Directorios de las rondas: " + base);
+        if (failedRounds > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Lanza el proceso que opera sobre el estadio y espera a que caiga.
+     *
+     * @return Lo que el proceso informó antes de caer.
+     */
+    private static String crashChild(Path directory, int seats, int threads, long seed, long millis, boolean quiet,
+            List<String> violations) throws IOException, InterruptedException {
+        Path java = Paths.get(System.getProperty("java.home"), "bin", "java");
+        ProcessBuilder builder = new ProcessBuilder(java.toString(), "-cp", System.getProperty("java.class.path"),
+                VerificadorCaidas.class.getName(), "--child", directory.toString(), String.valueOf(seats),
+                String.valueOf(threads), String.valueOf(seed), String.valueOf(millis), String.valueOf(quiet));
+        builder.redirectErrorStream(true);
+        Process child = builder.start();
+        byte[] output = child.getInputStream().readAllBytes();
+        if (!child.waitFor(millis + 60_000, TimeUnit.MILLISECONDS)) {
+            child.destroyForcibly();
+            violations.add("el proceso no terminó");
+        } else if (child.exitValue() != 0) {
+            violations.add("el proceso terminó con código " + child.exitValue());
+        }
+        return new String(output, StandardCharsets.UTF_8).trim();
+    }
+
+    /**
+     * Proceso que cae: abre el estadio, opera durante `millis` desde `threads` hilos y se detiene
+     * con `Runtime.halt`, después de esperar a los hilos si `quiet`.
+     */
+    private static void runChild(Path directory, int seats, int threads, long seed, long millis, boolean quiet)
+            throws Exception {
+        DistribucionEstadio layout = DistribucionEstadio.standard(seats, seats, seats);
+        Estadio estadio = Estadio.open(layout, directory);
+        Cliente[] clients = new Cliente[seats * 2];
+        for (int i = 0; i < clients.length; i++) {
+            clients[i] = estadio.internClient("Comprador " + i, "comprador-" + i + "@caidas", "000");
+        }
+        String[] sections = new String[layout.sectionCount()];
+        for (int section = 0; section < sections.length; section++) {
+            sections[section] = layout.sectionName(section);
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        long[] operations = new long[threads];
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int worker = t;
+            workers[t] = new Thread(() -> {
+                Random random = new Random(seed * 31 + worker);
+                Map<Cliente, Asiento> holds = new HashMap<>();
+                // Cada hilo usa sus propios clientes, así sus retenciones no las toca otro hilo.
+                int perWorker = clients.length / threads;
+                while (System.nanoTime() < deadline) {
+                    Cliente client = clients[worker * perWorker + random.nextInt(perWorker)];
+                    operate(estadio, client, sections[random.nextInt(sections.length)], sections, holds, random);
+                    operations[worker]++;
+                }
+            }, "caidas-" + t);
+            workers[t].setDaemon(true);
+            workers[t].start();
+        }
+
+        if (quiet) {
+            for (Thread worker : workers) {
+                worker.join();
+            }
+        } else {
+            Thread.sleep(millis / 2 + new Random(seed).nextInt((int) Math.max(1, millis / 2)));
+        }
+        System.out.println(Arrays.stream(operations).sum() + " operaciones antes de caer");
+        System.out.flush();
+        Runtime.getRuntime().halt(0);
+    }
+
+    private static void operate(Estadio estadio, Cliente client, String section, String[] sections,
+            Map<Cliente, Asiento> holds, Random random) {
+        int choice = random.nextInt(100);
+        if (choice < 35) {
+            estadio.reserveSeat(client, section);
+        } else if (choice < 40) {
+            estadio.reserveAdjacentSeats(client, section, 2 + random.nextInt(3),
+                    PoliticaAsientos.values()[random.nextInt(PoliticaAsientos.values().length)]);
+        } else if (choice < 55) {
+            List<Asiento> seats = estadio.getReservedSeats(client);
+            if (!seats.isEmpty()) {
+                estadio.cancelReservation(client, seats.get(random.nextInt(seats.size())));
+            }
+        } else if (choice < 60) {
+            estadio.cancelReservation(client);
+        } else if (choice < 70) {
+            String fallback = sections[random.nextInt(sections.length)];
+            estadio.joinWaitlist(client, section, PrioridadEspera.values()[random.nextInt(2)],
+                    fallback.equals(section) ? List.of() : List.of(fallback));
+        } else if (choice < 73) {
+            estadio.leaveWaitlist(client, section);
+        } else if (choice < 85) {
+            Asiento held = holds.remove(client);
+            if (held == null) {
+                held = estadio.holdSeat(client, section, HOLD_MILLIS);
+                if (held != null) {
+                    holds.put(client, held);
+                }
+            } else if (random.nextBoolean()) {
+                estadio.confirmHold(client, held);
+            } else {
+                estadio.releaseHold(client, held);
+            }
+        } else if (choice < 95) {
+            estadio.undo(client);
+        } else {
+            estadio.redo(client);
+        }
+    }
+
+    /**
+     * Lee el archivo que dejó el proceso caído, abre el estadio y compara ambos.
+     *
+     * @param buyers Clientes del proceso caído; el identificador del cliente `i` es `i`, porque se
+     *               registraron en orden en un directorio vacío.
+     */
+    private static void checkRound(DistribucionEstadio layout, Path directory, int buyers, boolean quiet,
+            List<String> violations) throws IOException {
+        InventarioAsientos inventory = new InventarioAsientos();
+        layout.applyTo(inventory);
+        Path fileName = directory.resolve(ArchivoAsientos.FILE_NAME);
+
+        // El archivo como lo dejó la caída, leído por otro proceso antes de abrir el estadio.
+        EstadoAsiento[] crashedStates = new EstadoAsiento[inventory.capacity()];
+        int[] crashedHolders = new int[inventory.capacity()];
+        int damagedPages;
+        try (ArchivoAsientos file = ArchivoAsientos.openReadOnly(fileName)) {
+            damagedPages = file.verify();
+            for (int seat = 0; seat < crashedStates.length; seat++) {
+                crashedStates[seat] = file.stateOf(seat); // Incluye el relleno entre secciones, siempre libre.
+                crashedHolders[seat] = file.holderOf(seat);
+            }
+        }
+
+        // Bytes 4 a 7 de la última casilla (el dueño del último asiento), al final del archivo.
+        try (FileChannel channel = FileChannel.open(fileName, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer holder = ByteBuffer.allocate(4);
+            long position = channel.size() - holder.capacity();
+            channel.read(holder, position);
+            holder.put(0, (byte) (holder.get(0) ^ 0x55)).rewind();
+            channel.write(holder, position);
+        }
+        try (ArchivoAsientos file = ArchivoAsientos.openReadOnly(fileName)) {
+            if (file.verify() == 0) {
+                violations.add("la casilla dañada a propósito no se detectó");
+            }
+        }
+
+        Estadio estadio = Estadio.open(layout, directory);
+        int[] owners = new int[inventory.capacity()];
+        Arrays.fill(owners, -1);
+        for (int i = 0; i < buyers; i++) {
+            Cliente client = estadio.internClient("Comprador " + i, "comprador-" + i + "@caidas", "000");
+            for (Asiento seat : estadio.getReservedSeats(client)) {
+                owners[inventory.indexOf(seat)] = i;
+            }
+        }
+
+        int ahead = 0;
+        try (ArchivoAsientos file = ArchivoAsientos.openReadOnly(fileName)) {
+            if (file.verify() != 0) {
+                violations.add(file.verify() + " página(s) dañada(s) después de abrir el estadio");
+            }
+            for (int seat = 0; seat < owners.length; seat++) {
+                if (!isSeat(inventory, seat)) {
+                    continue;
+                }
+                EstadoAsiento expected = owners[seat] >= 0 ? EstadoAsiento.RESERVED : EstadoAsiento.AVAILABLE;
+                if (file.stateOf(seat) != expected || file.holderOf(seat) != owners[seat]) {
+                    report(violations, "después de abrir, " + inventory.seatAt(seat) + " está " + file.stateOf(seat)
+                            + " (cliente " + file.holderOf(seat) + ") y el estado recuperado dice " + expected
+                            + " (cliente " + owners[seat] + ")");
+                }
+                if (estadio.getSeatState(inventory.seatAt(seat)) != expected) {
+                    report(violations, "el estadio informa " + estadio.getSeatState(inventory.seatAt(seat)) + " para "
+                            + inventory.seatAt(seat) + " y sus reservas dicen " + expected);
+                }
+
+                // Antes de abrir: las retenciones no están en el diario y vuelven a quedar libres.
+                boolean heldAndFreed = crashedStates[seat] == EstadoAsiento.HELD && owners[seat] < 0;
+                if (!heldAndFreed && (crashedStates[seat] != expected || crashedHolders[seat] != owners[seat])) {
+                    ahead++;
+                    if (quiet) {
+                        report(violations, "tras la caída, " + inventory.seatAt(seat) + " estaba " + crashedStates[seat]
+                                + " (cliente " + crashedHolders[seat] + ") y el diario dice " + expected
+                                + " (cliente " + owners[seat] + ")");
+                    }
+                }
+            }
+        }
+        estadio.close();
+
+        if (quiet && damagedPages > 0) {
+            violations.add(damagedPages + " página(s) dañada(s) tras una caída sin escrituras en curso");
+        }
+        System.out.printf("  Tras la caída: páginas dañadas=%d, casillas distintas del diario=%d%n", damagedPages, ahead);
+    }
+
+    /**
+     * Cada sección empieza en un múltiplo de 64: los índices entre secciones no son asientos.
+     */
+    private static boolean isSeat(InventarioAsientos inventory, int seat) {
+        int section = inventory.sectionOf(seat);
+        return seat < inventory.sectionStart(section) + inventory.sectionCapacity(section);
+    }
+
+    private static void report(List<String> violations, String violation) {
+        if (violations.size() < 20) {
+            violations.add(violation);
+        }
+    }
+}